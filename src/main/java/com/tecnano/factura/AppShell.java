@@ -5,6 +5,7 @@ package com.tecnano.factura;
 
 import com.vaadin.flow.component.page.AppShellConfigurator;
 import com.vaadin.flow.component.page.Meta;
+import com.vaadin.flow.component.page.Push;
 import com.vaadin.flow.server.PWA;
 import com.vaadin.flow.theme.Theme;
 
@@ -15,5 +16,6 @@ import com.vaadin.flow.theme.Theme;
 @Theme(value = "tecnano") // ✅ NO forces Lumo.LIGHT; así dark funciona limpio
 @Meta(name = "viewport", content = "width=device-width, initial-scale=1, viewport-fit=cover")
 @Meta(name = "theme-color", content = "#182132")
+@Push // la pantalla de cocina recibe las órdenes sin recargar
 public class AppShell implements AppShellConfigurator {
 }
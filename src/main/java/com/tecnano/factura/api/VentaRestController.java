@@ -3,43 +3,56 @@
 // =====================================================
 package com.tecnano.factura.api;
 
-import com.tecnano.factura.model.Venta;
-import com.tecnano.factura.repository.VentaRepository;
+import com.tecnano.factura.service.ExportacionRideService;
+import com.tecnano.factura.service.RideService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/ventas")
 public class VentaRestController {
 
-    private final VentaRepository ventaRepository;
+    /** Tope del rango para el ZIP de RIDE (un año). */
+    private static final long MAX_DIAS_EXPORTACION = 366;
 
-    public VentaRestController(VentaRepository ventaRepository) {
-        this.ventaRepository = ventaRepository;
+    private final RideService rideService;
+    private final ExportacionRideService exportacionRideService;
+
+    public VentaRestController(RideService rideService,
+                               ExportacionRideService exportacionRideService) {
+        this.rideService = rideService;
+        this.exportacionRideService = exportacionRideService;
     }
 
     /**
      * Devuelve el RIDE (PDF) de una venta.
      *
      * URL: GET /api/ventas/{id}/ride
+     *
+     * Si aún no existe se genera en este momento (ver RideService). Los RIDE
+     * ya guardados se envían en streaming desde data/ride/ sin cargarlos en memoria.
      */
     @GetMapping("/{id}/ride")
-    public ResponseEntity<byte[]> obtenerRide(@PathVariable("id") Long id) {
-        Optional<Venta> optVenta = ventaRepository.findById(id);
-        if (optVenta.isEmpty()) {
+    public ResponseEntity<StreamingResponseBody> obtenerRide(@PathVariable("id") Long id) throws IOException {
+        Optional<RideService.Ride> optRide = rideService.obtenerRide(id);
+        if (optRide.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        Venta venta = optVenta.get();
-
-        byte[] pdfBytes = venta.getRidePdf();
-        if (pdfBytes == null || pdfBytes.length == 0) {
+        RideService.Ride ride = optRide.get();
+        long tamano = rideService.tamano(ride);
+        if (tamano == 0) {
             return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
         }
 
@@ -51,8 +64,38 @@ public class VentaRestController {
                 .filename("RIDE-venta-" + id + ".pdf")
                 .build();
         headers.setContentDisposition(contentDisposition);
+        headers.setContentLength(tamano);
+
+        StreamingResponseBody cuerpo = out -> rideService.escribir(ride, out);
+        return new ResponseEntity<>(cuerpo, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Los RIDE de las ventas autorizadas de un rango de fechas en un ZIP.
+     *
+     * URL: GET /api/ventas/rides.zip?desde=2024-05-01&hasta=2024-05-31
+     *
+     * El ZIP se escribe en streaming mientras se arma (ver ExportacionRideService),
+     * por eso no lleva Content-Length.
+     */
+    @GetMapping("/rides.zip")
+    public ResponseEntity<StreamingResponseBody> exportarRides(
+            @RequestParam("desde") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam("hasta") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+
+        if (hasta.isBefore(desde) || ChronoUnit.DAYS.between(desde, hasta) >= MAX_DIAS_EXPORTACION) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDisposition(ContentDisposition
+                .attachment()
+                .filename("RIDE-" + desde + "-a-" + hasta + ".zip")
+                .build());
 
-        return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+        StreamingResponseBody cuerpo = out -> exportacionRideService.exportarZip(desde, hasta, out);
+        return new ResponseEntity<>(cuerpo, headers, HttpStatus.OK);
     }
 
     /*
@@ -5,6 +5,9 @@ package com.tecnano.factura.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @ConfigurationProperties(prefix = "tecnano")
 public class AppProperties {
 
@@ -26,6 +29,14 @@ public class AppProperties {
         private String direccion = "Quito - Ecuador";
         private String telefono = "0980000000";
 
+        /** Razón social ante el SRI; si está vacía se usa el nombre. */
+        private String razonSocial = "";
+        /** Código de establecimiento SRI (3 dígitos). */
+        private String establecimiento = "001";
+        /** Código de punto de emisión SRI (3 dígitos). */
+        private String puntoEmision = "001";
+        private boolean obligadoContabilidad = false;
+
         public String getNombre() { return nombre; }
         public void setNombre(String nombre) { this.nombre = nombre; }
 
@@ -40,14 +51,70 @@ public class AppProperties {
 
         public String getTelefono() { return telefono; }
         public void setTelefono(String telefono) { this.telefono = telefono; }
+
+        public String getRazonSocial() { return razonSocial; }
+        public void setRazonSocial(String razonSocial) { this.razonSocial = razonSocial; }
+
+        public String getEstablecimiento() { return establecimiento; }
+        public void setEstablecimiento(String establecimiento) { this.establecimiento = establecimiento; }
+
+        public String getPuntoEmision() { return puntoEmision; }
+        public void setPuntoEmision(String puntoEmision) { this.puntoEmision = puntoEmision; }
+
+        public boolean isObligadoContabilidad() { return obligadoContabilidad; }
+        public void setObligadoContabilidad(boolean obligadoContabilidad) { this.obligadoContabilidad = obligadoContabilidad; }
     }
 
     // ======= Sección IMPRESIÓN =======
     public static class Impresion {
         private String impresoraCocina = "";
+        /**
+         * Impresora de cada estación (BEBIDAS, PARRILLA...), p. ej.
+         * tecnano.impresion.estaciones.BEBIDAS=EPSON Barra. Las estaciones
+         * sin impresora propia usan impresoraCocina.
+         */
+        private Map<String, String> estaciones = new LinkedHashMap<>();
+        /** Térmica de caja para el ticket del cliente (ESC/POS); vacío = se imprime desde el navegador. */
+        private String impresoraTicket = "";
+        /** Ancho del papel del ticket: 58 u 80 (mm). */
+        private int anchoTicketMm = 80;
+        /** Trabajos esperando por impresora; si se llena, se rechazan los nuevos. */
+        private int capacidadColaImpresora = 50;
+        /** Reintentos de un trabajo cuando la impresora falla (papel, tapa, apagada). */
+        private int reintentosImpresion = 3;
+        /** Espera antes del primer reintento (ms); luego se duplica. */
+        private long reintentoImpresionMs = 2000;
+        /** Tabla de caracteres ESC/POS: PC850, PC858, PC437 o WPC1252 (según lo que soporte la térmica). */
+        private String tablaCaracteres = "PC850";
+        /** Timeout de conexión/escritura para impresoras tcp://host:9100 (ms). */
+        private long tcpTimeoutMs = 3000;
 
         public String getImpresoraCocina() { return impresoraCocina; }
         public void setImpresoraCocina(String impresoraCocina) { this.impresoraCocina = impresoraCocina; }
+
+        public Map<String, String> getEstaciones() { return estaciones; }
+        public void setEstaciones(Map<String, String> estaciones) { this.estaciones = estaciones; }
+
+        public String getImpresoraTicket() { return impresoraTicket; }
+        public void setImpresoraTicket(String impresoraTicket) { this.impresoraTicket = impresoraTicket; }
+
+        public int getAnchoTicketMm() { return anchoTicketMm; }
+        public void setAnchoTicketMm(int anchoTicketMm) { this.anchoTicketMm = anchoTicketMm; }
+
+        public int getCapacidadColaImpresora() { return capacidadColaImpresora; }
+        public void setCapacidadColaImpresora(int capacidadColaImpresora) { this.capacidadColaImpresora = capacidadColaImpresora; }
+
+        public int getReintentosImpresion() { return reintentosImpresion; }
+        public void setReintentosImpresion(int reintentosImpresion) { this.reintentosImpresion = reintentosImpresion; }
+
+        public long getReintentoImpresionMs() { return reintentoImpresionMs; }
+        public void setReintentoImpresionMs(long reintentoImpresionMs) { this.reintentoImpresionMs = reintentoImpresionMs; }
+
+        public String getTablaCaracteres() { return tablaCaracteres; }
+        public void setTablaCaracteres(String tablaCaracteres) { this.tablaCaracteres = tablaCaracteres; }
+
+        public long getTcpTimeoutMs() { return tcpTimeoutMs; }
+        public void setTcpTimeoutMs(long tcpTimeoutMs) { this.tcpTimeoutMs = tcpTimeoutMs; }
     }
 
     // ======= Sección SRI/API =======
@@ -55,6 +122,52 @@ public class AppProperties {
         private boolean simular = true;
         private String proveedorBaseUrl = "";
         private String proveedorToken = "";
+        /** Ambiente SRI: 1 = pruebas, 2 = producción. */
+        private String ambiente = "1";
+        /** Certificado de firma electrónica (.p12); vacío = el XML se envía sin firmar. */
+        private String certificadoP12 = "";
+        /** Clave del certificado .p12. */
+        private String certificadoClave = "";
+
+        /** Timeout para abrir conexión con el proveedor (ms). */
+        private int connectTimeoutMs = 5000;
+        /** Timeout esperando la respuesta del proveedor (ms). */
+        private int readTimeoutMs = 20000;
+        /** Fallas seguidas que abren el circuito hacia el proveedor. */
+        private int circuitoUmbralFallas = 5;
+        /** Tiempo que el circuito se queda abierto antes de probar de nuevo (ms). */
+        private long circuitoAbiertoMs = 30000;
+
+        /** Hilos que envían ventas al proveedor en segundo plano. */
+        private int hilosEnvio = 2;
+        /** Máximo de ventas esperando en memoria; el resto sigue PENDIENTE en BD. */
+        private int capacidadCola = 500;
+        /** Cada cuánto se barren las ventas PENDIENTE de la BD (ms). */
+        private long barridoPendientesMs = 60000;
+
+        /** Primer reintento automático tras una falla transitoria (ms); luego se duplica. */
+        private long reintentoBaseMs = 60000;
+        /** Tope de espera entre reintentos automáticos (ms). */
+        private long reintentoMaxMs = 3600000;
+        /** Máximo de requests simultáneos al proveedor (automáticos + manuales). */
+        private int maxConcurrenciaProveedor = 2;
+
+        /** Ventas por segundo que se reenvían desde el diario de contingencia al volver la conexión. */
+        private int contingenciaEnviosPorSegundo = 5;
+
+        /** Envío por lotes: agrupa varias ventas en un solo request al proveedor. */
+        private boolean loteHabilitado = false;
+        /** Máximo de ventas por lote. */
+        private int tamanoLote = 50;
+        /** Tiempo máximo que una venta espera a que se llene su lote (ms). */
+        private long esperaMaxLoteMs = 2000;
+
+        /** Tope del caché de RIDE en memoria (bytes). */
+        private long rideCacheMaxBytes = 32L * 1024 * 1024;
+        /** Generar el RIDE en segundo plano apenas se autoriza la venta. */
+        private boolean ridePrecalentar = false;
+        /** Hilos para dibujar los RIDE que faltan al exportar un ZIP (ver ExportacionRideService). */
+        private int rideExportarHilos = 2;
 
         public boolean isSimular() { return simular; }
         public void setSimular(boolean simular) { this.simular = simular; }
@@ -64,6 +177,66 @@ public class AppProperties {
 
         public String getProveedorToken() { return proveedorToken; }
         public void setProveedorToken(String proveedorToken) { this.proveedorToken = proveedorToken; }
+
+        public String getAmbiente() { return ambiente; }
+        public void setAmbiente(String ambiente) { this.ambiente = ambiente; }
+
+        public String getCertificadoP12() { return certificadoP12; }
+        public void setCertificadoP12(String certificadoP12) { this.certificadoP12 = certificadoP12; }
+
+        public String getCertificadoClave() { return certificadoClave; }
+        public void setCertificadoClave(String certificadoClave) { this.certificadoClave = certificadoClave; }
+
+        public int getConnectTimeoutMs() { return connectTimeoutMs; }
+        public void setConnectTimeoutMs(int connectTimeoutMs) { this.connectTimeoutMs = connectTimeoutMs; }
+
+        public int getReadTimeoutMs() { return readTimeoutMs; }
+        public void setReadTimeoutMs(int readTimeoutMs) { this.readTimeoutMs = readTimeoutMs; }
+
+        public int getCircuitoUmbralFallas() { return circuitoUmbralFallas; }
+        public void setCircuitoUmbralFallas(int circuitoUmbralFallas) { this.circuitoUmbralFallas = circuitoUmbralFallas; }
+
+        public long getCircuitoAbiertoMs() { return circuitoAbiertoMs; }
+        public void setCircuitoAbiertoMs(long circuitoAbiertoMs) { this.circuitoAbiertoMs = circuitoAbiertoMs; }
+
+        public int getHilosEnvio() { return hilosEnvio; }
+        public void setHilosEnvio(int hilosEnvio) { this.hilosEnvio = hilosEnvio; }
+
+        public int getCapacidadCola() { return capacidadCola; }
+        public void setCapacidadCola(int capacidadCola) { this.capacidadCola = capacidadCola; }
+
+        public long getBarridoPendientesMs() { return barridoPendientesMs; }
+        public void setBarridoPendientesMs(long barridoPendientesMs) { this.barridoPendientesMs = barridoPendientesMs; }
+
+        public long getReintentoBaseMs() { return reintentoBaseMs; }
+        public void setReintentoBaseMs(long reintentoBaseMs) { this.reintentoBaseMs = reintentoBaseMs; }
+
+        public long getReintentoMaxMs() { return reintentoMaxMs; }
+        public void setReintentoMaxMs(long reintentoMaxMs) { this.reintentoMaxMs = reintentoMaxMs; }
+
+        public int getMaxConcurrenciaProveedor() { return maxConcurrenciaProveedor; }
+        public void setMaxConcurrenciaProveedor(int maxConcurrenciaProveedor) { this.maxConcurrenciaProveedor = maxConcurrenciaProveedor; }
+
+        public int getContingenciaEnviosPorSegundo() { return contingenciaEnviosPorSegundo; }
+        public void setContingenciaEnviosPorSegundo(int contingenciaEnviosPorSegundo) { this.contingenciaEnviosPorSegundo = contingenciaEnviosPorSegundo; }
+
+        public boolean isLoteHabilitado() { return loteHabilitado; }
+        public void setLoteHabilitado(boolean loteHabilitado) { this.loteHabilitado = loteHabilitado; }
+
+        public int getTamanoLote() { return tamanoLote; }
+        public void setTamanoLote(int tamanoLote) { this.tamanoLote = tamanoLote; }
+
+        public long getEsperaMaxLoteMs() { return esperaMaxLoteMs; }
+        public void setEsperaMaxLoteMs(long esperaMaxLoteMs) { this.esperaMaxLoteMs = esperaMaxLoteMs; }
+
+        public long getRideCacheMaxBytes() { return rideCacheMaxBytes; }
+        public void setRideCacheMaxBytes(long rideCacheMaxBytes) { this.rideCacheMaxBytes = rideCacheMaxBytes; }
+
+        public boolean isRidePrecalentar() { return ridePrecalentar; }
+        public void setRidePrecalentar(boolean ridePrecalentar) { this.ridePrecalentar = ridePrecalentar; }
+
+        public int getRideExportarHilos() { return rideExportarHilos; }
+        public void setRideExportarHilos(int rideExportarHilos) { this.rideExportarHilos = rideExportarHilos; }
     }
 
     // ======= Sección LICENCIA =======
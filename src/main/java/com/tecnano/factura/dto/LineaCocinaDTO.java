@@ -0,0 +1,17 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/dto/LineaCocinaDTO.java
+// =====================================================
+package com.tecnano.factura.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Línea de una orden para la pantalla de cocina (ver OrdenCocinaDTO).
+ */
+public record LineaCocinaDTO(
+        Long ventaId,
+        String producto,
+        int cantidad,
+        BigDecimal precioUnitario,
+        String notaCocina
+) {}
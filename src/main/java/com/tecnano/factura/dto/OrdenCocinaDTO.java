@@ -0,0 +1,37 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/dto/OrdenCocinaDTO.java
+// =====================================================
+package com.tecnano.factura.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Lo que muestra la pantalla de cocina de una orden: sin cliente, sin datos
+ * SRI ni entidades completas. Se arma con dos consultas (órdenes y líneas).
+ */
+public record OrdenCocinaDTO(
+        Long ventaId,
+        LocalDateTime fechaHora,
+        String ubicacion,
+        String mesa,
+        BigDecimal total,
+        String estadoCocina,
+        List<LineaCocinaDTO> lineas
+) {
+
+    /** Para la consulta de órdenes; las líneas se agregan después. */
+    public OrdenCocinaDTO(Long ventaId, LocalDateTime fechaHora, String ubicacion,
+                          String mesa, BigDecimal total, String estadoCocina) {
+        this(ventaId, fechaHora, ubicacion, mesa, total, estadoCocina, List.of());
+    }
+
+    public OrdenCocinaDTO conLineas(List<LineaCocinaDTO> lineas) {
+        return new OrdenCocinaDTO(ventaId, fechaHora, ubicacion, mesa, total, estadoCocina, List.copyOf(lineas));
+    }
+
+    public OrdenCocinaDTO conEstado(String estadoCocina) {
+        return new OrdenCocinaDTO(ventaId, fechaHora, ubicacion, mesa, total, estadoCocina, lineas);
+    }
+}
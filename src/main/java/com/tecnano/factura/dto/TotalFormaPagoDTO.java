@@ -0,0 +1,16 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/dto/TotalFormaPagoDTO.java
+// =====================================================
+package com.tecnano.factura.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Cantidad de ventas y monto vendido de una forma de pago en un rango,
+ * sumados en la BD.
+ */
+public record TotalFormaPagoDTO(
+        String formaPago,
+        Long ventas,
+        BigDecimal total
+) {}
@@ -0,0 +1,20 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/dto/VentaListadoDTO.java
+// =====================================================
+package com.tecnano.factura.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Fila del listado de ventas: solo las columnas que muestra la grilla, sin
+ * detalles, productos ni cliente.
+ */
+public record VentaListadoDTO(
+        Long id,
+        LocalDateTime fechaHora,
+        String ubicacion,
+        String mesa,
+        String formaPago,
+        BigDecimal total
+) {}
@@ -0,0 +1,12 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/dto/VentasProductoDTO.java
+// =====================================================
+package com.tecnano.factura.dto;
+
+/**
+ * Unidades vendidas de un producto en un período.
+ */
+public record VentasProductoDTO(
+        Long productoId,
+        Long unidades
+) {}
@@ -28,6 +28,10 @@ public class Producto {
     @Column(nullable = false)
     private boolean conIva;
 
+    /** Estación que lo prepara (BEBIDAS, PARRILLA...); null = COCINA. Decide a qué impresora va la comanda. */
+    @Column(length = 30)
+    private String estacion;
+
     public Producto() {}
 
     public Producto(String codigo, String nombre, BigDecimal precio, Integer stock, boolean conIva) {
@@ -58,6 +62,9 @@ public class Producto {
     public boolean isConIva() { return conIva; }
     public void setConIva(boolean conIva) { this.conIva = conIva; }
 
+    public String getEstacion() { return estacion; }
+    public void setEstacion(String estacion) { this.estacion = estacion; }
+
     // Alias
 
     public BigDecimal getPrecioVenta() { return getPrecio(); }
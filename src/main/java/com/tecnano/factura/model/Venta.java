@@ -10,7 +10,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "ventas")
+@Table(name = "ventas", indexes = {
+        // Pantalla de cocina: órdenes activas del día (ver VentaRepository.findOrdenesCocina)
+        @Index(name = "idx_ventas_cocina", columnList = "estado_cocina, fecha_hora"),
+        // Listado y resumen por rango de fechas (ver VentaRepository.findListado/totalesPorFormaPago)
+        @Index(name = "idx_ventas_fecha", columnList = "fecha_hora")
+})
 public class Venta {
 
     @Id
@@ -42,9 +47,15 @@ public class Venta {
     @Column(length = 2000)
     private String mensajeErrorSri;
 
-    @Lob
-    @Column(name = "ride_pdf")
-    private byte[] ridePdf;
+    /** Envíos al proveedor ya hechos (automáticos o manuales). */
+    private Integer intentosSri = 0;
+
+    /** Cuándo toca el próximo reintento automático; null = no programado. */
+    private LocalDateTime proximoIntentoSri;
+
+    /** SHA-256 del RIDE guardado en data/ride/ (ver AlmacenRide); null = aún no se guardó. */
+    @Column(name = "ride_hash", length = 64)
+    private String rideHash;
 
     @Column(precision = 12, scale = 2)
     private BigDecimal subtotal = BigDecimal.ZERO;
@@ -104,8 +115,14 @@ public class Venta {
     public String getMensajeErrorSri() { return mensajeErrorSri; }
     public void setMensajeErrorSri(String mensajeErrorSri) { this.mensajeErrorSri = mensajeErrorSri; }
 
-    public byte[] getRidePdf() { return ridePdf; }
-    public void setRidePdf(byte[] ridePdf) { this.ridePdf = ridePdf; }
+    public int getIntentosSri() { return intentosSri != null ? intentosSri : 0; }
+    public void setIntentosSri(int intentosSri) { this.intentosSri = intentosSri; }
+
+    public LocalDateTime getProximoIntentoSri() { return proximoIntentoSri; }
+    public void setProximoIntentoSri(LocalDateTime proximoIntentoSri) { this.proximoIntentoSri = proximoIntentoSri; }
+
+    public String getRideHash() { return rideHash; }
+    public void setRideHash(String rideHash) { this.rideHash = rideHash; }
 
     public BigDecimal getSubtotal() { return subtotal != null ? subtotal : BigDecimal.ZERO; }
     public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal != null ? subtotal : BigDecimal.ZERO; }
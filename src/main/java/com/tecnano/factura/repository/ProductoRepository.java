@@ -3,9 +3,13 @@
 // =====================================================
 package com.tecnano.factura.repository;
 
+import com.tecnano.factura.dto.VentasProductoDTO;
 import com.tecnano.factura.model.Producto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +18,13 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     Optional<Producto> findByCodigo(String codigo);
 
     List<Producto> findByNombreContainingIgnoreCase(String nombre);
+
+    /** Unidades vendidas por producto desde {@code desde}; ordena la búsqueda del catálogo. */
+    @Query("""
+            select new com.tecnano.factura.dto.VentasProductoDTO(d.producto.id, sum(d.cantidad))
+            from DetalleVenta d
+            where d.venta.fechaHora >= :desde
+            group by d.producto.id
+            """)
+    List<VentasProductoDTO> sumarVendidosDesde(@Param("desde") LocalDateTime desde);
 }
@@ -3,9 +3,18 @@
 // =====================================================
 package com.tecnano.factura.repository;
 
+import com.tecnano.factura.dto.LineaCocinaDTO;
+import com.tecnano.factura.dto.OrdenCocinaDTO;
+import com.tecnano.factura.dto.TotalFormaPagoDTO;
+import com.tecnano.factura.dto.VentaListadoDTO;
 import com.tecnano.factura.model.Venta;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
@@ -39,4 +48,132 @@ public interface VentaRepository extends JpaRepository<Venta, Long> {
             "cliente"
     })
     Optional<Venta> findById(Long id);
+
+    @EntityGraph(attributePaths = {
+            "detalles",
+            "detalles.producto",
+            "cliente"
+    })
+    List<Venta> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Ids de las ventas AUTORIZADA del rango [desde, hasta), en orden; para
+     * recorrer muchas ventas por bloques. Las demás no tienen RIDE válido.
+     */
+    @Query("""
+            select v.id from Venta v
+            where v.fechaHora >= :desde and v.fechaHora < :hasta
+              and v.estadoSri = 'AUTORIZADA'
+            order by v.fechaHora asc, v.id asc
+            """)
+    List<Long> findIdsAutorizadasEntre(@Param("desde") LocalDateTime desde,
+                                       @Param("hasta") LocalDateTime hasta);
+
+    /** Una página del listado de ventas del rango [desde, hasta). */
+    @Query("""
+            select new com.tecnano.factura.dto.VentaListadoDTO(
+                v.id, v.fechaHora, v.ubicacion, v.mesa, v.formaPago, v.total)
+            from Venta v
+            where v.fechaHora >= :desde and v.fechaHora < :hasta
+            order by v.fechaHora asc, v.id asc
+            """)
+    List<VentaListadoDTO> findListado(@Param("desde") LocalDateTime desde,
+                                      @Param("hasta") LocalDateTime hasta,
+                                      Pageable pagina);
+
+    /** N° de ventas y monto del rango [desde, hasta) por forma de pago, sumado en la BD. */
+    @Query("""
+            select new com.tecnano.factura.dto.TotalFormaPagoDTO(
+                v.formaPago, count(v), coalesce(sum(v.total), 0))
+            from Venta v
+            where v.fechaHora >= :desde and v.fechaHora < :hasta
+            group by v.formaPago
+            """)
+    List<TotalFormaPagoDTO> totalesPorFormaPago(@Param("desde") LocalDateTime desde,
+                                                @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Órdenes activas de cocina desde {@code desde}, solo con lo que muestra
+     * la card. Usa el índice (estado_cocina, fecha_hora) de ventas.
+     */
+    @Query("""
+            select new com.tecnano.factura.dto.OrdenCocinaDTO(
+                v.id, v.fechaHora, v.ubicacion, v.mesa, v.total, v.estadoCocina)
+            from Venta v
+            where v.estadoCocina in :estados
+              and v.fechaHora >= :desde
+              and v.total is not null
+            order by v.fechaHora asc, v.id asc
+            """)
+    List<OrdenCocinaDTO> findOrdenesCocina(@Param("estados") Collection<String> estados,
+                                           @Param("desde") LocalDateTime desde);
+
+    @Query("""
+            select new com.tecnano.factura.dto.OrdenCocinaDTO(
+                v.id, v.fechaHora, v.ubicacion, v.mesa, v.total, v.estadoCocina)
+            from Venta v
+            where v.id = :id
+            """)
+    Optional<OrdenCocinaDTO> findOrdenCocina(@Param("id") Long id);
+
+    @Query("""
+            select new com.tecnano.factura.dto.LineaCocinaDTO(
+                d.venta.id, p.nombre, d.cantidad, d.precioUnitario, d.notaCocina)
+            from DetalleVenta d join d.producto p
+            where d.venta.id in :ventaIds
+            order by d.id asc
+            """)
+    List<LineaCocinaDTO> findLineasCocina(@Param("ventaIds") Collection<Long> ventaIds);
+
+    /** Ventas con envío SRI pendiente cuyo reintento ya venció (o nunca se programó). */
+    @Query("""
+            select v.id from Venta v
+            where v.estadoSri in :estados
+              and (v.proximoIntentoSri is null or v.proximoIntentoSri <= :ahora)
+            order by v.fechaHora asc
+            """)
+    List<Long> findIdsParaReintentoSri(@Param("estados") Collection<String> estados,
+                                      @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Guarda solo las columnas SRI, para no pisar cambios hechos en paralelo
+     * (p. ej. el estado de cocina) mientras la venta estaba en el proveedor.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            update Venta v set
+                v.estadoSri = :estado,
+                v.mensajeErrorSri = :mensaje,
+                v.claveAccesoSri = :claveAcceso,
+                v.numeroAutorizacionSri = :numeroAutorizacion,
+                v.rideHash = :rideHash,
+                v.intentosSri = :intentos,
+                v.proximoIntentoSri = :proximoIntento
+            where v.id = :id
+            """)
+    int actualizarResultadoSri(@Param("id") Long id,
+                               @Param("estado") String estado,
+                               @Param("mensaje") String mensaje,
+                               @Param("claveAcceso") String claveAcceso,
+                               @Param("numeroAutorizacion") String numeroAutorizacion,
+                               @Param("rideHash") String rideHash,
+                               @Param("intentos") int intentos,
+                               @Param("proximoIntento") LocalDateTime proximoIntento);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Venta v set v.rideHash = :rideHash where v.id = :id")
+    int actualizarRideHash(@Param("id") Long id, @Param("rideHash") String rideHash);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Venta v set v.estadoCocina = :estado where v.id = :id")
+    int actualizarEstadoCocina(@Param("id") Long id, @Param("estado") String estadoCocina);
+
+    /** Ventas antiguas sin estado de cocina: null siempre se trató como NUEVO. */
+    @Transactional
+    @Modifying
+    @Query("update Venta v set v.estadoCocina = 'NUEVO' where v.estadoCocina is null")
+    int normalizarEstadoCocinaNulo();
 }
@@ -0,0 +1,111 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/AlmacenRide.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Almacén de RIDE (PDF) direccionado por contenido, en ./data/ride/.
+ *
+ * Cada archivo se llama como el SHA-256 de su contenido y va en una
+ * subcarpeta con los dos primeros caracteres del hash (data/ride/ab/ab12….pdf).
+ * La venta solo guarda el hash. Guardar dos veces el mismo PDF no duplica nada
+ * y un archivo nunca se modifica una vez escrito.
+ */
+@Component
+public class AlmacenRide {
+
+    private final Path raiz = Paths.get("data", "ride");
+
+    /** Guarda el PDF (si no existía) y devuelve su hash. */
+    public String guardar(byte[] pdf) {
+        String hash = calcularHash(pdf);
+        Path destino = rutaDe(hash);
+        if (Files.exists(destino)) {
+            return hash;
+        }
+
+        try {
+            Files.createDirectories(destino.getParent());
+            // Se escribe aparte y se mueve: nadie ve nunca un archivo a medias
+            Path temporal = Files.createTempFile(destino.getParent(), hash, ".tmp");
+            try {
+                Files.write(temporal, pdf, StandardOpenOption.TRUNCATE_EXISTING);
+                try {
+                    Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporal);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar el RIDE " + hash, e);
+        }
+        return hash;
+    }
+
+    /** Ruta del PDF, si existe. */
+    public Optional<Path> buscar(String hash) {
+        if (!esHashValido(hash)) return Optional.empty();
+        Path ruta = rutaDe(hash);
+        return Files.isRegularFile(ruta) ? Optional.of(ruta) : Optional.empty();
+    }
+
+    /**
+     * Copia el archivo al stream con {@link FileChannel#transferTo}, sin
+     * cargarlo entero en memoria. Hacia un OutputStream cualquiera el JDK
+     * copia por un búfer intermedio de tamaño fijo.
+     */
+    public void copiarA(Path archivo, OutputStream out) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            WritableByteChannel destino = Channels.newChannel(out);
+            long tamano = canal.size();
+            long pos = 0;
+            while (pos < tamano) {
+                long n = canal.transferTo(pos, tamano - pos, destino);
+                if (n <= 0) break;
+                pos += n;
+            }
+        }
+    }
+
+    private Path rutaDe(String hash) {
+        return raiz.resolve(hash.substring(0, 2)).resolve(hash + ".pdf");
+    }
+
+    private static boolean esHashValido(String hash) {
+        if (hash == null || hash.length() != 64) return false;
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) return false;
+        }
+        return true;
+    }
+
+    private static String calcularHash(byte[] datos) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(datos));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
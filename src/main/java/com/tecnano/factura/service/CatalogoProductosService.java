@@ -0,0 +1,159 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/CatalogoProductosService.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.model.Producto;
+import com.tecnano.factura.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Catálogo de productos en memoria, compartido por todas las sesiones.
+ *
+ * Cada {@link Catalogo} es una foto inmutable con número de versión; quien
+ * la tiene la puede recorrer sin sincronizar. Solo se toca la BD al primer
+ * uso y al guardar/eliminar un producto (ProductoCrudView): en ese caso se
+ * arma una foto nueva a partir de la anterior y se publica de una vez.
+ *
+ * La foto trae su {@link IndiceProductos} para buscar; el orden por ventas
+ * se refresca cada tanto con las unidades vendidas de los últimos días.
+ */
+@Service
+public class CatalogoProductosService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoProductosService.class);
+
+    /** Días de ventas que cuentan para ordenar la búsqueda. */
+    private static final int DIAS_VENTAS = 90;
+
+    private final ProductoRepository productoRepository;
+
+    private volatile Catalogo actual;
+
+    /** Unidades vendidas por id de producto (últimos {@value #DIAS_VENTAS} días). */
+    private volatile Map<Long, Long> vendidos = Map.of();
+
+    public CatalogoProductosService(ProductoRepository productoRepository) {
+        this.productoRepository = productoRepository;
+    }
+
+    /** Producto tal como se vende en caja; copia sin estado de JPA. */
+    public record Item(Long id,
+                       String codigo,
+                       String nombre,
+                       BigDecimal precio,
+                       boolean conIva,
+                       String estacion) {
+
+        static Item de(Producto p) {
+            return new Item(p.getId(), p.getCodigo(), p.getNombre(),
+                    p.getPrecio() != null ? p.getPrecio() : BigDecimal.ZERO,
+                    p.isConIva(), p.getEstacion());
+        }
+    }
+
+    /** Foto del catálogo; {@code items} en orden de id, como findAll. */
+    public record Catalogo(long version, List<Item> items, Map<Long, Item> porId, IndiceProductos indice) {
+
+        public Item buscar(Long id) {
+            return id != null ? porId.get(id) : null;
+        }
+
+        /** Código exacto (lector de barras); null si no está en el catálogo. */
+        public Item porCodigo(String codigo) {
+            return indice.porCodigo(codigo);
+        }
+
+        /** Búsqueda por nombre/código sin tildes, los más vendidos primero. */
+        public List<Item> buscar(String texto, int limite) {
+            return indice.buscar(texto, limite);
+        }
+    }
+
+    public Catalogo actual() {
+        Catalogo c = actual;
+        if (c == null) {
+            synchronized (this) {
+                c = actual;
+                if (c == null) {
+                    c = cargar();
+                }
+            }
+        }
+        return c;
+    }
+
+    public synchronized Producto guardar(Producto producto) {
+        Producto guardado = productoRepository.save(producto);
+
+        TreeMap<Long, Item> copia = new TreeMap<>(actual().porId());
+        copia.put(guardado.getId(), Item.de(guardado));
+        publicar(copia);
+        return guardado;
+    }
+
+    public synchronized void eliminar(Producto producto) {
+        productoRepository.delete(producto);
+
+        TreeMap<Long, Item> copia = new TreeMap<>(actual().porId());
+        copia.remove(producto.getId());
+        publicar(copia);
+    }
+
+    /** Recalcula el orden de búsqueda con las ventas recientes (mismo catálogo, misma versión). */
+    @Scheduled(initialDelay = 60_000, fixedDelay = 600_000)
+    public synchronized void actualizarVentas() {
+        cargarVentas();
+        Catalogo c = actual;
+        if (c != null) {
+            actual = new Catalogo(c.version(), c.items(), c.porId(), c.indice().conVentas(this::vendidosDe));
+        }
+    }
+
+    // =========================
+    // Internos
+    // =========================
+
+    private Catalogo cargar() {
+        cargarVentas();
+
+        TreeMap<Long, Item> items = new TreeMap<>();
+        for (Producto p : productoRepository.findAll()) {
+            items.put(p.getId(), Item.de(p));
+        }
+        Catalogo c = publicar(items);
+        log.info("Catálogo cargado: {} producto(s)", c.items().size());
+        return c;
+    }
+
+    private Catalogo publicar(TreeMap<Long, Item> items) {
+        Catalogo anterior = actual;
+        long version = anterior != null ? anterior.version() + 1 : 1;
+        List<Item> lista = List.copyOf(items.values());
+        Catalogo nuevo = new Catalogo(version, lista, Map.copyOf(items),
+                IndiceProductos.construir(lista, this::vendidosDe));
+        actual = nuevo;
+        return nuevo;
+    }
+
+    private void cargarVentas() {
+        Map<Long, Long> m = new HashMap<>();
+        productoRepository.sumarVendidosDesde(LocalDate.now().minusDays(DIAS_VENTAS).atStartOfDay())
+                .forEach(v -> m.put(v.productoId(), v.unidades() != null ? v.unidades() : 0L));
+        vendidos = Map.copyOf(m);
+    }
+
+    private long vendidosDe(Long productoId) {
+        return vendidos.getOrDefault(productoId, 0L);
+    }
+}
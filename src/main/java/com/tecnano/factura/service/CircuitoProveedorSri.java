@@ -0,0 +1,101 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/CircuitoProveedorSri.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Circuit breaker del proveedor SRI.
+ *
+ * CERRADO: todo pasa. Tras N fallas seguidas (red, timeout, 5xx) pasa a
+ * ABIERTO y durante un tiempo no se llama al proveedor: los envíos quedan
+ * PENDIENTE al instante. Vencido ese tiempo pasa a SEMI_ABIERTO y deja
+ * pasar una sola llamada de prueba; si sale bien se cierra, si no se reabre.
+ */
+@Component
+public class CircuitoProveedorSri {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitoProveedorSri.class);
+
+    public enum Estado { CERRADO, ABIERTO, SEMI_ABIERTO }
+
+    private final AppProperties.Sri sriConfig;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallasSeguidas = 0;
+    private Instant abiertoHasta;
+    private boolean pruebaEnCurso = false;
+    private String ultimaFalla;
+
+    public CircuitoProveedorSri(AppProperties appProperties) {
+        this.sriConfig = appProperties.getSri();
+    }
+
+    /** ¿Se puede llamar al proveedor ahora? */
+    public synchronized boolean permitirLlamada() {
+        switch (estado) {
+            case CERRADO:
+                return true;
+            case ABIERTO:
+                if (abiertoHasta != null && Instant.now().isBefore(abiertoHasta)) {
+                    return false;
+                }
+                estado = Estado.SEMI_ABIERTO;
+                pruebaEnCurso = true;
+                log.info("Circuito proveedor SRI SEMI_ABIERTO: se prueba una llamada.");
+                return true;
+            case SEMI_ABIERTO:
+            default:
+                if (pruebaEnCurso) return false;
+                pruebaEnCurso = true;
+                return true;
+        }
+    }
+
+    /** Abierto y aún dentro del tiempo de espera (no cambia el estado, a diferencia de permitirLlamada). */
+    public synchronized boolean estaAbierto() {
+        return estado == Estado.ABIERTO && abiertoHasta != null && Instant.now().isBefore(abiertoHasta);
+    }
+
+    public synchronized void registrarExito() {
+        if (estado != Estado.CERRADO) {
+            log.info("Circuito proveedor SRI CERRADO: el proveedor responde de nuevo.");
+        }
+        estado = Estado.CERRADO;
+        fallasSeguidas = 0;
+        abiertoHasta = null;
+        pruebaEnCurso = false;
+    }
+
+    public synchronized void registrarFalla(String motivo) {
+        fallasSeguidas++;
+        ultimaFalla = motivo;
+        pruebaEnCurso = false;
+
+        int umbral = Math.max(1, sriConfig.getCircuitoUmbralFallas());
+        if (estado == Estado.SEMI_ABIERTO || fallasSeguidas >= umbral) {
+            estado = Estado.ABIERTO;
+            abiertoHasta = Instant.now().plusMillis(Math.max(1000, sriConfig.getCircuitoAbiertoMs()));
+            log.warn("Circuito proveedor SRI ABIERTO tras {} falla(s) seguidas. Última: {}",
+                    fallasSeguidas, motivo);
+        }
+    }
+
+    /** Cierra el circuito a mano (p. ej. desde AdminToolsView). */
+    public synchronized void reiniciar() {
+        log.info("Circuito proveedor SRI reiniciado manualmente.");
+        registrarExito();
+        ultimaFalla = null;
+    }
+
+    public synchronized Estado getEstado() { return estado; }
+    public synchronized int getFallasSeguidas() { return fallasSeguidas; }
+    public synchronized Instant getAbiertoHasta() { return abiertoHasta; }
+    public synchronized String getUltimaFalla() { return ultimaFalla; }
+}
@@ -0,0 +1,111 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/ClaveAccesoSri.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Clave de acceso de 49 dígitos del SRI (ficha técnica de comprobantes electrónicos):
+ *
+ * <pre>
+ *   fecha ddMMyyyy (8) | tipo comprobante (2) | RUC (13) | ambiente (1)
+ *   | serie estab+ptoEmi (6) | secuencial (9) | código numérico (8)
+ *   | tipo emisión (1) | dígito verificador módulo 11 (1)
+ * </pre>
+ *
+ * Se calcula en local, sin pedírsela al proveedor: así se puede emitir sin internet.
+ */
+public final class ClaveAccesoSri {
+
+    public static final String TIPO_FACTURA = "01";
+    public static final String EMISION_NORMAL = "1";
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("ddMMyyyy");
+
+    private ClaveAccesoSri() {}
+
+    public static String generar(LocalDate fechaEmision,
+                                 String tipoComprobante,
+                                 String ruc,
+                                 String ambiente,
+                                 String establecimiento,
+                                 String puntoEmision,
+                                 long secuencial,
+                                 String tipoEmision) {
+        String codigoNumerico = String.format("%08d", ThreadLocalRandom.current().nextInt(100_000_000));
+        return generar(fechaEmision, tipoComprobante, ruc, ambiente, establecimiento,
+                puntoEmision, secuencial, codigoNumerico, tipoEmision);
+    }
+
+    public static String generar(LocalDate fechaEmision,
+                                 String tipoComprobante,
+                                 String ruc,
+                                 String ambiente,
+                                 String establecimiento,
+                                 String puntoEmision,
+                                 long secuencial,
+                                 String codigoNumerico,
+                                 String tipoEmision) {
+        StringBuilder sb = new StringBuilder(49);
+        sb.append(fechaEmision.format(FORMATO_FECHA));
+        sb.append(digitos(tipoComprobante, 2, "tipoComprobante"));
+        sb.append(digitos(ruc, 13, "ruc"));
+        sb.append(digitos(ambiente, 1, "ambiente"));
+        sb.append(digitos(establecimiento, 3, "establecimiento"));
+        sb.append(digitos(puntoEmision, 3, "puntoEmision"));
+        sb.append(secuencial9(secuencial));
+        sb.append(digitos(codigoNumerico, 8, "codigoNumerico"));
+        sb.append(digitos(tipoEmision, 1, "tipoEmision"));
+        sb.append(digitoVerificador(sb));
+        return sb.toString();
+    }
+
+    /** Secuencial del comprobante con ceros a la izquierda (9 dígitos). */
+    public static String secuencial9(long secuencial) {
+        if (secuencial < 1 || secuencial > 999_999_999L) {
+            throw new IllegalArgumentException("Secuencial fuera de rango (1..999999999): " + secuencial);
+        }
+        return String.format("%09d", secuencial);
+    }
+
+    /**
+     * Módulo 11 con pesos 2..7 de derecha a izquierda.
+     * 11 → 0 y 10 → 1, según la ficha técnica del SRI.
+     */
+    public static int digitoVerificador(CharSequence clave48) {
+        int suma = 0;
+        int peso = 2;
+        for (int i = clave48.length() - 1; i >= 0; i--) {
+            suma += (clave48.charAt(i) - '0') * peso;
+            peso = peso == 7 ? 2 : peso + 1;
+        }
+        int dv = 11 - (suma % 11);
+        if (dv == 11) return 0;
+        if (dv == 10) return 1;
+        return dv;
+    }
+
+    /** ¿49 dígitos con dígito verificador correcto? */
+    public static boolean esValida(String clave) {
+        if (clave == null || clave.length() != 49) return false;
+        for (int i = 0; i < 49; i++) {
+            if (!Character.isDigit(clave.charAt(i))) return false;
+        }
+        return digitoVerificador(clave.subSequence(0, 48)) == clave.charAt(48) - '0';
+    }
+
+    private static String digitos(String valor, int longitud, String campo) {
+        String v = valor != null ? valor.trim() : "";
+        if (v.length() < longitud && !v.isEmpty() && v.chars().allMatch(Character::isDigit)) {
+            v = "0".repeat(longitud - v.length()) + v;
+        }
+        if (v.length() != longitud || !v.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException(
+                    "Campo '" + campo + "' de la clave de acceso debe tener " + longitud + " dígitos: '" + valor + "'");
+        }
+        return v;
+    }
+}
@@ -0,0 +1,210 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/ColaImpresionService.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spooler propio: una cola acotada y un hilo por impresora.
+ *
+ * Quien imprime (caja, cocina) solo encola y sigue; si una impresora se
+ * traba (sin papel, tapa abierta, apagada) solo se atrasa su propia cola.
+ * Cada trabajo se reintenta con espera creciente y, si aun así falla, queda
+ * en la lista de fallidos para reintentarlo a mano desde el panel.
+ */
+@Service
+public class ColaImpresionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ColaImpresionService.class);
+
+    /** Fallidos que se guardan por impresora para reintentar a mano. */
+    private static final int MAX_FALLIDOS_GUARDADOS = 20;
+
+    private final ImpresorasService impresorasService;
+    private final AppProperties.Impresion config;
+
+    private final Map<String, Cola> colas = new ConcurrentHashMap<>();
+
+    public ColaImpresionService(ImpresorasService impresorasService,
+                                AppProperties appProperties) {
+        this.impresorasService = impresorasService;
+        this.config = appProperties.getImpresion();
+    }
+
+    public record Trabajo(String descripcion, byte[] datos) {}
+
+    public enum EstadoCola { LISTA, IMPRIMIENDO, REINTENTANDO, ERROR }
+
+    /** Foto del estado de una impresora, para el panel. */
+    public record EstadoImpresora(String impresora,
+                                  EstadoCola estado,
+                                  int enCola,
+                                  long impresos,
+                                  long fallidos,
+                                  int fallidosPendientes,
+                                  String ultimoError,
+                                  LocalDateTime ultimaImpresion) {}
+
+    /**
+     * Deja el trabajo en la cola de la impresora y vuelve enseguida.
+     * false si la cola está llena (la impresora lleva rato sin imprimir).
+     */
+    public boolean encolar(String impresora, String descripcion, byte[] datos) {
+        if (impresora == null || impresora.isBlank()) {
+            throw new IllegalArgumentException("Impresora no indicada");
+        }
+        boolean aceptado = colas.computeIfAbsent(impresora, this::crearCola)
+                .trabajos.offer(new Trabajo(descripcion, datos));
+        if (!aceptado) {
+            log.warn("Cola de la impresora '{}' llena; se descarta: {}", impresora, descripcion);
+        }
+        return aceptado;
+    }
+
+    public List<EstadoImpresora> getEstados() {
+        List<EstadoImpresora> estados = new ArrayList<>();
+        for (Cola c : colas.values()) {
+            estados.add(c.foto());
+        }
+        estados.sort(Comparator.comparing(EstadoImpresora::impresora));
+        return estados;
+    }
+
+    /** ¿Alguna impresora con trabajos que no salieron? */
+    public boolean hayProblemas() {
+        return colas.values().stream().anyMatch(c -> c.estado == EstadoCola.ERROR || c.fallidosPendientes() > 0);
+    }
+
+    /** Vuelve a encolar los trabajos fallidos de la impresora; devuelve cuántos. */
+    public int reintentarFallidos(String impresora) {
+        Cola c = colas.get(impresora);
+        if (c == null) return 0;
+
+        List<Trabajo> pendientes;
+        synchronized (c.fallidosGuardados) {
+            pendientes = new ArrayList<>(c.fallidosGuardados);
+            c.fallidosGuardados.clear();
+        }
+        impresorasService.olvidar(impresora);
+
+        int n = 0;
+        for (Trabajo t : pendientes) {
+            if (c.trabajos.offer(t)) n++;
+        }
+        return n;
+    }
+
+    @PreDestroy
+    public void detener() {
+        colas.values().forEach(c -> c.hilo.interrupt());
+    }
+
+    // =========================
+    // Internos
+    // =========================
+
+    private Cola crearCola(String impresora) {
+        Cola c = new Cola(impresora, Math.max(1, config.getCapacidadColaImpresora()));
+        c.hilo.start();
+        return c;
+    }
+
+    private final class Cola {
+
+        final String impresora;
+        final BlockingQueue<Trabajo> trabajos;
+        final Deque<Trabajo> fallidosGuardados = new ArrayDeque<>();
+        final Thread hilo;
+
+        final AtomicLong impresos = new AtomicLong();
+        final AtomicLong fallidos = new AtomicLong();
+        volatile EstadoCola estado = EstadoCola.LISTA;
+        volatile String ultimoError;
+        volatile LocalDateTime ultimaImpresion;
+
+        Cola(String impresora, int capacidad) {
+            this.impresora = impresora;
+            this.trabajos = new ArrayBlockingQueue<>(capacidad);
+            this.hilo = new Thread(this::atender, "impresora-" + impresora);
+            this.hilo.setDaemon(true);
+        }
+
+        private void atender() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Trabajo t = trabajos.take();
+                    imprimir(t);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void imprimir(Trabajo t) throws InterruptedException {
+            int maxIntentos = 1 + Math.max(0, config.getReintentosImpresion());
+            long espera = Math.max(100, config.getReintentoImpresionMs());
+
+            for (int intento = 1; intento <= maxIntentos; intento++) {
+                estado = intento == 1 ? EstadoCola.IMPRIMIENDO : EstadoCola.REINTENTANDO;
+                try {
+                    impresorasService.imprimir(impresora, t.datos(), t.descripcion());
+
+                    impresos.incrementAndGet();
+                    ultimaImpresion = LocalDateTime.now();
+                    estado = EstadoCola.LISTA;
+                    log.info("Impreso en '{}': {}", impresora, t.descripcion());
+                    return;
+                } catch (Exception ex) {
+                    ultimoError = ex.getMessage();
+                    impresorasService.olvidar(impresora);
+                    log.warn("Falla imprimiendo en '{}' (intento {}/{}): {}",
+                            impresora, intento, maxIntentos, ex.getMessage());
+                }
+
+                if (intento < maxIntentos) {
+                    Thread.sleep(espera);
+                    espera *= 2;
+                }
+            }
+
+            estado = EstadoCola.ERROR;
+            fallidos.incrementAndGet();
+            synchronized (fallidosGuardados) {
+                if (fallidosGuardados.size() >= MAX_FALLIDOS_GUARDADOS) {
+                    fallidosGuardados.removeFirst();
+                }
+                fallidosGuardados.addLast(t);
+            }
+            log.error("No se pudo imprimir en '{}': {} ({})", impresora, t.descripcion(), ultimoError);
+        }
+
+        int fallidosPendientes() {
+            synchronized (fallidosGuardados) {
+                return fallidosGuardados.size();
+            }
+        }
+
+        EstadoImpresora foto() {
+            return new EstadoImpresora(impresora, estado, trabajos.size(),
+                    impresos.get(), fallidos.get(), fallidosPendientes(),
+                    ultimoError, ultimaImpresion);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/DiarioContingenciaSri.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diario de contingencia SRI: archivo de solo-agregar en ./data/ con las
+ * ventas emitidas mientras el proveedor no respondía, en orden de emisión.
+ *
+ * Cada registro ocupa 16 bytes (id de venta + epoch ms). Un segundo archivo
+ * guarda el cursor: la posición del primer registro aún no enviado. Cuando
+ * el cursor alcanza el final, ambos se vacían. Si el proceso muere a mitad
+ * de una escritura, el registro incompleto del final se descarta al arrancar.
+ */
+@Component
+public class DiarioContingenciaSri {
+
+    private static final Logger log = LoggerFactory.getLogger(DiarioContingenciaSri.class);
+
+    private static final int TAMANO_REGISTRO = 16;
+
+    public record Registro(long ventaId, long registradoMs) {}
+
+    /** Registros por lectura (64 KB). */
+    private static final int REGISTROS_POR_LECTURA = 4096;
+
+    private final Path archivoDiario = Paths.get("data", "sri-contingencia.diario");
+    private final Path archivoCursor = Paths.get("data", "sri-contingencia.cursor");
+
+    private FileChannel diario;
+    private FileChannel cursor;
+    private long posicionCursor;
+
+    /** Ventas en el diario aún no enviadas (para no duplicar ni reintentarlas por otro lado). */
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+    private long enviadasDesdeCorte;
+    private long inicioCorteMs;
+
+    @PostConstruct
+    public synchronized void abrir() throws IOException {
+        Files.createDirectories(archivoDiario.getParent());
+        diario = FileChannel.open(archivoDiario,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        cursor = FileChannel.open(archivoCursor,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long tamano = diario.size();
+        long completo = tamano - (tamano % TAMANO_REGISTRO);
+        if (completo != tamano) {
+            log.warn("Diario de contingencia SRI con registro incompleto al final; se descartan {} byte(s).",
+                    tamano - completo);
+            diario.truncate(completo);
+        }
+
+        posicionCursor = leerCursor();
+        if (posicionCursor > completo || posicionCursor % TAMANO_REGISTRO != 0) {
+            log.warn("Cursor del diario de contingencia inválido ({}); se reinicia al comienzo.", posicionCursor);
+            posicionCursor = 0;
+            escribirCursor(0);
+        }
+
+        for (long pos = posicionCursor; pos < completo; ) {
+            List<Registro> bloque = leer(pos, REGISTROS_POR_LECTURA);
+            if (bloque.isEmpty()) break;
+            bloque.forEach(r -> pendientes.add(r.ventaId()));
+            pos += (long) bloque.size() * TAMANO_REGISTRO;
+        }
+        if (!pendientes.isEmpty()) {
+            inicioCorteMs = System.currentTimeMillis();
+            log.info("Diario de contingencia SRI: {} venta(s) pendientes de envío.", pendientes.size());
+        }
+    }
+
+    /** Agrega la venta al final del diario (si no estaba ya pendiente). */
+    public synchronized boolean registrar(long ventaId) {
+        if (pendientes.contains(ventaId)) return false;
+        try {
+            ByteBuffer buf = ByteBuffer.allocate(TAMANO_REGISTRO);
+            buf.putLong(ventaId).putLong(System.currentTimeMillis()).flip();
+            long pos = diario.size();
+            while (buf.hasRemaining()) {
+                pos += diario.write(buf, pos);
+            }
+            diario.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir en el diario de contingencia SRI", e);
+        }
+        if (pendientes.isEmpty()) {
+            inicioCorteMs = System.currentTimeMillis();
+            enviadasDesdeCorte = 0;
+        }
+        pendientes.add(ventaId);
+        return true;
+    }
+
+    /** Próximos registros sin enviar (hasta 4096), en orden, sin mover el cursor. */
+    public synchronized List<Registro> siguientes(int maximo) {
+        try {
+            return leer(posicionCursor, maximo);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el diario de contingencia SRI", e);
+        }
+    }
+
+    /**
+     * Marca como enviado el primer registro pendiente (debe ser {@code ventaId}).
+     * Al vaciarse, el diario se trunca para no crecer sin límite.
+     */
+    public synchronized void confirmar(long ventaId) {
+        try {
+            List<Registro> primero = leer(posicionCursor, 1);
+            if (primero.isEmpty() || primero.get(0).ventaId() != ventaId) {
+                log.warn("Confirmación fuera de orden en diario de contingencia (venta {}); se ignora.", ventaId);
+                return;
+            }
+
+            posicionCursor += TAMANO_REGISTRO;
+            pendientes.remove(ventaId);
+            enviadasDesdeCorte++;
+
+            if (posicionCursor >= diario.size()) {
+                diario.truncate(0);
+                diario.force(true);
+                posicionCursor = 0;
+                log.info("Diario de contingencia SRI vaciado: {} venta(s) enviadas tras el corte.",
+                        enviadasDesdeCorte);
+            }
+            escribirCursor(posicionCursor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo avanzar el diario de contingencia SRI", e);
+        }
+    }
+
+    public boolean contiene(long ventaId) {
+        return pendientes.contains(ventaId);
+    }
+
+    public int getPendientes() {
+        return pendientes.size();
+    }
+
+    public synchronized long getEnviadasDesdeCorte() {
+        return enviadasDesdeCorte;
+    }
+
+    /** Inicio del corte actual (epoch ms), o 0 si no hay nada pendiente. */
+    public synchronized long getInicioCorteMs() {
+        return pendientes.isEmpty() ? 0 : inicioCorteMs;
+    }
+
+    @PreDestroy
+    public synchronized void cerrar() {
+        cerrarSilencioso(diario);
+        cerrarSilencioso(cursor);
+    }
+
+    // =========================
+    // Internos
+    // =========================
+
+    private List<Registro> leer(long desde, int maximo) throws IOException {
+        int cantidad = Math.min(maximo, REGISTROS_POR_LECTURA);
+        long bytes = Math.min(diario.size() - desde, (long) cantidad * TAMANO_REGISTRO);
+        if (bytes <= 0) return List.of();
+
+        ByteBuffer buf = ByteBuffer.allocate((int) bytes);
+        List<Registro> registros = new ArrayList<>((int) (bytes / TAMANO_REGISTRO));
+        long pos = desde;
+        while (buf.hasRemaining()) {
+            int n = diario.read(buf, pos);
+            if (n < 0) break;
+            pos += n;
+        }
+        buf.flip();
+        while (buf.remaining() >= TAMANO_REGISTRO) {
+            registros.add(new Registro(buf.getLong(), buf.getLong()));
+        }
+        return registros;
+    }
+
+    private long leerCursor() throws IOException {
+        if (cursor.size() < Long.BYTES) return 0;
+        ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+        int pos = 0;
+        while (buf.hasRemaining()) {
+            int n = cursor.read(buf, pos);
+            if (n < 0) break;
+            pos += n;
+        }
+        buf.flip();
+        return buf.getLong();
+    }
+
+    private void escribirCursor(long valor) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+        buf.putLong(valor).flip();
+        int pos = 0;
+        while (buf.hasRemaining()) {
+            pos += cursor.write(buf, pos);
+        }
+        cursor.force(false);
+    }
+
+    private static void cerrarSilencioso(FileChannel ch) {
+        if (ch == null) return;
+        try {
+            ch.close();
+        } catch (IOException ignored) {
+            // nada que hacer al apagar
+        }
+    }
+}
@@ -0,0 +1,476 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/EnvioSriService.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import com.tecnano.factura.model.Venta;
+import com.tecnano.factura.repository.VentaRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola de envío al SRI en segundo plano.
+ *
+ * La "cola durable" es la propia tabla de ventas: toda venta con estado SRI
+ * PENDIENTE está por enviar. Al cobrar se encola el id tras el commit para
+ * que salga enseguida, y un barrido periódico recoge lo que quedó pendiente
+ * (reinicios, cola llena, etc.). Así la caja nunca espera al proveedor.
+ *
+ * Reintentos: si el envío falla de forma transitoria (ERROR / PENDIENTE) se
+ * programa el siguiente intento con backoff exponencial y jitter; las ventas
+ * RECHAZADA por el SRI no se reintentan solas.
+ *
+ * Con {@code tecnano.sri.loteHabilitado = true} las ventas se agrupan
+ * (por cantidad y por tiempo máximo de espera) y cada grupo sale en un
+ * solo request al proveedor. Útil para vaciar el atraso tras un corte de internet.
+ *
+ * Contingencia: mientras el circuito del proveedor no está CERRADO, las
+ * ventas se siguen emitiendo (XML, clave de acceso y firma locales) y quedan
+ * anotadas en el {@link DiarioContingenciaSri}. Al volver la conexión el
+ * diario se vacía en orden, a {@code tecnano.sri.contingenciaEnviosPorSegundo}.
+ */
+@Service
+public class EnvioSriService {
+
+    private static final Logger log = LoggerFactory.getLogger(EnvioSriService.class);
+
+    private static final List<String> ESTADOS_REINTENTABLES = List.of("PENDIENTE", "ERROR");
+
+    private final VentaRepository ventaRepository;
+    private final SriService sriService;
+    private final DiarioContingenciaSri diarioContingencia;
+    private final CircuitoProveedorSri circuito;
+    private final RideService rideService;
+    private final AppProperties.Sri sriConfig;
+    private final ThreadPoolExecutor executor;
+
+    /** Ventas esperando a completar un lote (solo en modo lote). */
+    private final BlockingQueue<Long> colaLote;
+    private final Thread recolectorLotes;
+
+    /** Ventas encoladas o en proceso, para no enviar dos veces la misma. */
+    private final Set<Long> enCurso = ConcurrentHashMap.newKeySet();
+
+    /** Hay una pasada de contingencia en el executor; no se encola otra. */
+    private final AtomicBoolean drenando = new AtomicBoolean();
+
+    /** Tope de requests simultáneos al proveedor, incluidos los reintentos manuales. */
+    private final Semaphore permisosProveedor;
+
+    public EnvioSriService(VentaRepository ventaRepository,
+                           SriService sriService,
+                           DiarioContingenciaSri diarioContingencia,
+                           CircuitoProveedorSri circuito,
+                           RideService rideService,
+                           AppProperties appProperties) {
+        this.ventaRepository = ventaRepository;
+        this.sriService = sriService;
+        this.diarioContingencia = diarioContingencia;
+        this.circuito = circuito;
+        this.rideService = rideService;
+        this.sriConfig = appProperties.getSri();
+
+        int hilos = Math.max(1, sriConfig.getHilosEnvio());
+        int capacidad = Math.max(1, sriConfig.getCapacidadCola());
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                hilos, hilos,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacidad),
+                r -> {
+                    Thread t = new Thread(r, "sri-envio-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.permisosProveedor = new Semaphore(Math.max(1, sriConfig.getMaxConcurrenciaProveedor()), true);
+
+        this.colaLote = new ArrayBlockingQueue<>(capacidad);
+        this.recolectorLotes = new Thread(this::recolectarLotes, "sri-lotes");
+        this.recolectorLotes.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        recolectorLotes.start();
+    }
+
+    /**
+     * Encola la venta cuando la transacción actual haga commit
+     * (o de inmediato si no hay transacción activa).
+     */
+    public void encolarTrasCommit(Long ventaId) {
+        if (ventaId == null) return;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    encolar(ventaId);
+                }
+            });
+        } else {
+            encolar(ventaId);
+        }
+    }
+
+    /**
+     * Encola una venta para envío en segundo plano.
+     * Si la cola está llena no pasa nada: la venta sigue PENDIENTE en BD
+     * y la recoge el próximo barrido.
+     */
+    public void encolar(Long ventaId) {
+        if (ventaId == null || !enCurso.add(ventaId)) return;
+
+        if (sriConfig.isLoteHabilitado()) {
+            if (!colaLote.offer(ventaId)) {
+                enCurso.remove(ventaId);
+                log.warn("Cola de lotes SRI llena; la venta {} se enviará en el próximo barrido.", ventaId);
+            }
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    procesar(ventaId);
+                } finally {
+                    enCurso.remove(ventaId);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            enCurso.remove(ventaId);
+            log.warn("Cola de envío SRI llena; la venta {} se enviará en el próximo barrido.", ventaId);
+        }
+    }
+
+    /**
+     * Envío inmediato en el hilo actual (reintento manual desde UI o API).
+     * Devuelve la venta actualizada, o vacío si no existe o ya se está enviando.
+     */
+    public Optional<Venta> procesarAhora(Long ventaId) {
+        if (ventaId == null || !enCurso.add(ventaId)) {
+            return Optional.empty();
+        }
+        try {
+            return procesar(ventaId);
+        } finally {
+            enCurso.remove(ventaId);
+        }
+    }
+
+    public boolean estaEnCurso(Long ventaId) {
+        return ventaId != null && enCurso.contains(ventaId);
+    }
+
+    public int getTamanoCola() {
+        return executor.getQueue().size() + colaLote.size();
+    }
+
+    public boolean estaEnContingencia(Long ventaId) {
+        return ventaId != null && diarioContingencia.contiene(ventaId);
+    }
+
+    public EstadoContingencia getEstadoContingencia() {
+        return new EstadoContingencia(
+                circuito.getEstado(),
+                diarioContingencia.getPendientes(),
+                diarioContingencia.getEnviadasDesdeCorte(),
+                diarioContingencia.getInicioCorteMs()
+        );
+    }
+
+    /**
+     * Progreso de la contingencia para la UI.
+     * {@code activa}: el proveedor no responde y las ventas nuevas van al diario.
+     */
+    public record EstadoContingencia(CircuitoProveedorSri.Estado circuito,
+                                     int pendientes,
+                                     long enviadasDesdeCorte,
+                                     long inicioCorteMs) {
+        public boolean activa() {
+            return circuito != CircuitoProveedorSri.Estado.CERRADO;
+        }
+
+        public boolean drenando() {
+            return !activa() && pendientes > 0;
+        }
+    }
+
+    /**
+     * Motor de reintentos: encola toda venta PENDIENTE/ERROR cuyo próximo
+     * intento ya venció. También recupera lo que quedó pendiente tras un reinicio.
+     */
+    @Scheduled(
+            initialDelay = 5000,
+            fixedDelayString = "${tecnano.sri.barrido-pendientes-ms:60000}"
+    )
+    public void barrerReintentos() {
+        List<Long> vencidas = ventaRepository.findIdsParaReintentoSri(ESTADOS_REINTENTABLES, LocalDateTime.now())
+                .stream()
+                .filter(id -> !diarioContingencia.contiene(id))
+                .toList();
+        if (vencidas.isEmpty()) return;
+
+        log.info("Barrido SRI: {} venta(s) por enviar/reintentar.", vencidas.size());
+        vencidas.forEach(this::encolar);
+    }
+
+    /**
+     * Vacía el diario de contingencia en orden, como máximo
+     * {@code contingenciaEnviosPorSegundo} ventas por pasada. Si el proveedor
+     * vuelve a fallar se detiene y la venta queda al frente del diario.
+     *
+     * El hilo del scheduler solo deja la pasada en el executor de envíos: los
+     * requests bloquean hasta el read timeout y el scheduler es uno solo para
+     * toda la app (barrido de reintentos, ventas del catálogo...).
+     */
+    @Scheduled(initialDelay = 5000, fixedDelay = 1000)
+    public void drenarContingencia() {
+        if (diarioContingencia.getPendientes() == 0 || circuito.estaAbierto()) return;
+        if (!drenando.compareAndSet(false, true)) return; // la pasada anterior sigue en curso
+
+        try {
+            executor.execute(() -> {
+                try {
+                    pasadaContingencia();
+                } finally {
+                    drenando.set(false);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            drenando.set(false);
+            log.debug("Cola de envío SRI llena; la contingencia sigue en la próxima pasada.");
+        }
+    }
+
+    private void pasadaContingencia() {
+        int tasa = Math.max(1, sriConfig.getContingenciaEnviosPorSegundo());
+        for (DiarioContingenciaSri.Registro registro : diarioContingencia.siguientes(tasa)) {
+            long ventaId = registro.ventaId();
+            if (!enCurso.add(ventaId)) return; // se está enviando por otro lado; siguiente pasada
+
+            Optional<Venta> procesada;
+            try {
+                procesada = procesar(ventaId);
+            } catch (Exception ex) {
+                log.error("Error reenviando venta {} desde el diario de contingencia: {}",
+                        ventaId, ex.getMessage(), ex);
+                return;
+            } finally {
+                enCurso.remove(ventaId);
+            }
+            if (Thread.currentThread().isInterrupted()) return; // apagando: el registro sigue en el diario
+
+            boolean definitiva = procesada.isEmpty() || !ESTADOS_REINTENTABLES.contains(
+                    String.valueOf(procesada.get().getEstadoSri()).toUpperCase());
+            if (!definitiva && circuito.getEstado() != CircuitoProveedorSri.Estado.CERRADO) {
+                return; // sigue sin conexión: no se avanza
+            }
+            diarioContingencia.confirmar(ventaId);
+        }
+    }
+
+    private Optional<Venta> procesar(Long ventaId) {
+        Optional<Venta> opt = ventaRepository.findById(ventaId);
+        if (opt.isEmpty()) {
+            log.warn("Venta {} no encontrada al enviar al SRI; se descarta.", ventaId);
+            return Optional.empty();
+        }
+
+        Venta venta = opt.get();
+        if ("AUTORIZADA".equalsIgnoreCase(venta.getEstadoSri())) {
+            return Optional.of(venta);
+        }
+
+        if (!conPermisoProveedor(() -> sriService.procesarVentaConSri(venta))) {
+            log.info("Envío SRI de la venta {} interrumpido antes de llamar al proveedor; queda para el barrido.",
+                    ventaId);
+            return Optional.of(venta);
+        }
+        guardarResultado(venta);
+
+        return Optional.of(venta);
+    }
+
+    /**
+     * Suma el intento, programa el siguiente si la falla es transitoria
+     * y guarda solo las columnas SRI.
+     */
+    private void guardarResultado(Venta venta) {
+        int intentos = venta.getIntentosSri() + 1;
+        venta.setIntentosSri(intentos);
+
+        String estado = venta.getEstadoSri() != null ? venta.getEstadoSri().toUpperCase() : "";
+        if (ESTADOS_REINTENTABLES.contains(estado)) {
+            venta.setProximoIntentoSri(LocalDateTime.now().plusNanos(
+                    TimeUnit.MILLISECONDS.toNanos(calcularEsperaReintentoMs(intentos))));
+
+            // Proveedor caído: la venta queda en el diario y sale en orden al volver la conexión
+            if (circuito.getEstado() != CircuitoProveedorSri.Estado.CERRADO
+                    && diarioContingencia.registrar(venta.getId())) {
+                venta.setEstadoSri("PENDIENTE");
+                venta.setMensajeErrorSri("Emitida en contingencia (proveedor SRI sin conexión). "
+                        + (venta.getMensajeErrorSri() != null ? venta.getMensajeErrorSri() : ""));
+            }
+        } else {
+            venta.setProximoIntentoSri(null);
+        }
+
+        ventaRepository.actualizarResultadoSri(
+                venta.getId(),
+                venta.getEstadoSri(),
+                venta.getMensajeErrorSri(),
+                venta.getClaveAccesoSri(),
+                venta.getNumeroAutorizacionSri(),
+                venta.getRideHash(),
+                venta.getIntentosSri(),
+                venta.getProximoIntentoSri()
+        );
+
+        if ("AUTORIZADA".equals(estado)) {
+            rideService.ventaAutorizada(venta.getId());
+        } else {
+            rideService.invalidar(venta.getId());
+        }
+    }
+
+    /**
+     * Backoff exponencial con "equal jitter": la mitad fija y la otra mitad al azar,
+     * para que un atraso grande no vuelva a golpear al proveedor todo a la vez.
+     */
+    long calcularEsperaReintentoMs(int intentos) {
+        long base = Math.max(1000, sriConfig.getReintentoBaseMs());
+        long max = Math.max(base, sriConfig.getReintentoMaxMs());
+
+        int exponente = Math.min(Math.max(0, intentos - 1), 30);
+        long espera = Math.min(max, base << exponente);
+        if (espera < 0) espera = max;
+
+        long mitad = espera / 2;
+        return mitad + ThreadLocalRandom.current().nextLong(mitad + 1);
+    }
+
+    /**
+     * Corre el envío con un permiso de concurrencia. Devuelve false si el hilo
+     * se interrumpió esperando el permiso: no hubo llamada al proveedor, así
+     * que no cuenta como intento.
+     */
+    private boolean conPermisoProveedor(Runnable envio) {
+        try {
+            permisosProveedor.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            envio.run();
+            return true;
+        } finally {
+            permisosProveedor.release();
+        }
+    }
+
+    // =========================
+    // Modo lote
+    // =========================
+    private void recolectarLotes() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Long primero = colaLote.take();
+
+                int tamano = Math.max(1, sriConfig.getTamanoLote());
+                long limite = System.nanoTime()
+                        + TimeUnit.MILLISECONDS.toNanos(Math.max(0, sriConfig.getEsperaMaxLoteMs()));
+
+                List<Long> lote = new ArrayList<>(tamano);
+                lote.add(primero);
+                while (lote.size() < tamano) {
+                    long restante = limite - System.nanoTime();
+                    if (restante <= 0) break;
+                    Long siguiente = colaLote.poll(restante, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) break;
+                    lote.add(siguiente);
+                }
+
+                despacharLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void despacharLote(List<Long> lote) {
+        try {
+            executor.execute(() -> {
+                try {
+                    procesarLote(lote);
+                } catch (Exception ex) {
+                    log.error("Error inesperado enviando lote SRI de {} venta(s): {}",
+                            lote.size(), ex.getMessage(), ex);
+                } finally {
+                    lote.forEach(enCurso::remove);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            lote.forEach(enCurso::remove);
+            log.warn("Cola de envío SRI llena; {} venta(s) se enviarán en el próximo barrido.", lote.size());
+        }
+    }
+
+    private void procesarLote(List<Long> ids) {
+        List<Venta> ventas = ventaRepository.findByIdIn(ids).stream()
+                .filter(v -> !"AUTORIZADA".equalsIgnoreCase(v.getEstadoSri()))
+                .toList();
+        if (ventas.isEmpty()) return;
+
+        if (!conPermisoProveedor(() -> sriService.procesarLoteConSri(ventas))) {
+            log.info("Envío de lote SRI interrumpido antes de llamar al proveedor; {} venta(s) quedan para el barrido.",
+                    ventas.size());
+            return;
+        }
+
+        ventas.forEach(this::guardarResultado);
+    }
+
+    @PreDestroy
+    public void detener() {
+        recolectorLotes.interrupt();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/EscPos.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+
+/**
+ * Armado de bytes ESC/POS para impresoras térmicas (58/80 mm).
+ *
+ * Solo los comandos que usamos: inicializar, alineación, negrita, tamaño
+ * doble, QR nativo (GS ( k) y corte. El texto se codifica en la tabla de
+ * caracteres elegida (ESC t n); lo que la tabla no tiene se imprime sin
+ * tilde ("ã" → "a") en vez de salir como basura.
+ */
+public final class EscPos {
+
+    private static final byte ESC = 0x1B;
+    private static final byte GS = 0x1D;
+    private static final byte LF = 0x0A;
+
+    public enum Alineacion { IZQUIERDA, CENTRO, DERECHA }
+
+    /** Tablas de caracteres con tildes y ñ; {@code n} es el número de ESC t n. */
+    public enum Tabla {
+        PC437(0, "IBM437"),
+        PC850(2, "IBM850"),
+        PC858(19, "IBM00858"),
+        WPC1252(16, "windows-1252");
+
+        final int n;
+        final Charset charset;
+
+        Tabla(int n, String charset) {
+            this.n = n;
+            this.charset = Charset.forName(charset);
+        }
+
+        /** Por nombre (sin importar mayúsculas); PC850 si no se reconoce. */
+        public static Tabla desde(String nombre) {
+            if (nombre != null) {
+                for (Tabla t : values()) {
+                    if (t.name().equalsIgnoreCase(nombre.trim())) return t;
+                }
+            }
+            return PC850;
+        }
+    }
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+    private final Tabla tabla;
+    private final CharsetEncoder encoder;
+
+    public EscPos() {
+        this(Tabla.PC850);
+    }
+
+    public EscPos(Tabla tabla) {
+        this.tabla = tabla;
+        this.encoder = tabla.charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    /** ESC @ y tabla de caracteres. */
+    public EscPos inicializar() {
+        comando(ESC, '@');
+        comando(ESC, 't', tabla.n);
+        return this;
+    }
+
+    public EscPos alinear(Alineacion alineacion) {
+        return comando(ESC, 'a', alineacion.ordinal());
+    }
+
+    public EscPos negrita(boolean activa) {
+        return comando(ESC, 'E', activa ? 1 : 0);
+    }
+
+    /** GS ! : alto y ancho dobles por separado. */
+    public EscPos tamano(boolean dobleAlto, boolean dobleAncho) {
+        int n = (dobleAncho ? 0x10 : 0) | (dobleAlto ? 0x01 : 0);
+        return comando(GS, '!', n);
+    }
+
+    public EscPos texto(String s) {
+        if (s != null && !s.isEmpty()) {
+            out.writeBytes(codificar(s));
+        }
+        return this;
+    }
+
+    public EscPos linea(String s) {
+        texto(s);
+        out.write(LF);
+        return this;
+    }
+
+    public EscPos avanzar(int lineas) {
+        return comando(ESC, 'd', Math.max(0, Math.min(255, lineas)));
+    }
+
+    /**
+     * QR nativo de la impresora (modelo 2, corrección M).
+     * {@code modulo}: tamaño del punto, 1..16.
+     */
+    public EscPos qr(String datos, int modulo) {
+        byte[] contenido = datos.getBytes(StandardCharsets.US_ASCII);
+
+        comando(GS, '(', 'k', 4, 0, '1', 'A', '2', 0);                    // modelo 2
+        comando(GS, '(', 'k', 3, 0, '1', 'C', Math.max(1, Math.min(16, modulo)));
+        comando(GS, '(', 'k', 3, 0, '1', 'E', '1');                        // corrección M
+
+        int largo = contenido.length + 3;
+        comando(GS, '(', 'k', largo & 0xFF, (largo >> 8) & 0xFF, '1', 'P', '0');
+        out.writeBytes(contenido);
+
+        return comando(GS, '(', 'k', 3, 0, '1', 'Q', '0');                 // imprimir
+    }
+
+    /** Avanza hasta la cuchilla y corta (corte parcial). */
+    public EscPos cortar() {
+        return comando(GS, 'V', 66, 0);
+    }
+
+    /** Avanza hasta la cuchilla y corta del todo (comandas que se separan a mano). */
+    public EscPos cortarTotal() {
+        return comando(GS, 'V', 65, 0);
+    }
+
+    public byte[] toBytes() {
+        return out.toByteArray();
+    }
+
+    /**
+     * Texto → bytes de la tabla. Casi siempre sale directo; si hay algún
+     * carácter que la tabla no trae se codifica uno por uno con respaldo.
+     */
+    private byte[] codificar(String s) {
+        try {
+            ByteBuffer bb = encoder.reset().encode(CharBuffer.wrap(s));
+            byte[] bytes = new byte[bb.remaining()];
+            bb.get(bytes);
+            return bytes;
+        } catch (CharacterCodingException e) {
+            encoder.reset();
+            ByteArrayOutputStream b = new ByteArrayOutputStream(s.length());
+            s.codePoints().forEach(cp -> b.writeBytes(codificarCaracter(cp)));
+            return b.toByteArray();
+        }
+    }
+
+    private byte[] codificarCaracter(int cp) {
+        String c = new String(Character.toChars(cp));
+        if (encoder.canEncode(c)) {
+            return c.getBytes(tabla.charset);
+        }
+        // Sin tilde/diacrítico; si ni así, '?'
+        String base = Normalizer.normalize(c, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        if (!base.isEmpty() && encoder.canEncode(base)) {
+            return base.getBytes(tabla.charset);
+        }
+        return switch (c) {
+            case "“", "”", "«", "»" -> new byte[]{'"'};
+            case "‘", "’" -> new byte[]{'\''};
+            case "–", "—" -> new byte[]{'-'};
+            case "€" -> "EUR".getBytes(StandardCharsets.US_ASCII);
+            default -> new byte[]{'?'};
+        };
+    }
+
+    private EscPos comando(int... bytes) {
+        for (int b : bytes) {
+            out.write(b);
+        }
+        return this;
+    }
+}
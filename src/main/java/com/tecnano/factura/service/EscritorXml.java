@@ -0,0 +1,260 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/EscritorXml.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Escritor XML mínimo que codifica a UTF-8 directamente en un buffer de bytes
+ * reutilizable. Escapa el texto en una sola pasada (sin String.replace en
+ * cadena ni StringBuilder intermedio), pensado para generar el XML de cada
+ * venta sin basura por campo.
+ *
+ * No es thread-safe: usar una instancia por hilo y llamar a {@link #reiniciar()}
+ * antes de cada documento.
+ */
+final class EscritorXml {
+
+    /** Si un documento muy grande infla el buffer, no se retiene más que esto. */
+    private static final int MAX_RETENIDO = 256 * 1024;
+
+    private static final byte[] INDENT = "                                ".getBytes(StandardCharsets.US_ASCII);
+
+    private final int capacidadInicial;
+    private byte[] buf;
+    private int pos;
+    private int nivel;
+
+    EscritorXml(int capacidadInicial) {
+        this.capacidadInicial = capacidadInicial;
+        this.buf = new byte[capacidadInicial];
+    }
+
+    EscritorXml reiniciar() {
+        if (buf.length > MAX_RETENIDO) {
+            buf = new byte[capacidadInicial];
+        }
+        pos = 0;
+        nivel = 0;
+        return this;
+    }
+
+    /** {@code <tag>} en su propia línea; los hijos van indentados. */
+    EscritorXml abrir(String tag) {
+        indentar();
+        escribir('<');
+        ascii(tag);
+        escribir('>');
+        escribir('\n');
+        nivel++;
+        return this;
+    }
+
+    /** {@code <tag atributo="valor">}; el valor se escapa. */
+    EscritorXml abrir(String tag, String atributo, String valor) {
+        indentar();
+        escribir('<');
+        ascii(tag);
+        escribir(' ');
+        ascii(atributo);
+        ascii("=\"");
+        texto(valor);
+        ascii("\">\n");
+        nivel++;
+        return this;
+    }
+
+    EscritorXml cerrar(String tag) {
+        nivel--;
+        indentar();
+        ascii("</");
+        ascii(tag);
+        escribir('>');
+        escribir('\n');
+        return this;
+    }
+
+    /** {@code <tag>texto</tag>}; null se escribe como vacío. */
+    EscritorXml elemento(String tag, String valor) {
+        inicioElemento(tag);
+        texto(valor);
+        finElemento(tag);
+        return this;
+    }
+
+    EscritorXml elemento(String tag, long valor) {
+        inicioElemento(tag);
+        numero(valor);
+        finElemento(tag);
+        return this;
+    }
+
+    /** Importe con 2 decimales (HALF_UP), como exige el SRI. */
+    EscritorXml elemento(String tag, BigDecimal valor) {
+        return elemento(tag, valor, 2);
+    }
+
+    EscritorXml elemento(String tag, BigDecimal valor, int decimales) {
+        BigDecimal v = valor != null ? valor : BigDecimal.ZERO;
+        inicioElemento(tag);
+        ascii(v.setScale(decimales, RoundingMode.HALF_UP).toPlainString());
+        finElemento(tag);
+        return this;
+    }
+
+    /** {@code <tag atributo="valor">texto</tag>} en una línea. */
+    EscritorXml elemento(String tag, String atributo, String valorAtributo, String texto) {
+        indentar();
+        escribir('<');
+        ascii(tag);
+        escribir(' ');
+        ascii(atributo);
+        ascii("=\"");
+        texto(valorAtributo);
+        ascii("\">");
+        texto(texto);
+        finElemento(tag);
+        return this;
+    }
+
+    /** Agrega bytes ya codificados (fragmentos precalculados con otro EscritorXml). */
+    EscritorXml crudo(byte[] fragmento) {
+        asegurar(fragmento.length);
+        System.arraycopy(fragmento, 0, buf, pos, fragmento.length);
+        pos += fragmento.length;
+        return this;
+    }
+
+    /** Fija la indentación actual; útil al precalcular fragmentos anidados. */
+    EscritorXml nivel(int nivel) {
+        this.nivel = Math.max(0, nivel);
+        return this;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+
+    // =========================
+    // Internos
+    // =========================
+
+    private void inicioElemento(String tag) {
+        indentar();
+        escribir('<');
+        ascii(tag);
+        escribir('>');
+    }
+
+    private void finElemento(String tag) {
+        ascii("</");
+        ascii(tag);
+        escribir('>');
+        escribir('\n');
+    }
+
+    private void indentar() {
+        int n = Math.min(nivel * 2, INDENT.length);
+        asegurar(n);
+        System.arraycopy(INDENT, 0, buf, pos, n);
+        pos += n;
+    }
+
+    /** Escapa y codifica a UTF-8 en una sola pasada. */
+    private void texto(String s) {
+        if (s == null) return;
+
+        int len = s.length();
+        // Peor caso por char: "&quot;" = 6 bytes (un char BMP ocupa a lo sumo 3 bytes en UTF-8)
+        asegurar(len * 6);
+
+        byte[] b = buf;
+        int p = pos;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '&' -> { b[p++] = '&'; b[p++] = 'a'; b[p++] = 'm'; b[p++] = 'p'; b[p++] = ';'; }
+                    case '<' -> { b[p++] = '&'; b[p++] = 'l'; b[p++] = 't'; b[p++] = ';'; }
+                    case '>' -> { b[p++] = '&'; b[p++] = 'g'; b[p++] = 't'; b[p++] = ';'; }
+                    case '"' -> { b[p++] = '&'; b[p++] = 'q'; b[p++] = 'u'; b[p++] = 'o'; b[p++] = 't'; b[p++] = ';'; }
+                    case '\'' -> { b[p++] = '&'; b[p++] = 'a'; b[p++] = 'p'; b[p++] = 'o'; b[p++] = 's'; b[p++] = ';'; }
+                    default -> {
+                        // Caracteres de control no válidos en XML 1.0: se descartan
+                        if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                            b[p++] = (byte) c;
+                        }
+                    }
+                }
+            } else if (c < 0x800) {
+                b[p++] = (byte) (0xC0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[p++] = (byte) (0xF0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                b[p++] = '?'; // surrogate suelto: no representable
+            } else {
+                b[p++] = (byte) (0xE0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[p++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        pos = p;
+    }
+
+    /** Texto fijo ASCII (tags, números); no se escapa. */
+    private void ascii(String s) {
+        int len = s.length();
+        asegurar(len);
+        for (int i = 0; i < len; i++) {
+            buf[pos++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void numero(long v) {
+        if (v == 0) {
+            escribir('0');
+            return;
+        }
+        if (v == Long.MIN_VALUE) {
+            ascii(Long.toString(v));
+            return;
+        }
+        if (v < 0) {
+            escribir('-');
+            v = -v;
+        }
+        asegurar(19);
+        int inicio = pos;
+        while (v > 0) {
+            buf[pos++] = (byte) ('0' + (v % 10));
+            v /= 10;
+        }
+        // los dígitos quedaron al revés
+        for (int i = inicio, j = pos - 1; i < j; i++, j--) {
+            byte t = buf[i];
+            buf[i] = buf[j];
+            buf[j] = t;
+        }
+    }
+
+    private void escribir(char c) {
+        asegurar(1);
+        buf[pos++] = (byte) c;
+    }
+
+    private void asegurar(int extra) {
+        int requerido = pos + extra;
+        if (requerido > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(requerido, buf.length * 2));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/EventosVentaService.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Avisos en memoria de lo que pasa con las ventas (venta nueva, cambio de
+ * estado en cocina) para las pantallas abiertas.
+ *
+ * Se publica después del commit, así quien recibe el aviso ya encuentra la
+ * venta en BD. El reparto va en un hilo propio: quien publica (la caja) no
+ * espera a que cada pantalla se actualice.
+ */
+@Service
+public class EventosVentaService {
+
+    private static final Logger log = LoggerFactory.getLogger(EventosVentaService.class);
+
+    public sealed interface Evento permits VentaCreada, EstadoCocinaCambiado {
+        Long ventaId();
+    }
+
+    public record VentaCreada(Long ventaId) implements Evento {}
+
+    public record EstadoCocinaCambiado(Long ventaId, String estado) implements Evento {}
+
+    private final List<Consumer<Evento>> suscriptores = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService repartidor = new ThreadPoolExecutor(
+            1, 1,
+            0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            r -> {
+                Thread t = new Thread(r, "eventos-venta");
+                t.setDaemon(true);
+                return t;
+            }
+    );
+
+    /**
+     * Registra al suscriptor; lo devuelto lo da de baja (llamarlo al
+     * cerrar la pantalla, si no queda referenciada para siempre).
+     */
+    public Runnable suscribir(Consumer<Evento> suscriptor) {
+        suscriptores.add(suscriptor);
+        return () -> suscriptores.remove(suscriptor);
+    }
+
+    /** Publica cuando la transacción actual haga commit (o ya, si no hay). */
+    public void publicarTrasCommit(Evento evento) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publicar(evento);
+                }
+            });
+        } else {
+            publicar(evento);
+        }
+    }
+
+    public void publicar(Evento evento) {
+        if (suscriptores.isEmpty()) return;
+
+        repartidor.execute(() -> {
+            for (Consumer<Evento> s : suscriptores) {
+                try {
+                    s.accept(evento);
+                } catch (Exception ex) {
+                    log.warn("Suscriptor falló con {}: {}", evento, ex.getMessage());
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void detener() {
+        repartidor.shutdownNow();
+    }
+}
@@ -0,0 +1,196 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/ExportacionRideService.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import com.tecnano.factura.model.Venta;
+import com.tecnano.factura.repository.VentaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exporta los RIDE de las ventas AUTORIZADA de un rango de fechas como un
+ * único ZIP, escrito directo al stream de la respuesta (nada se arma
+ * completo en memoria).
+ *
+ * Las ventas se recorren por bloques. Dentro de cada bloque, los RIDE que
+ * faltan se dibujan en paralelo en un pool acotado
+ * ({@code tecnano.sri.rideExportarHilos}) y los que ya están en
+ * {@link AlmacenRide} se copian del disco. El PDF ya viene comprimido, así
+ * que las entradas van con nivel 0: cada archivo se lee una sola vez y el
+ * ZipOutputStream calcula el CRC mientras lo copia.
+ */
+@Service
+public class ExportacionRideService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportacionRideService.class);
+
+    /** Ventas por bloque: acota cuántos PDF dibujados hay en memoria a la vez. */
+    private static final int BLOQUE = 16;
+
+    private final VentaRepository ventaRepository;
+    private final RideService rideService;
+    private final AlmacenRide almacenRide;
+
+    private final ExecutorService dibujantes;
+
+    public ExportacionRideService(VentaRepository ventaRepository,
+                                  RideService rideService,
+                                  AlmacenRide almacenRide,
+                                  AppProperties appProperties) {
+        this.ventaRepository = ventaRepository;
+        this.rideService = rideService;
+        this.almacenRide = almacenRide;
+
+        int hilos = Math.max(1, appProperties.getSri().getRideExportarHilos());
+        this.dibujantes = new ThreadPoolExecutor(
+                hilos, hilos,
+                0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(BLOQUE * 2),
+                r -> {
+                    Thread t = new Thread(r, "ride-exportar");
+                    t.setDaemon(true);
+                    return t;
+                },
+                // Cola llena (varias exportaciones a la vez): dibuja el hilo que pide
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    /** Resultado de una exportación, para el log. */
+    public record Resumen(int exportados, int dibujados, List<Long> fallidos) {}
+
+    /**
+     * Escribe el ZIP con los RIDE de las ventas entre {@code desde} y
+     * {@code hasta} (ambos inclusive). No cierra {@code out}.
+     *
+     * Si algún RIDE no se pudo dibujar se omite y se anota en errores.txt
+     * dentro del mismo ZIP.
+     */
+    public Resumen exportarZip(LocalDate desde, LocalDate hasta, OutputStream out) throws IOException {
+        List<Long> ids = ventaRepository.findIdsAutorizadasEntre(
+                desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay());
+
+        int exportados = 0;
+        int dibujados = 0;
+        List<Long> fallidos = new ArrayList<>();
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // DEFLATED sin compresión en vez de STORED: STORED exige el CRC antes
+        // de los datos y obligaría a leer cada archivo dos veces
+        zip.setLevel(Deflater.NO_COMPRESSION);
+
+        for (int i = 0; i < ids.size(); i += BLOQUE) {
+            List<Long> bloque = ids.subList(i, Math.min(i + BLOQUE, ids.size()));
+
+            Map<Long, Venta> porId = new HashMap<>();
+            for (Venta v : ventaRepository.findByIdIn(bloque)) {
+                porId.put(v.getId(), v);
+            }
+
+            // Se lanza todo el bloque y se escribe en orden a medida que termina
+            List<Future<RideService.Ride>> rides = new ArrayList<>(bloque.size());
+            for (Long id : bloque) {
+                Venta venta = porId.get(id);
+                Optional<Path> guardado = venta != null ? almacenRide.buscar(venta.getRideHash()) : Optional.empty();
+                if (venta == null) {
+                    rides.add(CompletableFuture.completedFuture(null));
+                } else if (guardado.isPresent()) {
+                    rides.add(CompletableFuture.completedFuture(new RideService.Ride(guardado.get(), null)));
+                } else {
+                    rides.add(dibujantes.submit(() -> rideService.obtenerRideSinCache(venta)));
+                    dibujados++;
+                }
+            }
+
+            try {
+                for (int j = 0; j < bloque.size(); j++) {
+                    Long id = bloque.get(j);
+                    RideService.Ride ride = esperar(rides.get(j), id);
+                    if (ride == null || (ride.archivo() == null && ride.contenido().length == 0)) {
+                        if (porId.containsKey(id)) fallidos.add(id);
+                        continue;
+                    }
+                    escribirEntrada(zip, nombreEntrada(porId.get(id)), ride);
+                    exportados++;
+                }
+            } finally {
+                // Si el cliente cortó la descarga, no seguir dibujando para nadie
+                rides.forEach(f -> f.cancel(true));
+            }
+        }
+
+        if (!fallidos.isEmpty()) {
+            StringBuilder sb = new StringBuilder("No se pudo generar el RIDE de estas ventas:\n");
+            fallidos.forEach(id -> sb.append("venta ").append(id).append('\n'));
+            escribirEntrada(zip, "errores.txt",
+                    new RideService.Ride(null, sb.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+
+        zip.finish();
+        zip.flush();
+
+        Resumen resumen = new Resumen(exportados, dibujados, fallidos);
+        log.info("ZIP de RIDE {} a {}: {} exportados ({} dibujados), {} fallidos",
+                desde, hasta, exportados, dibujados, fallidos.size());
+        return resumen;
+    }
+
+    @PreDestroy
+    public void detener() {
+        dibujantes.shutdownNow();
+    }
+
+    // =========================
+    // Internos
+    // =========================
+
+    private RideService.Ride esperar(Future<RideService.Ride> futuro, Long ventaId) throws IOException {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Exportación de RIDE interrumpida", e);
+        } catch (ExecutionException e) {
+            log.warn("No se pudo dibujar el RIDE de la venta {}: {}", ventaId, e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    private void escribirEntrada(ZipOutputStream zip, String nombre, RideService.Ride ride) throws IOException {
+        zip.putNextEntry(new ZipEntry(nombre));
+        rideService.escribir(ride, zip);
+        zip.closeEntry();
+    }
+
+    private static String nombreEntrada(Venta venta) {
+        String carpeta = venta.getFechaHora() != null
+                ? venta.getFechaHora().toLocalDate().toString()
+                : "sin-fecha";
+        return carpeta + "/RIDE-venta-" + venta.getId() + ".pdf";
+    }
+}
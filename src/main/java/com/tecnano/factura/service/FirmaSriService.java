@@ -0,0 +1,92 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/FirmaSriService.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Firma local de comprobantes con el certificado .p12 del negocio
+ * ({@code tecnano.sri.certificadoP12}). El keystore se lee una sola vez y el
+ * {@link FirmadorXadesBes} se reutiliza para todas las ventas; solo se vuelve
+ * a cargar si cambia la ruta, la clave o el archivo en disco.
+ *
+ * Sin certificado configurado el XML se devuelve tal cual (el proveedor firma).
+ */
+@Service
+public class FirmaSriService {
+
+    private static final Logger log = LoggerFactory.getLogger(FirmaSriService.class);
+
+    private final AppProperties.Sri sriConfig;
+
+    private volatile Cargado cargado;
+
+    public FirmaSriService(AppProperties appProperties) {
+        this.sriConfig = appProperties.getSri();
+    }
+
+    public boolean isHabilitada() {
+        String ruta = sriConfig.getCertificadoP12();
+        return ruta != null && !ruta.isBlank();
+    }
+
+    public byte[] firmar(byte[] xml) {
+        if (!isHabilitada()) {
+            return xml;
+        }
+        return obtenerFirmador().firmar(xml);
+    }
+
+    /** Fuerza a releer el certificado en la próxima firma (p. ej. tras renovarlo). */
+    public void recargar() {
+        cargado = null;
+    }
+
+    private FirmadorXadesBes obtenerFirmador() {
+        Path ruta = Path.of(sriConfig.getCertificadoP12().trim());
+        String clave = sriConfig.getCertificadoClave() != null ? sriConfig.getCertificadoClave() : "";
+        long modificado = ultimaModificacion(ruta);
+
+        Cargado actual = cargado;
+        if (actual != null && actual.vigentePara(ruta, clave, modificado)) {
+            return actual.firmador();
+        }
+
+        synchronized (this) {
+            actual = cargado;
+            if (actual != null && actual.vigentePara(ruta, clave, modificado)) {
+                return actual.firmador();
+            }
+
+            FirmadorXadesBes firmador = FirmadorXadesBes.desdePkcs12(ruta, clave.toCharArray());
+            log.info("Certificado de firma cargado: {} (vence {})",
+                    firmador.getCertificado().getSubjectX500Principal().getName(),
+                    firmador.getCertificado().getNotAfter());
+
+            cargado = new Cargado(ruta, clave, modificado, firmador);
+            return firmador;
+        }
+    }
+
+    private static long ultimaModificacion(Path ruta) {
+        try {
+            return Files.getLastModifiedTime(ruta).toMillis();
+        } catch (Exception e) {
+            return -1L;
+        }
+    }
+
+    private record Cargado(Path ruta, String clave, long modificado, FirmadorXadesBes firmador) {
+        boolean vigentePara(Path r, String c, long m) {
+            return ruta.equals(r) && Objects.equals(clave, c) && modificado == m;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/FirmadorXadesBes.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.XMLConstants;
+import javax.xml.crypto.dom.DOMStructure;
+import javax.xml.crypto.dsig.CanonicalizationMethod;
+import javax.xml.crypto.dsig.DigestMethod;
+import javax.xml.crypto.dsig.Reference;
+import javax.xml.crypto.dsig.SignatureMethod;
+import javax.xml.crypto.dsig.SignedInfo;
+import javax.xml.crypto.dsig.Transform;
+import javax.xml.crypto.dsig.XMLObject;
+import javax.xml.crypto.dsig.XMLSignature;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.dom.DOMSignContext;
+import javax.xml.crypto.dsig.keyinfo.KeyInfo;
+import javax.xml.crypto.dsig.keyinfo.KeyInfoFactory;
+import javax.xml.crypto.dsig.spec.C14NMethodParameterSpec;
+import javax.xml.crypto.dsig.spec.TransformParameterSpec;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Firma XAdES-BES (enveloped) de comprobantes SRI con la API XML DSig del JDK.
+ *
+ * Todo lo que depende solo del certificado (clave privada, digest e
+ * IssuerSerial del certificado) se prepara una vez. Las fábricas DOM/DSig
+ * no son thread-safe, así que cada hilo tiene su propio {@link Contexto};
+ * una misma instancia puede firmar en paralelo.
+ *
+ * Algoritmos según la ficha técnica del SRI: RSA-SHA1, digest SHA1 y
+ * canonicalización C14N inclusiva.
+ */
+public final class FirmadorXadesBes {
+
+    private static final String NS_DS = XMLSignature.XMLNS;
+    private static final String NS_ETSI = "http://uri.etsi.org/01903/v1.3.2#";
+    private static final String TIPO_SIGNED_PROPERTIES = "http://uri.etsi.org/01903#SignedProperties";
+
+    private static final DateTimeFormatter FORMATO_SIGNING_TIME =
+            DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private final PrivateKey clavePrivada;
+    private final X509Certificate certificado;
+
+    private final String digestCertificado;
+    private final String emisorCertificado;
+    private final String serialCertificado;
+
+    // Ids fijos por firmador: basta con que sean únicos dentro de cada documento
+    private final String idFirma;
+    private final String idSignedProperties;
+    private final String idCertificado;
+    private final String idReferenciaComprobante;
+
+    private final ThreadLocal<Contexto> contexto = ThreadLocal.withInitial(this::crearContexto);
+
+    public FirmadorXadesBes(PrivateKey clavePrivada, X509Certificate certificado) {
+        this.clavePrivada = clavePrivada;
+        this.certificado = certificado;
+
+        try {
+            byte[] sha1 = MessageDigest.getInstance("SHA-1").digest(certificado.getEncoded());
+            this.digestCertificado = Base64.getEncoder().encodeToString(sha1);
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo calcular el digest del certificado.", e);
+        }
+        this.emisorCertificado = certificado.getIssuerX500Principal().getName();
+        this.serialCertificado = certificado.getSerialNumber().toString();
+
+        int n = ThreadLocalRandom.current().nextInt(100_000, 1_000_000);
+        this.idFirma = "Signature" + n;
+        this.idSignedProperties = idFirma + "-SignedProperties" + n;
+        this.idCertificado = "Certificate" + n;
+        this.idReferenciaComprobante = "Reference-ID-" + n;
+    }
+
+    /** Carga el primer alias con clave privada de un .p12. */
+    public static FirmadorXadesBes desdePkcs12(Path archivo, char[] clave) {
+        try (InputStream in = Files.newInputStream(archivo)) {
+            return desdePkcs12(in, clave);
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo leer el certificado " + archivo + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static FirmadorXadesBes desdePkcs12(InputStream in, char[] clave) {
+        try {
+            KeyStore ks = KeyStore.getInstance("PKCS12");
+            ks.load(in, clave);
+            return desdeKeyStore(ks, clave);
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Certificado .p12 inválido o clave incorrecta: " + e.getMessage(), e);
+        }
+    }
+
+    public static FirmadorXadesBes desdeKeyStore(KeyStore ks, char[] clave) throws Exception {
+        Enumeration<String> alias = ks.aliases();
+        while (alias.hasMoreElements()) {
+            String a = alias.nextElement();
+            if (!ks.isKeyEntry(a)) continue;
+            if (ks.getKey(a, clave) instanceof PrivateKey pk
+                    && ks.getCertificate(a) instanceof X509Certificate cert) {
+                return new FirmadorXadesBes(pk, cert);
+            }
+        }
+        throw new IllegalStateException("El certificado no contiene una clave privada con certificado X.509.");
+    }
+
+    public X509Certificate getCertificado() {
+        return certificado;
+    }
+
+    /**
+     * Firma el comprobante (raíz con {@code id="comprobante"}) y devuelve el
+     * XML firmado en UTF-8.
+     */
+    public byte[] firmar(byte[] xml) {
+        Contexto ctx = contexto.get();
+        try {
+            Document doc = ctx.builder.parse(new ByteArrayInputStream(xml));
+            Element raiz = doc.getDocumentElement();
+
+            Element signedProperties = crearQualifyingProperties(doc);
+            XMLSignatureFactory fac = ctx.fac;
+
+            // Transforms y KeyInfo guardan estado del documento al serializarse: van nuevos por firma
+            Reference refComprobante = fac.newReference("#comprobante", ctx.sha1,
+                    List.of(fac.newTransform(Transform.ENVELOPED, (TransformParameterSpec) null)),
+                    null, idReferenciaComprobante);
+            Reference refPropiedades = fac.newReference(
+                    "#" + idSignedProperties, ctx.sha1, null, TIPO_SIGNED_PROPERTIES, null);
+            Reference refCertificado = fac.newReference(
+                    "#" + idCertificado, ctx.sha1);
+
+            SignedInfo si = fac.newSignedInfo(
+                    fac.newCanonicalizationMethod(CanonicalizationMethod.INCLUSIVE, (C14NMethodParameterSpec) null),
+                    ctx.rsaSha1,
+                    List.of(refPropiedades, refCertificado, refComprobante));
+
+            XMLObject objeto = fac.newXMLObject(
+                    List.of(new DOMStructure(signedProperties.getParentNode())),
+                    idFirma + "-Object", null, null);
+
+            XMLSignature firma = fac.newXMLSignature(
+                    si, crearKeyInfo(fac), List.of(objeto), idFirma, "SignatureValue" + idFirma);
+
+            DOMSignContext dsc = new DOMSignContext(clavePrivada, raiz);
+            dsc.setDefaultNamespacePrefix("ds");
+            dsc.setIdAttributeNS(raiz, null, "id");
+            dsc.setIdAttributeNS(signedProperties, null, "Id");
+
+            firma.sign(dsc);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(xml.length + 4096);
+            ctx.transformer.transform(new DOMSource(doc), new StreamResult(out));
+            return out.toByteArray();
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo firmar el comprobante: " + e.getMessage(), e);
+        } finally {
+            ctx.builder.reset();
+        }
+    }
+
+    /**
+     * {@code etsi:QualifyingProperties} con SigningTime, SigningCertificate y
+     * DataObjectFormat. Devuelve el {@code etsi:SignedProperties} (referenciado
+     * por la firma); su padre es el nodo que va dentro de ds:Object.
+     */
+    private Element crearQualifyingProperties(Document doc) {
+        Element qp = doc.createElementNS(NS_ETSI, "etsi:QualifyingProperties");
+        qp.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, "xmlns:etsi", NS_ETSI);
+        qp.setAttribute("Target", "#" + idFirma);
+
+        Element sp = hijo(doc, qp, NS_ETSI, "etsi:SignedProperties");
+        sp.setAttribute("Id", idSignedProperties);
+
+        Element ssp = hijo(doc, sp, NS_ETSI, "etsi:SignedSignatureProperties");
+        hijo(doc, ssp, NS_ETSI, "etsi:SigningTime").setTextContent(
+                OffsetDateTime.now().truncatedTo(ChronoUnit.SECONDS).format(FORMATO_SIGNING_TIME));
+
+        Element cert = hijo(doc, hijo(doc, ssp, NS_ETSI, "etsi:SigningCertificate"), NS_ETSI, "etsi:Cert");
+        Element certDigest = hijo(doc, cert, NS_ETSI, "etsi:CertDigest");
+        hijo(doc, certDigest, NS_DS, "ds:DigestMethod").setAttribute("Algorithm", DigestMethod.SHA1);
+        hijo(doc, certDigest, NS_DS, "ds:DigestValue").setTextContent(digestCertificado);
+        Element issuerSerial = hijo(doc, cert, NS_ETSI, "etsi:IssuerSerial");
+        hijo(doc, issuerSerial, NS_DS, "ds:X509IssuerName").setTextContent(emisorCertificado);
+        hijo(doc, issuerSerial, NS_DS, "ds:X509SerialNumber").setTextContent(serialCertificado);
+
+        Element dof = hijo(doc, hijo(doc, sp, NS_ETSI, "etsi:SignedDataObjectProperties"),
+                NS_ETSI, "etsi:DataObjectFormat");
+        dof.setAttribute("ObjectReference", "#" + idReferenciaComprobante);
+        hijo(doc, dof, NS_ETSI, "etsi:Description").setTextContent("contenido comprobante");
+        hijo(doc, dof, NS_ETSI, "etsi:MimeType").setTextContent("text/xml");
+
+        return sp;
+    }
+
+    private KeyInfo crearKeyInfo(XMLSignatureFactory fac) throws Exception {
+        KeyInfoFactory kif = fac.getKeyInfoFactory();
+        return kif.newKeyInfo(List.of(
+                kif.newX509Data(List.of(certificado)),
+                kif.newKeyValue(certificado.getPublicKey())
+        ), idCertificado);
+    }
+
+    private static Element hijo(Document doc, Element padre, String ns, String nombre) {
+        Element e = doc.createElementNS(ns, nombre);
+        padre.appendChild(e);
+        return e;
+    }
+
+    // =========================
+    // Contexto por hilo
+    // =========================
+
+    private Contexto crearContexto() {
+        try {
+            XMLSignatureFactory fac = XMLSignatureFactory.getInstance("DOM");
+
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            dbf.setNamespaceAware(true);
+            dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            dbf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            dbf.setExpandEntityReferences(false);
+
+            TransformerFactory tf = TransformerFactory.newInstance();
+            tf.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            tf.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+            Transformer transformer = tf.newTransformer();
+            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+            transformer.setOutputProperty(OutputKeys.INDENT, "no");
+
+            return new Contexto(
+                    fac,
+                    dbf.newDocumentBuilder(),
+                    transformer,
+                    fac.newDigestMethod(DigestMethod.SHA1, null),
+                    fac.newSignatureMethod(SignatureMethod.RSA_SHA1, null)
+            );
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo preparar el motor de firma XML: " + e.getMessage(), e);
+        }
+    }
+
+    private record Contexto(
+            XMLSignatureFactory fac,
+            DocumentBuilder builder,
+            Transformer transformer,
+            DigestMethod sha1,
+            SignatureMethod rsaSha1
+    ) {}
+}
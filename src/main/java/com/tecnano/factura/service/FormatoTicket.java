@@ -0,0 +1,41 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/FormatoTicket.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.model.Venta;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Reglas de formato del ticket del cliente, compartidas entre la vista
+ * (TicketView) y la impresión térmica (TicketEscPosService) para que ambos
+ * muestren lo mismo.
+ */
+public final class FormatoTicket {
+
+    public static final DateTimeFormatter FECHA_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private FormatoTicket() { }
+
+    /** "$12.50"; null cuenta como cero. */
+    public static String importe(BigDecimal valor) {
+        return "$" + (valor != null ? valor : BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public static String fechaHora(Venta venta) {
+        return venta.getFechaHora() != null ? FECHA_HORA.format(venta.getFechaHora()) : "--";
+    }
+
+    /** Ubicación elegida en caja; si no hay, la mesa; si tampoco, "-". */
+    public static String ubicacion(Venta venta) {
+        String ubic = venta.getUbicacion() != null ? venta.getUbicacion() : venta.getMesa();
+        return ubic != null ? ubic : "-";
+    }
+
+    public static String safe(String s) {
+        return s != null ? s : "";
+    }
+}
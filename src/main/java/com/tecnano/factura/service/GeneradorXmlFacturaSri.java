@@ -0,0 +1,365 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/GeneradorXmlFacturaSri.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import com.tecnano.factura.model.Cliente;
+import com.tecnano.factura.model.DetalleVenta;
+import com.tecnano.factura.model.Venta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Genera el XML de factura con el esquema oficial del SRI (versión 2.1.0)
+ * y calcula la clave de acceso en local.
+ *
+ * Los datos del emisor casi nunca cambian, así que sus fragmentos XML se
+ * codifican una sola vez y se reutilizan; solo se regeneran cuando cambia
+ * {@link AppProperties.Negocio} (p. ej. desde AdminToolsView).
+ */
+@Service
+public class GeneradorXmlFacturaSri {
+
+    private static final Logger log = LoggerFactory.getLogger(GeneradorXmlFacturaSri.class);
+
+    public static final String VERSION_ESQUEMA = "2.1.0";
+
+    private static final byte[] CABECERA = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<factura id=\"comprobante\" version=\"" + VERSION_ESQUEMA + "\">\n")
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final BigDecimal TARIFA_IVA = new BigDecimal("0.12");
+
+    /** Código de impuesto IVA y códigos de porcentaje (tabla 17 de la ficha técnica). */
+    private static final String IMPUESTO_IVA = "2";
+    private static final String PORCENTAJE_IVA_0 = "0";
+    private static final String PORCENTAJE_IVA_12 = "2";
+
+    private static final String ID_CONSUMIDOR_FINAL = "9999999999999";
+
+    private static final ThreadLocal<EscritorXml> ESCRITOR =
+            ThreadLocal.withInitial(() -> new EscritorXml(8 * 1024));
+
+    private final AppProperties appProperties;
+
+    private volatile BloqueEmisor bloqueEmisor;
+
+    public GeneradorXmlFacturaSri(AppProperties appProperties) {
+        this.appProperties = appProperties;
+    }
+
+    /**
+     * Devuelve la clave de acceso de la venta, generándola y guardándola en
+     * la venta si todavía no tiene una válida. El secuencial es el id de la venta.
+     */
+    public String asegurarClaveAcceso(Venta venta) {
+        String actual = venta.getClaveAccesoSri();
+        if (ClaveAccesoSri.esValida(actual)) {
+            return actual;
+        }
+        if (venta.getId() == null) {
+            throw new IllegalStateException("La venta debe estar guardada para generar su clave de acceso.");
+        }
+
+        DatosEmisor emisor = obtenerBloqueEmisor().datos();
+        LocalDate fecha = venta.getFechaHora() != null
+                ? venta.getFechaHora().toLocalDate()
+                : LocalDate.now();
+
+        String clave = ClaveAccesoSri.generar(
+                fecha,
+                ClaveAccesoSri.TIPO_FACTURA,
+                emisor.ruc(),
+                emisor.ambiente(),
+                emisor.establecimiento(),
+                emisor.puntoEmision(),
+                venta.getId(),
+                ClaveAccesoSri.EMISION_NORMAL
+        );
+        venta.setClaveAccesoSri(clave);
+        return clave;
+    }
+
+    public byte[] generarXml(Venta venta) {
+        BloqueEmisor emisor = obtenerBloqueEmisor();
+        String claveAcceso = asegurarClaveAcceso(venta);
+        LocalDate fecha = venta.getFechaHora() != null
+                ? venta.getFechaHora().toLocalDate()
+                : LocalDate.now();
+
+        EscritorXml xml = ESCRITOR.get().reiniciar();
+
+        // ===== infoTributaria =====
+        xml.crudo(emisor.antesDeClave()).nivel(2)
+                .elemento("claveAcceso", claveAcceso)
+                .crudo(emisor.antesDeSecuencial()).nivel(2)
+                .elemento("secuencial", ClaveAccesoSri.secuencial9(venta.getId()))
+                .crudo(emisor.finInfoTributaria()).nivel(2);
+
+        // ===== infoFactura =====
+        xml.elemento("fechaEmision", fecha.format(FORMATO_FECHA))
+                .crudo(emisor.datosEstablecimiento()).nivel(2);
+
+        escribirComprador(xml, venta.getCliente());
+
+        BigDecimal base0 = BigDecimal.ZERO;
+        BigDecimal base12 = BigDecimal.ZERO;
+        for (DetalleVenta d : venta.getDetalles()) {
+            if (d == null || d.getProducto() == null) continue;
+            if (d.isConIva()) {
+                base12 = base12.add(d.getSubtotal());
+            } else {
+                base0 = base0.add(d.getSubtotal());
+            }
+        }
+
+        xml.elemento("totalSinImpuestos", venta.getSubtotal())
+                .elemento("totalDescuento", BigDecimal.ZERO);
+
+        xml.abrir("totalConImpuestos");
+        if (base0.signum() > 0 || base12.signum() == 0) {
+            escribirTotalImpuesto(xml, PORCENTAJE_IVA_0, base0, BigDecimal.ZERO);
+        }
+        if (base12.signum() > 0) {
+            escribirTotalImpuesto(xml, PORCENTAJE_IVA_12, base12, venta.getIva());
+        }
+        xml.cerrar("totalConImpuestos");
+
+        xml.elemento("propina", BigDecimal.ZERO)
+                .elemento("importeTotal", venta.getTotal())
+                .elemento("moneda", "DOLAR");
+
+        xml.abrir("pagos")
+                .abrir("pago")
+                .elemento("formaPago", codigoFormaPago(venta.getFormaPago()))
+                .elemento("total", venta.getTotal())
+                .cerrar("pago")
+                .cerrar("pagos");
+
+        xml.cerrar("infoFactura");
+
+        // ===== detalles =====
+        xml.abrir("detalles");
+        for (DetalleVenta d : venta.getDetalles()) {
+            if (d == null || d.getProducto() == null) continue;
+            escribirDetalle(xml, d);
+        }
+        xml.cerrar("detalles");
+
+        escribirInfoAdicional(xml, venta);
+
+        xml.cerrar("factura");
+        return xml.toByteArray();
+    }
+
+    // =========================
+    // Partes variables
+    // =========================
+
+    private void escribirComprador(EscritorXml xml, Cliente cli) {
+        String tipo = "07";
+        String razonSocial = "CONSUMIDOR FINAL";
+        String identificacion = ID_CONSUMIDOR_FINAL;
+
+        if (cli != null && cli.getNumeroIdentificacion() != null && !cli.getNumeroIdentificacion().isBlank()) {
+            identificacion = cli.getNumeroIdentificacion().trim();
+            razonSocial = cli.getNombre() != null && !cli.getNombre().isBlank()
+                    ? cli.getNombre().trim()
+                    : razonSocial;
+            tipo = cli.getTipoIdentificacionSri() != null && !cli.getTipoIdentificacionSri().isBlank()
+                    ? cli.getTipoIdentificacionSri()
+                    : switch (identificacion.length()) {
+                        case 13 -> "04";
+                        case 10 -> "05";
+                        default -> "06";
+                    };
+        }
+
+        xml.elemento("tipoIdentificacionComprador", tipo)
+                .elemento("razonSocialComprador", razonSocial)
+                .elemento("identificacionComprador", identificacion);
+
+        if (cli != null && cli.getDireccion() != null && !cli.getDireccion().isBlank()) {
+            xml.elemento("direccionComprador", cli.getDireccion());
+        }
+    }
+
+    private void escribirTotalImpuesto(EscritorXml xml, String codigoPorcentaje,
+                                       BigDecimal base, BigDecimal valor) {
+        xml.abrir("totalImpuesto")
+                .elemento("codigo", IMPUESTO_IVA)
+                .elemento("codigoPorcentaje", codigoPorcentaje)
+                .elemento("baseImponible", base)
+                .elemento("valor", valor)
+                .cerrar("totalImpuesto");
+    }
+
+    private void escribirDetalle(EscritorXml xml, DetalleVenta d) {
+        BigDecimal base = d.getSubtotal();
+        boolean conIva = d.isConIva();
+        BigDecimal valorIva = conIva
+                ? base.multiply(TARIFA_IVA).setScale(2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        xml.abrir("detalle")
+                .elemento("codigoPrincipal", d.getProducto().getCodigo())
+                .elemento("descripcion", d.getProducto().getNombre())
+                .elemento("cantidad", BigDecimal.valueOf(d.getCantidad()), 6)
+                .elemento("precioUnitario", d.getPrecioUnitario(), 6)
+                .elemento("descuento", BigDecimal.ZERO)
+                .elemento("precioTotalSinImpuesto", base);
+
+        xml.abrir("impuestos")
+                .abrir("impuesto")
+                .elemento("codigo", IMPUESTO_IVA)
+                .elemento("codigoPorcentaje", conIva ? PORCENTAJE_IVA_12 : PORCENTAJE_IVA_0)
+                .elemento("tarifa", conIva ? 12 : 0)
+                .elemento("baseImponible", base)
+                .elemento("valor", valorIva)
+                .cerrar("impuesto")
+                .cerrar("impuestos");
+
+        xml.cerrar("detalle");
+    }
+
+    private void escribirInfoAdicional(EscritorXml xml, Venta venta) {
+        Cliente cli = venta.getCliente();
+        String correo = cli != null ? cli.getCorreo() : null;
+        String telefono = cli != null ? cli.getTelefono() : null;
+        String mesa = venta.getMesa();
+
+        boolean hayCorreo = correo != null && !correo.isBlank();
+        boolean hayTelefono = telefono != null && !telefono.isBlank();
+        boolean hayMesa = mesa != null && !mesa.isBlank();
+        if (!hayCorreo && !hayTelefono && !hayMesa) return;
+
+        xml.abrir("infoAdicional");
+        if (hayCorreo) xml.elemento("campoAdicional", "nombre", "Email", correo);
+        if (hayTelefono) xml.elemento("campoAdicional", "nombre", "Telefono", telefono);
+        if (hayMesa) xml.elemento("campoAdicional", "nombre", "Mesa", mesa);
+        xml.cerrar("infoAdicional");
+    }
+
+    /** Tabla 24 de la ficha técnica (formas de pago). */
+    static String codigoFormaPago(String formaPago) {
+        String f = formaPago != null ? formaPago.toLowerCase(Locale.ROOT) : "";
+        if (f.contains("tarjeta")) return "19";
+        if (f.contains("transfer")) return "20";
+        return "01";
+    }
+
+    // =========================
+    // Bloque del emisor (precalculado)
+    // =========================
+
+    private BloqueEmisor obtenerBloqueEmisor() {
+        DatosEmisor datos = DatosEmisor.desde(appProperties);
+        BloqueEmisor actual = bloqueEmisor;
+        if (actual != null && actual.datos().equals(datos)) {
+            return actual;
+        }
+
+        BloqueEmisor nuevo = BloqueEmisor.construir(datos);
+        bloqueEmisor = nuevo;
+        log.info("Bloque emisor SRI regenerado (RUC {}, estab {}-{}).",
+                datos.ruc(), datos.establecimiento(), datos.puntoEmision());
+        return nuevo;
+    }
+
+    private record DatosEmisor(
+            String ambiente,
+            String razonSocial,
+            String nombreComercial,
+            String ruc,
+            String establecimiento,
+            String puntoEmision,
+            String direccion,
+            String contribuyenteRimpe,
+            boolean obligadoContabilidad
+    ) {
+        static DatosEmisor desde(AppProperties props) {
+            AppProperties.Negocio n = props.getNegocio();
+            String nombre = n.getNombre() != null ? n.getNombre() : "";
+            String razon = n.getRazonSocial() != null && !n.getRazonSocial().isBlank()
+                    ? n.getRazonSocial()
+                    : nombre;
+            return new DatosEmisor(
+                    props.getSri().getAmbiente(),
+                    razon,
+                    nombre,
+                    n.getRuc(),
+                    n.getEstablecimiento(),
+                    n.getPuntoEmision(),
+                    n.getDireccion(),
+                    leyendaRimpe(n.getRegimen()),
+                    n.isObligadoContabilidad()
+            );
+        }
+
+        private static String leyendaRimpe(String regimen) {
+            String r = regimen != null ? regimen.toLowerCase(Locale.ROOT) : "";
+            if (r.contains("popular")) return "CONTRIBUYENTE NEGOCIO POPULAR - RÉGIMEN RIMPE";
+            if (r.contains("rimpe")) return "CONTRIBUYENTE RÉGIMEN RIMPE";
+            return null;
+        }
+    }
+
+    /**
+     * Fragmentos XML ya codificados que rodean a los campos variables de
+     * infoTributaria / infoFactura (clave de acceso, secuencial, fecha).
+     */
+    private record BloqueEmisor(
+            DatosEmisor datos,
+            byte[] antesDeClave,
+            byte[] antesDeSecuencial,
+            byte[] finInfoTributaria,
+            byte[] datosEstablecimiento
+    ) {
+        static BloqueEmisor construir(DatosEmisor d) {
+            EscritorXml w = new EscritorXml(1024);
+
+            byte[] antesDeClave = w.reiniciar()
+                    .crudo(CABECERA).nivel(1)
+                    .abrir("infoTributaria")
+                    .elemento("ambiente", d.ambiente())
+                    .elemento("tipoEmision", ClaveAccesoSri.EMISION_NORMAL)
+                    .elemento("razonSocial", d.razonSocial())
+                    .elemento("nombreComercial", d.nombreComercial())
+                    .elemento("ruc", d.ruc())
+                    .toByteArray();
+
+            byte[] antesDeSecuencial = w.reiniciar().nivel(2)
+                    .elemento("codDoc", ClaveAccesoSri.TIPO_FACTURA)
+                    .elemento("estab", d.establecimiento())
+                    .elemento("ptoEmi", d.puntoEmision())
+                    .toByteArray();
+
+            w.reiniciar().nivel(2).elemento("dirMatriz", d.direccion());
+            if (d.contribuyenteRimpe() != null) {
+                w.elemento("contribuyenteRimpe", d.contribuyenteRimpe());
+            }
+            byte[] finInfoTributaria = w
+                    .cerrar("infoTributaria")
+                    .abrir("infoFactura")
+                    .toByteArray();
+
+            byte[] datosEstablecimiento = w.reiniciar().nivel(2)
+                    .elemento("dirEstablecimiento", d.direccion())
+                    .elemento("obligadoContabilidad", d.obligadoContabilidad() ? "SI" : "NO")
+                    .toByteArray();
+
+            return new BloqueEmisor(d, antesDeClave, antesDeSecuencial, finInfoTributaria, datosEstablecimiento);
+        }
+    }
+}
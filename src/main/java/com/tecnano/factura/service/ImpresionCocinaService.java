@@ -5,158 +5,224 @@ package com.tecnano.factura.service;
 
 import com.tecnano.factura.config.AppProperties;
 import com.tecnano.factura.model.DetalleVenta;
+import com.tecnano.factura.model.Producto;
 import com.tecnano.factura.model.Venta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import javax.print.Doc;
-import javax.print.DocFlavor;
-import javax.print.DocPrintJob;
-import javax.print.PrintService;
-import javax.print.PrintServiceLookup;
-import javax.print.SimpleDoc;
-import javax.print.attribute.HashPrintRequestAttributeSet;
-import javax.print.attribute.PrintRequestAttributeSet;
-import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class ImpresionCocinaService {
 
     private static final Logger log = LoggerFactory.getLogger(ImpresionCocinaService.class);
 
+    /** Estación de los productos que no tienen una asignada. */
+    public static final String ESTACION_COCINA = "COCINA";
+
     private final AppProperties appProperties;
+    private final ColaImpresionService colaImpresion;
 
-    public ImpresionCocinaService(AppProperties appProperties) {
+    public ImpresionCocinaService(AppProperties appProperties,
+                                  ColaImpresionService colaImpresion) {
         this.appProperties = appProperties;
+        this.colaImpresion = colaImpresion;
     }
 
-    public void imprimirComanda(Venta venta) {
+    /**
+     * Lo que pasó al despachar las comandas de una venta: estaciones que
+     * quedaron en cola y, por estación, el motivo de las que no.
+     *
+     * Solo cubre el despacho (sin impresora configurada, cola llena). Que
+     * una comanda en cola salga de verdad se sabe después, en el hilo de su
+     * impresora: esas fallas se ven en el aviso de Impresoras de la caja y en
+     * {@code PanelImpresoras}, no aquí.
+     */
+    public record ReporteComandas(List<String> enviadas, Map<String, String> fallas) {
+        public boolean hayFallas() { return !fallas.isEmpty(); }
+
+        /** Un solo mensaje con todas las fallas, para mostrar en caja. */
+        public String resumenFallas() {
+            StringBuilder sb = new StringBuilder();
+            fallas.forEach((estacion, motivo) -> {
+                if (sb.length() > 0) sb.append(" · ");
+                sb.append(estacion).append(": ").append(motivo);
+            });
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Parte la venta en una comanda por estación (según {@link Producto#getEstacion()})
+     * y encola cada una en la impresora de su estación; vuelve enseguida, las
+     * colas imprimen en paralelo (ver ColaImpresionService). El reporte dice
+     * qué no se pudo encolar, no qué se imprimió.
+     */
+    public ReporteComandas imprimirComanda(Venta venta) {
         if (venta == null) {
             log.warn("imprimirComanda llamada con venta = null; se ignora.");
-            return;
+            return new ReporteComandas(List.of(), Map.of());
         }
 
-        String impresoraNombre = appProperties.getImpresion().getImpresoraCocina();
-        if (impresoraNombre == null || impresoraNombre.isBlank()) {
-            log.info("No hay impresora de cocina configurada. Se omite impresión de comanda para venta {}.",
+        AppProperties.Impresion cfg = appProperties.getImpresion();
+        if ((cfg.getImpresoraCocina() == null || cfg.getImpresoraCocina().isBlank()) && cfg.getEstaciones().isEmpty()) {
+            log.info("No hay impresoras de cocina configuradas. Se omite impresión de comandas para venta {}.",
                     venta.getId());
-            return;
+            return new ReporteComandas(List.of(), Map.of());
         }
 
-        PrintService impresora = buscarImpresoraPorNombre(impresoraNombre);
-        if (impresora == null) {
-            log.warn("No se encontró impresora de cocina con nombre que contenga '{}'.", impresoraNombre);
-            return;
+        Map<String, List<DetalleVenta>> porEstacion = agruparPorEstacion(venta);
+        List<String> enviadas = new ArrayList<>();
+        Map<String, String> fallas = new LinkedHashMap<>();
+
+        int parte = 1;
+        for (Map.Entry<String, List<DetalleVenta>> e : porEstacion.entrySet()) {
+            String estacion = e.getKey();
+            String impresora = impresoraDe(estacion);
+
+            if (impresora == null) {
+                log.info("Estación {} sin impresora configurada. Se omite su comanda para venta {}.",
+                        estacion, venta.getId());
+                fallas.put(estacion, "sin impresora configurada");
+            } else {
+                byte[] bytes = generarComanda(venta, estacion, e.getValue(), parte, porEstacion.size());
+
+                if (colaImpresion.encolar(impresora, "Comanda " + estacion + " venta " + venta.getId(), bytes)) {
+                    enviadas.add(estacion);
+                    log.info("Comanda {} en cola de '{}' para venta {}", estacion, impresora, venta.getId());
+                } else {
+                    fallas.put(estacion, "cola de '" + impresora + "' llena");
+                }
+            }
+            parte++;
         }
 
-        String contenido = generarTextoComanda(venta);
-
-        try {
-            enviarAImpresora(impresora, contenido);
-            log.info("Comanda de cocina enviada a la impresora '{}' para venta {}",
-                    impresora.getName(), venta.getId());
-        } catch (Exception e) {
-            log.error("Error al imprimir comanda en impresora '{}': {}",
-                    impresora.getName(), e.getMessage(), e);
-        }
+        return new ReporteComandas(enviadas, fallas);
     }
 
-    private PrintService buscarImpresoraPorNombre(String nombreParcial) {
-        PrintService[] services = PrintServiceLookup.lookupPrintServices(null, null);
-        if (services == null || services.length == 0) {
-            log.warn("No se encontraron impresoras instaladas en el sistema.");
-            return null;
+    /** Estaciones en el orden en que aparecen en la venta. */
+    private Map<String, List<DetalleVenta>> agruparPorEstacion(Venta venta) {
+        Map<String, List<DetalleVenta>> porEstacion = new LinkedHashMap<>();
+        if (venta.getDetalles() == null || venta.getDetalles().isEmpty()) {
+            porEstacion.put(ESTACION_COCINA, List.of());
+            return porEstacion;
         }
 
-        String buscado = nombreParcial.toLowerCase(Locale.ROOT);
-
-        for (PrintService ps : services) {
-            String actual = ps.getName() != null ? ps.getName().toLowerCase(Locale.ROOT) : "";
-            if (actual.contains(buscado)) {
-                return ps;
-            }
+        for (DetalleVenta d : venta.getDetalles()) {
+            if (d == null || d.getProducto() == null) continue;
+            porEstacion.computeIfAbsent(estacionDe(d.getProducto()), k -> new ArrayList<>()).add(d);
         }
-
-        log.warn("No se encontró impresora cuyo nombre contenga '{}'.", nombreParcial);
-        return null;
+        return porEstacion;
     }
 
-    private void enviarAImpresora(PrintService impresora, String contenido) throws Exception {
-        byte[] bytes = contenido.getBytes(StandardCharsets.UTF_8);
-
-        DocFlavor flavor = DocFlavor.BYTE_ARRAY.AUTOSENSE;
-        DocPrintJob job = impresora.createPrintJob();
-        Doc doc = new SimpleDoc(bytes, flavor, null);
-        PrintRequestAttributeSet attrs = new HashPrintRequestAttributeSet();
+    static String estacionDe(Producto producto) {
+        String estacion = producto.getEstacion();
+        return estacion == null || estacion.isBlank()
+                ? ESTACION_COCINA
+                : estacion.trim().toUpperCase(Locale.ROOT);
+    }
 
-        job.print(doc, attrs);
+    /** Impresora de la estación; la de cocina si la estación no tiene una propia. */
+    private String impresoraDe(String estacion) {
+        AppProperties.Impresion cfg = appProperties.getImpresion();
+        String impresora = null;
+        for (Map.Entry<String, String> e : cfg.getEstaciones().entrySet()) {
+            if (e.getKey().equalsIgnoreCase(estacion)) {
+                impresora = e.getValue();
+                break;
+            }
+        }
+        if (impresora == null || impresora.isBlank()) {
+            impresora = cfg.getImpresoraCocina();
+        }
+        return impresora == null || impresora.isBlank() ? null : impresora;
     }
 
-    private String generarTextoComanda(Venta venta) {
-        StringBuilder sb = new StringBuilder();
+    /**
+     * Comanda en ESC/POS: cabecera y cantidades en negrita y doble alto para
+     * leerlas de lejos, notas debajo, y corte total al final.
+     */
+    private byte[] generarComanda(Venta venta, String estacion, List<DetalleVenta> detalles,
+                                  int parte, int totalPartes) {
+        AppProperties.Impresion cfg = appProperties.getImpresion();
+        int columnas = cfg.getAnchoTicketMm() >= 80 ? 48 : 32;
+        String separador = "-".repeat(columnas);
 
         String nombreNegocio = appProperties.getNegocio().getNombre();
         String ubicacion = venta.getUbicacion();
         String tipoCliente = venta.getTipoCliente();
         String formaPago = venta.getFormaPago();
 
-        sb.append("   *** COMANDA COCINA ***   ").append("\n");
+        EscPos p = new EscPos(EscPos.Tabla.desde(cfg.getTablaCaracteres())).inicializar();
+
+        p.alinear(EscPos.Alineacion.CENTRO)
+                .negrita(true).tamano(true, true)
+                .linea("COMANDA " + estacion)
+                .tamano(false, false).negrita(false);
         if (nombreNegocio != null && !nombreNegocio.isBlank()) {
-            sb.append(nombreNegocio.toUpperCase(Locale.ROOT)).append("\n");
+            p.linea(nombreNegocio.toUpperCase(Locale.ROOT));
         }
-        sb.append("------------------------------").append("\n");
+        p.alinear(EscPos.Alineacion.IZQUIERDA).linea(separador);
+
+        // Mesa en grande: es lo primero que busca quien despacha
+        p.negrita(true).tamano(true, false)
+                .linea("Mesa/pedido: " + (ubicacion != null ? ubicacion : "-"))
+                .tamano(false, false).negrita(false);
 
         if (venta.getFechaHora() != null) {
-            String fechaStr = venta.getFechaHora()
-                    .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-            sb.append("Fecha: ").append(fechaStr).append("\n");
+            p.linea("Fecha: " + venta.getFechaHora().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
         }
 
-        sb.append("Venta N°: ").append(venta.getId() != null ? venta.getId() : "-").append("\n");
-        sb.append("Mesa/pedido: ").append(ubicacion != null ? ubicacion : "-").append("\n");
+        p.linea("Venta N°: " + (venta.getId() != null ? venta.getId() : "-"));
+        if (totalPartes > 1) {
+            p.linea("Parte " + parte + " de " + totalPartes);
+        }
 
         if (tipoCliente != null) {
-            sb.append("Cliente: ")
-                    .append("CON_DATOS".equalsIgnoreCase(tipoCliente) ? "Con datos" : "Consumidor final")
-                    .append("\n");
+            p.linea("Cliente: " + ("CON_DATOS".equalsIgnoreCase(tipoCliente) ? "Con datos" : "Consumidor final"));
         }
 
         if (formaPago != null) {
-            sb.append("Pago: ").append(formaPago).append("\n");
+            p.linea("Pago: " + formaPago);
         }
 
-        sb.append("------------------------------").append("\n");
-        sb.append("CANT  PRODUCTO").append("\n");
-        sb.append("------------------------------").append("\n");
+        p.linea(separador)
+                .linea("CANT  PRODUCTO")
+                .linea(separador);
 
-        if (venta.getDetalles() != null && !venta.getDetalles().isEmpty()) {
-            for (DetalleVenta d : venta.getDetalles()) {
+        if (!detalles.isEmpty()) {
+            for (DetalleVenta d : detalles) {
                 if (d == null || d.getProducto() == null) continue;
 
-                int cant = d.getCantidad();
                 String nombreProd = d.getProducto().getNombre() != null
                         ? d.getProducto().getNombre()
                         : "(sin nombre)";
 
-                sb.append(String.format(Locale.ROOT, "%-4s %s", cant, nombreProd))
-                        .append("\n");
+                p.negrita(true).tamano(true, false)
+                        .texto(String.format(Locale.ROOT, "%-4s ", d.getCantidad()))
+                        .linea(nombreProd)
+                        .tamano(false, false).negrita(false);
 
                 String nota = d.getNotaCocina();
                 if (nota != null && !nota.isBlank()) {
-                    sb.append("   -> ").append(nota).append("\n");
+                    p.linea("   -> " + nota);
                 }
             }
         } else {
-            sb.append("(Sin detalles de productos)").append("\n");
+            p.linea("(Sin detalles de productos)");
         }
 
-        sb.append("------------------------------").append("\n");
-        sb.append("   FIN COMANDA COCINA   ").append("\n\n\n");
-        sb.append("\n\n\n");
-
-        return sb.toString();
+        return p.linea(separador)
+                .alinear(EscPos.Alineacion.CENTRO)
+                .linea("FIN COMANDA " + estacion)
+                .avanzar(4)
+                .cortarTotal()
+                .toBytes();
     }
 }
@@ -0,0 +1,146 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/ImpresorasService.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.print.Doc;
+import javax.print.DocFlavor;
+import javax.print.DocPrintJob;
+import javax.print.PrintException;
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import javax.print.SimpleDoc;
+import javax.print.attribute.HashPrintRequestAttributeSet;
+import javax.print.attribute.PrintRequestAttributeSet;
+import javax.print.attribute.standard.JobName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Acceso a las impresoras instaladas en el sistema operativo: búsqueda por
+ * nombre parcial y envío de bytes tal cual (comandas, tickets ESC/POS).
+ *
+ * lookupPrintServices es lento (consulta al spooler del SO), así que lo
+ * resuelto se guarda; si una impresión falla se olvida y se vuelve a buscar.
+ *
+ * Una impresora configurada como {@code tcp://host:9100} no pasa por el SO:
+ * los bytes van por socket directo al puerto RAW de la térmica.
+ */
+@Component
+public class ImpresorasService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImpresorasService.class);
+
+    private static final String PREFIJO_TCP = "tcp://";
+    private static final int PUERTO_RAW = 9100;
+
+    private final AppProperties.Impresion config;
+
+    private final Map<String, PrintService> resueltas = new ConcurrentHashMap<>();
+
+    public ImpresorasService(AppProperties appProperties) {
+        this.config = appProperties.getImpresion();
+    }
+
+    /**
+     * Imprime los bytes en la impresora indicada: por socket si es
+     * {@code tcp://host[:puerto]}, si no por el spooler del SO.
+     */
+    public void imprimir(String impresora, byte[] bytes, String nombreTrabajo) throws IOException, PrintException {
+        if (esTcp(impresora)) {
+            enviarTcp(impresora, bytes);
+            return;
+        }
+
+        PrintService ps = resolver(impresora);
+        if (ps == null) {
+            throw new PrintException("Impresora no encontrada");
+        }
+        enviar(ps, bytes, nombreTrabajo);
+    }
+
+    public static boolean esTcp(String impresora) {
+        return impresora != null && impresora.regionMatches(true, 0, PREFIJO_TCP, 0, PREFIJO_TCP.length());
+    }
+
+    /** Como {@link #buscarPorNombre}, pero recordando el resultado. */
+    public PrintService resolver(String nombreParcial) {
+        PrintService ps = resueltas.get(nombreParcial);
+        if (ps != null) return ps;
+
+        ps = buscarPorNombre(nombreParcial);
+        if (ps != null) {
+            resueltas.put(nombreParcial, ps);
+        }
+        return ps;
+    }
+
+    /** Descarta lo resuelto (la impresora falló o se reinstaló). */
+    public void olvidar(String nombreParcial) {
+        resueltas.remove(nombreParcial);
+    }
+
+    /** Primera impresora cuyo nombre contiene {@code nombreParcial}; null si no hay. */
+    public PrintService buscarPorNombre(String nombreParcial) {
+        PrintService[] services = PrintServiceLookup.lookupPrintServices(null, null);
+        if (services == null || services.length == 0) {
+            log.warn("No se encontraron impresoras instaladas en el sistema.");
+            return null;
+        }
+
+        String buscado = nombreParcial.toLowerCase(Locale.ROOT);
+
+        for (PrintService ps : services) {
+            String actual = ps.getName() != null ? ps.getName().toLowerCase(Locale.ROOT) : "";
+            if (actual.contains(buscado)) {
+                return ps;
+            }
+        }
+
+        log.warn("No se encontró impresora cuyo nombre contenga '{}'.", nombreParcial);
+        return null;
+    }
+
+    /** Manda los bytes sin conversión; el driver los pasa directo a la impresora. */
+    public void enviar(PrintService impresora, byte[] bytes, String nombreTrabajo) throws PrintException {
+        DocFlavor flavor = DocFlavor.BYTE_ARRAY.AUTOSENSE;
+        DocPrintJob job = impresora.createPrintJob();
+        Doc doc = new SimpleDoc(bytes, flavor, null);
+        PrintRequestAttributeSet attrs = new HashPrintRequestAttributeSet();
+        if (nombreTrabajo != null) {
+            attrs.add(new JobName(nombreTrabajo, Locale.ROOT));
+        }
+
+        job.print(doc, attrs);
+    }
+
+    /** Puerto RAW (JetDirect): la impresora imprime lo que llega, sin driver. */
+    private void enviarTcp(String impresora, byte[] bytes) throws IOException {
+        URI uri = URI.create(impresora.trim());
+        if (uri.getHost() == null) {
+            throw new IOException("Dirección de impresora inválida: " + impresora);
+        }
+        int puerto = uri.getPort() > 0 ? uri.getPort() : PUERTO_RAW;
+        int timeout = (int) Math.max(500, config.getTcpTimeoutMs());
+
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(uri.getHost(), puerto), timeout);
+            socket.setSoTimeout(timeout);
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            out.write(bytes);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,382 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/IndiceProductos.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.service.CatalogoProductosService.Item;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * Índice de búsqueda sobre nombre y código de una foto del catálogo.
+ *
+ * Todo se compara plegado (minúsculas, sin tildes): "chaulafan" encuentra
+ * "Chaulafán". Cada palabra buscada debe aparecer en el producto:
+ * <ul>
+ *   <li>de 3 letras o más, como subcadena: se cruzan las listas de
+ *       trigramas y se confirma con {@code contains} solo a los candidatos;</li>
+ *   <li>de 1–2 letras, como inicio de palabra: búsqueda binaria sobre las
+ *       palabras ordenadas.</li>
+ * </ul>
+ * Los resultados salen por ventas (más vendidos primero) con el orden ya
+ * calculado al armar el índice, así una búsqueda amplia no ordena nada.
+ * Es inmutable: se arma por foto del catálogo y cuando cambian las ventas.
+ */
+public final class IndiceProductos {
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("[\\s\\p{Punct}]+");
+
+    private static final int[] NINGUNO = new int[0];
+
+    /** Búsquedas con más candidatos que esto recorren el orden por ventas en vez de ordenar. */
+    private static final int CANDIDATOS_PARA_ORDENAR = 2048;
+
+    private final List<Item> items;
+    /** Nombre + código plegados, por posición de {@link #items}. */
+    private final String[] textos;
+    /** Código plegado → posición. */
+    private final Map<String, Integer> porCodigo;
+
+    // Trigramas: claves ordenadas; las posiciones de claves[i] son
+    // posiciones[inicio[i] .. inicio[i+1]), ordenadas.
+    private final int[] claves;
+    private final int[] inicio;
+    private final int[] posiciones;
+
+    /** Palabras plegadas ordenadas, con la posición del producto al lado. */
+    private final String[] palabras;
+    private final int[] palabraItem;
+
+    /** Posiciones de mejor a peor (ventas, luego nombre) y su inversa. */
+    private final int[] porRango;
+    private final int[] rango;
+
+    private IndiceProductos(IndiceProductos texto, int[] porRango, int[] rango) {
+        this.items = texto.items;
+        this.textos = texto.textos;
+        this.porCodigo = texto.porCodigo;
+        this.claves = texto.claves;
+        this.inicio = texto.inicio;
+        this.posiciones = texto.posiciones;
+        this.palabras = texto.palabras;
+        this.palabraItem = texto.palabraItem;
+        this.porRango = porRango;
+        this.rango = rango;
+    }
+
+    private IndiceProductos(List<Item> items, String[] textos, Map<String, Integer> porCodigo,
+                            int[] claves, int[] inicio, int[] posiciones,
+                            String[] palabras, int[] palabraItem) {
+        this.items = items;
+        this.textos = textos;
+        this.porCodigo = porCodigo;
+        this.claves = claves;
+        this.inicio = inicio;
+        this.posiciones = posiciones;
+        this.palabras = palabras;
+        this.palabraItem = palabraItem;
+        this.porRango = null;
+        this.rango = null;
+    }
+
+    public static IndiceProductos construir(List<Item> items, ToLongFunction<Long> vendidos) {
+        int n = items.size();
+        String[] textos = new String[n];
+        Map<String, Integer> porCodigo = new HashMap<>(n * 2);
+
+        // (clave << 32 | posición) de cada trigrama; ordenado queda agrupado por clave
+        long[] ocurrencias = new long[64];
+        int nOcurrencias = 0;
+        List<Palabra> listaPalabras = new ArrayList<>(n * 4);
+
+        for (int i = 0; i < n; i++) {
+            Item it = items.get(i);
+            String codigo = plegar(it.codigo());
+            if (!codigo.isEmpty()) porCodigo.putIfAbsent(codigo, i);
+
+            String texto = plegar(it.nombre()) + " " + codigo;
+            textos[i] = texto;
+
+            for (int k = 0; k + 3 <= texto.length(); k++) {
+                if (nOcurrencias == ocurrencias.length) {
+                    ocurrencias = Arrays.copyOf(ocurrencias, nOcurrencias * 2);
+                }
+                ocurrencias[nOcurrencias++] = ((long) clave(texto, k) << 32) | i;
+            }
+            for (String palabra : ESPACIOS.split(texto)) {
+                if (!palabra.isEmpty()) listaPalabras.add(new Palabra(palabra, i));
+            }
+        }
+
+        Arrays.sort(ocurrencias, 0, nOcurrencias);
+        int[] claves = new int[nOcurrencias];
+        int[] inicio = new int[nOcurrencias + 1];
+        int[] posiciones = new int[nOcurrencias];
+        int nClaves = 0, nPos = 0;
+        long anterior = -1;
+        for (int j = 0; j < nOcurrencias; j++) {
+            long o = ocurrencias[j];
+            if (o == anterior) continue; // mismo trigrama repetido en el mismo producto
+            int clave = (int) (o >>> 32);
+            if (nClaves == 0 || claves[nClaves - 1] != clave) {
+                claves[nClaves] = clave;
+                inicio[nClaves] = nPos;
+                nClaves++;
+            }
+            posiciones[nPos++] = (int) o;
+            anterior = o;
+        }
+        inicio[nClaves] = nPos;
+
+        listaPalabras.sort(Comparator.comparing(Palabra::texto));
+        String[] palabras = new String[listaPalabras.size()];
+        int[] palabraItem = new int[listaPalabras.size()];
+        for (int j = 0; j < palabras.length; j++) {
+            palabras[j] = listaPalabras.get(j).texto();
+            palabraItem[j] = listaPalabras.get(j).posicion();
+        }
+
+        IndiceProductos texto = new IndiceProductos(List.copyOf(items), textos, Map.copyOf(porCodigo),
+                Arrays.copyOf(claves, nClaves), Arrays.copyOf(inicio, nClaves + 1), Arrays.copyOf(posiciones, nPos),
+                palabras, palabraItem);
+        return texto.conVentas(vendidos);
+    }
+
+    /** Mismo texto indexado, con el orden por ventas recalculado. */
+    public IndiceProductos conVentas(ToLongFunction<Long> vendidos) {
+        int n = items.size();
+        long[] ventas = new long[n];
+        for (int i = 0; i < n; i++) {
+            ventas[i] = vendidos.applyAsLong(items.get(i).id());
+        }
+
+        int[] porRango = IntStream.range(0, n).boxed()
+                .sorted(Comparator.<Integer>comparingLong(i -> -ventas[i])
+                        .thenComparing(i -> nombreDe(items.get(i)), String.CASE_INSENSITIVE_ORDER))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int[] rango = new int[n];
+        for (int r = 0; r < n; r++) {
+            rango[porRango[r]] = r;
+        }
+        return new IndiceProductos(this, porRango, rango);
+    }
+
+    /** Minúsculas, sin tildes ni diéresis, espacios simples. */
+    public static String plegar(String s) {
+        if (s == null || s.isEmpty()) return "";
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+        return sinMarcas.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Productos que contienen todas las palabras de {@code consulta}, los
+     * más vendidos primero (y a igual venta, por nombre). Un código idéntico
+     * a la consulta va siempre primero. Consulta vacía: todo el catálogo.
+     */
+    public List<Item> buscar(String consulta, int limite) {
+        String plegada = plegar(consulta);
+        if (plegada.isEmpty()) {
+            return limite >= items.size() ? items : items.subList(0, limite);
+        }
+
+        String[] buscadas = Arrays.stream(ESPACIOS.split(plegada)).filter(p -> !p.isEmpty()).toArray(String[]::new);
+        if (buscadas.length == 0) return List.of();
+
+        List<Item> resultado = new ArrayList<>(Math.min(limite, 64));
+        Integer exacto = porCodigo.get(plegada);
+        if (exacto != null) {
+            resultado.add(items.get(exacto));
+        }
+
+        // Si hasta la palabra más selectiva trae muchos productos ("p", "pollo"
+        // en un minimarket), armar la lista entera cuesta más que recorrer el
+        // orden por ventas y probar cada producto hasta juntar los que hacen falta.
+        String masSelectiva = null;
+        int minimo = Integer.MAX_VALUE;
+        for (String palabra : buscadas) {
+            int estimado = palabra.length() >= 3 ? estimarSubcadena(palabra) : estimarPrefijo(palabra);
+            if (estimado < minimo) {
+                minimo = estimado;
+                masSelectiva = palabra;
+            }
+        }
+        if (minimo > CANDIDATOS_PARA_ORDENAR) {
+            for (int r = 0; r < porRango.length && resultado.size() < limite; r++) {
+                int pos = porRango[r];
+                if ((exacto == null || pos != exacto) && coincideTodo(pos, buscadas)) resultado.add(items.get(pos));
+            }
+            return resultado;
+        }
+
+        // Lista solo de la palabra más selectiva; las demás se prueban sobre esos pocos
+        int[] lista = masSelectiva.length() >= 3 ? porSubcadena(masSelectiva) : porPrefijo(masSelectiva);
+        int[] candidatos = new int[lista.length];
+        int nCandidatos = 0;
+        for (int pos : lista) {
+            if (buscadas.length == 1 || coincideTodo(pos, buscadas)) candidatos[nCandidatos++] = pos;
+        }
+        candidatos = Arrays.copyOf(candidatos, nCandidatos);
+
+        if (candidatos.length <= CANDIDATOS_PARA_ORDENAR) {
+            // Pocos: se ordenan sus rangos
+            int[] rangos = new int[candidatos.length];
+            for (int c = 0; c < candidatos.length; c++) {
+                rangos[c] = rango[candidatos[c]];
+            }
+            Arrays.sort(rangos);
+            for (int r : rangos) {
+                if (resultado.size() >= limite) break;
+                int pos = porRango[r];
+                if (exacto == null || pos != exacto) resultado.add(items.get(pos));
+            }
+        } else {
+            // Muchos: se recorre el orden por ventas hasta juntar los que hacen falta
+            BitSet marcados = new BitSet(items.size());
+            for (int pos : candidatos) {
+                marcados.set(pos);
+            }
+            for (int r = 0; r < porRango.length && resultado.size() < limite; r++) {
+                int pos = porRango[r];
+                if (marcados.get(pos) && (exacto == null || pos != exacto)) resultado.add(items.get(pos));
+            }
+        }
+        return resultado;
+    }
+
+    /** Producto con ese código exacto (plegado, como se guarda en el índice); null si no hay. */
+    public Item porCodigo(String codigo) {
+        Integer pos = porCodigo.get(plegar(codigo));
+        return pos != null ? items.get(pos) : null;
+    }
+
+    public int tamano() {
+        return items.size();
+    }
+
+    // =========================
+    // Internos
+    // =========================
+
+    private record Palabra(String texto, int posicion) {}
+
+    /**
+     * Clave de 24 bits del trigrama en {@code s[k..k+3)}. Lo que no cabe en
+     * un byte comparte clave: da candidatos de más, que {@code contains} descarta.
+     */
+    private static int clave(String s, int k) {
+        return (Math.min(s.charAt(k), 0xFF) << 16)
+                | (Math.min(s.charAt(k + 1), 0xFF) << 8)
+                | Math.min(s.charAt(k + 2), 0xFF);
+    }
+
+    private static String nombreDe(Item it) {
+        return it.nombre() != null ? it.nombre() : "";
+    }
+
+    /** Largo de la lista de trigramas más corta de la palabra (cota de candidatos). */
+    private int estimarSubcadena(String palabra) {
+        int minimo = Integer.MAX_VALUE;
+        for (int k = 0; k + 3 <= palabra.length(); k++) {
+            int i = Arrays.binarySearch(claves, clave(palabra, k));
+            minimo = Math.min(minimo, i >= 0 ? inicio[i + 1] - inicio[i] : 0);
+        }
+        return minimo;
+    }
+
+    /** Cuántas palabras empiezan por {@code prefijo}. */
+    private int estimarPrefijo(String prefijo) {
+        return primeraDesde(prefijo + Character.MAX_VALUE) - primeraDesde(prefijo);
+    }
+
+    /** ¿El producto tiene todas las palabras buscadas (subcadena o inicio de palabra)? */
+    private boolean coincideTodo(int pos, String[] buscadas) {
+        String texto = textos[pos];
+        for (String palabra : buscadas) {
+            boolean ok = palabra.length() >= 3 ? texto.contains(palabra) : empiezaPalabra(texto, palabra);
+            if (!ok) return false;
+        }
+        return true;
+    }
+
+    private static boolean empiezaPalabra(String texto, String prefijo) {
+        for (int i = texto.indexOf(prefijo); i >= 0; i = texto.indexOf(prefijo, i + 1)) {
+            if (i == 0 || !Character.isLetterOrDigit(texto.charAt(i - 1))) return true;
+        }
+        return false;
+    }
+
+    /** Índice de la primera palabra >= {@code s} (binarySearch no asegura la primera si hay repetidas). */
+    private int primeraDesde(String s) {
+        int desde = 0, hasta = palabras.length;
+        while (desde < hasta) {
+            int medio = (desde + hasta) >>> 1;
+            if (palabras[medio].compareTo(s) < 0) desde = medio + 1;
+            else hasta = medio;
+        }
+        return desde;
+    }
+
+    private int[] porSubcadena(String palabra) {
+        int[] cruce = null;
+        for (int k = 0; k + 3 <= palabra.length(); k++) {
+            int i = Arrays.binarySearch(claves, clave(palabra, k));
+            int[] lista = i >= 0 ? Arrays.copyOfRange(posiciones, inicio[i], inicio[i + 1]) : NINGUNO;
+            cruce = cruce == null ? lista : cruzar(cruce, lista);
+            if (cruce.length == 0) return NINGUNO;
+        }
+
+        // Los trigramas no garantizan el orden: se confirma con el texto
+        int[] confirmados = new int[cruce.length];
+        int n = 0;
+        for (int pos : cruce) {
+            if (textos[pos].contains(palabra)) confirmados[n++] = pos;
+        }
+        return Arrays.copyOf(confirmados, n);
+    }
+
+    private int[] porPrefijo(String prefijo) {
+        int desde = primeraDesde(prefijo);
+        int hasta = primeraDesde(prefijo + Character.MAX_VALUE);
+        int[] resultado = Arrays.copyOfRange(palabraItem, desde, hasta);
+        Arrays.sort(resultado);
+        return sinRepetidos(resultado);
+    }
+
+    /** Intersección de dos listas ordenadas. */
+    private static int[] cruzar(int[] a, int[] b) {
+        int[] r = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                r[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(r, n);
+    }
+
+    private static int[] sinRepetidos(int[] ordenado) {
+        if (ordenado.length < 2) return ordenado;
+        int n = 1;
+        for (int i = 1; i < ordenado.length; i++) {
+            if (ordenado[i] != ordenado[n - 1]) ordenado[n++] = ordenado[i];
+        }
+        return Arrays.copyOf(ordenado, n);
+    }
+}
@@ -0,0 +1,90 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/MigracionRideService.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Migración única: saca los RIDE de la columna {@code ventas.ride_pdf}
+ * (el antiguo @Lob) y los pasa al {@link AlmacenRide}.
+ *
+ * Corre al arrancar, por bloques pequeños para no cargar muchos PDF a la
+ * vez. Solo se conservan los RIDE de ventas AUTORIZADA; los demás se
+ * vuelven a dibujar bajo demanda. Al terminar se elimina la columna, así
+ * que en los arranques siguientes no hace nada.
+ */
+@Service
+public class MigracionRideService {
+
+    private static final Logger log = LoggerFactory.getLogger(MigracionRideService.class);
+
+    private static final int BLOQUE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AlmacenRide almacenRide;
+
+    public MigracionRideService(JdbcTemplate jdbcTemplate, AlmacenRide almacenRide) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.almacenRide = almacenRide;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrar() {
+        try {
+            if (!existeColumnaRidePdf()) return;
+
+            log.info("Migrando RIDE de la tabla ventas a data/ride/ ...");
+            int movidos = 0;
+            int descartados = 0;
+
+            while (true) {
+                List<Long> ids = jdbcTemplate.queryForList(
+                        "select id from ventas where ride_pdf is not null order by id limit " + BLOQUE,
+                        Long.class);
+                if (ids.isEmpty()) break;
+
+                for (Long id : ids) {
+                    byte[] pdf = jdbcTemplate.queryForObject(
+                            "select ride_pdf from ventas where id = ?", byte[].class, id);
+                    String estado = jdbcTemplate.queryForObject(
+                            "select estado_sri from ventas where id = ?", String.class, id);
+
+                    String hash = null;
+                    if (pdf != null && pdf.length > 0 && "AUTORIZADA".equalsIgnoreCase(estado)) {
+                        hash = almacenRide.guardar(pdf);
+                        movidos++;
+                    } else {
+                        descartados++;
+                    }
+
+                    jdbcTemplate.update(
+                            "update ventas set ride_hash = coalesce(ride_hash, ?), ride_pdf = null where id = ?",
+                            hash, id);
+                }
+            }
+
+            jdbcTemplate.execute("alter table ventas drop column ride_pdf");
+            log.info("Migración de RIDE terminada: {} movidos a data/ride/, {} descartados (se regeneran).",
+                    movidos, descartados);
+        } catch (Exception ex) {
+            // Si falla, la columna sigue ahí y se reintenta en el próximo arranque
+            log.error("Error migrando RIDE a data/ride/: {}", ex.getMessage(), ex);
+        }
+    }
+
+    private boolean existeColumnaRidePdf() {
+        Integer n = jdbcTemplate.queryForObject("""
+                select count(*) from information_schema.columns
+                where upper(table_name) = 'VENTAS' and upper(column_name) = 'RIDE_PDF'
+                """, Integer.class);
+        return n != null && n > 0;
+    }
+}
@@ -3,44 +3,47 @@
 // =====================================================
 package com.tecnano.factura.service;
 
-import com.tecnano.factura.config.AppProperties;
 import com.tecnano.factura.model.DetalleVenta;
 import com.tecnano.factura.model.Venta;
+import org.apache.pdfbox.io.IOUtils;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
-import org.apache.pdfbox.pdmodel.font.PDFont;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
-import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.util.Matrix;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.format.DateTimeFormatter;
-import java.util.Locale;
+
+import static com.tecnano.factura.service.PlantillaRide.*;
 
 @Service
 public class PdfFacturaService {
 
     private static final Logger log = LoggerFactory.getLogger(PdfFacturaService.class);
 
-    // Fuentes compatibles con PDFBox 3 (sin usar constantes obsoletas)
-    private static final PDFont FONT_BOLD =
-            new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
-    private static final PDFont FONT_REGULAR =
-            new PDType1Font(Standard14Fonts.FontName.HELVETICA);
-    private static final PDFont FONT_ITALIC =
-            new PDType1Font(Standard14Fonts.FontName.HELVETICA_OBLIQUE);
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    /** Más líneas que esto: los content streams van a archivo temporal. */
+    private static final int LINEAS_EN_MEMORIA = 200;
+
+    /** Por debajo de esta y se salta de página (deja sitio al pie). */
+    private static final float Y_MINIMA = 60f;
+
+    /** Línea, totales y mensaje final. */
+    private static final float ALTO_TOTALES = 75f;
 
-    private final AppProperties appProperties;
+    private final PlantillaRide plantillaRide;
 
-    public PdfFacturaService(AppProperties appProperties) {
-        this.appProperties = appProperties;
+    public PdfFacturaService(PlantillaRide plantillaRide) {
+        this.plantillaRide = plantillaRide;
     }
 
     public byte[] generarRide(Venta venta) {
@@ -49,17 +52,8 @@ public class PdfFacturaService {
             return new byte[0];
         }
 
-        try (PDDocument doc = new PDDocument();
-             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-
-            PDPage page = new PDPage(PDRectangle.A4);
-            doc.addPage(page);
-
-            try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
-                dibujarFactura(venta, content, page);
-            }
-
-            doc.save(baos);
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            escribirRide(venta, baos);
             return baos.toByteArray();
         } catch (IOException e) {
             log.error("Error generando PDF de factura para venta {}: {}", venta.getId(), e.getMessage(), e);
@@ -67,211 +61,96 @@ public class PdfFacturaService {
         }
     }
 
-    private void dibujarFactura(Venta venta, PDPageContentStream content, PDPage page) throws IOException {
-        float margin = 40f;
-        float y = page.getMediaBox().getHeight() - margin;
-
-        AppProperties.Negocio negocio = appProperties.getNegocio();
-        String nombreNegocio = negocio.getNombre();
-        String ruc = negocio.getRuc();
-        String regimen = negocio.getRegimen();
-        String direccion = negocio.getDireccion();
-        String telefono = negocio.getTelefono();
-
-        // ========= ENCABEZADO NEGOCIO =========
-        content.beginText();
-        content.setFont(FONT_BOLD, 14);
-        content.newLineAtOffset(margin, y);
-        content.showText(nombreNegocio != null ? nombreNegocio.toUpperCase(Locale.ROOT) : "MI NEGOCIO");
-        content.endText();
-        y -= 16;
-
-        content.beginText();
-        content.setFont(FONT_REGULAR, 9);
-        content.newLineAtOffset(margin, y);
-        content.showText("RUC: " + (ruc != null ? ruc : "-"));
-        content.endText();
-        y -= 12;
-
-        if (regimen != null && !regimen.isBlank()) {
-            content.beginText();
-            content.setFont(FONT_REGULAR, 8);
-            content.newLineAtOffset(margin, y);
-            content.showText(regimen);
-            content.endText();
-            y -= 10;
-        }
-
-        if (direccion != null && !direccion.isBlank()) {
-            content.beginText();
-            content.setFont(FONT_REGULAR, 8);
-            content.newLineAtOffset(margin, y);
-            content.showText(direccion);
-            content.endText();
-            y -= 10;
-        }
+    /**
+     * Dibuja el RIDE y lo escribe directo al stream.
+     *
+     * Cada página se cierra antes de abrir la siguiente; en pedidos grandes
+     * (eventos, banquetes) los content streams van a un archivo temporal en
+     * vez del heap, así la memoria no crece con el número de líneas.
+     */
+    public void escribirRide(Venta venta, OutputStream out) throws IOException {
+        int lineas = venta.getDetalles() != null ? venta.getDetalles().size() : 0;
+
+        try (PDDocument doc = lineas > LINEAS_EN_MEMORIA
+                ? new PDDocument(IOUtils.createTempFileOnlyStreamCache())
+                : new PDDocument()) {
+
+            // Encabezado del negocio y títulos de tabla ya vienen dibujados (ver PlantillaRide)
+            PlantillaRide.Formularios plantilla = plantillaRide.crearPara(doc);
+
+            try (Paginador paginas = new Paginador(doc, plantilla, venta)) {
+                dibujarFactura(venta, paginas);
+            }
+            numerarPaginas(doc);
 
-        if (telefono != null && !telefono.isBlank()) {
-            content.beginText();
-            content.setFont(FONT_REGULAR, 8);
-            content.newLineAtOffset(margin, y);
-            content.showText("Teléfono: " + telefono);
-            content.endText();
-            y -= 12;
+            doc.save(out);
         }
+    }
 
-        y -= 5;
-        drawLine(content, margin, y, page.getMediaBox().getWidth() - margin, y);
-        y -= 15;
-
-        // ========= TÍTULO FACTURA =========
-        content.beginText();
-        content.setFont(FONT_BOLD, 11);
-        content.newLineAtOffset(margin, y);
-        content.showText("FACTURA / COMPROBANTE DE VENTA");
-        content.endText();
-        y -= 16;
+    private void dibujarFactura(Venta venta, Paginador paginas) throws IOException {
+        PDPageContentStream content = paginas.content();
 
+        // ========= DATOS DEL COMPROBANTE =========
         if (venta.getFechaHora() != null) {
-            String fechaStr = venta.getFechaHora()
-                    .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-            content.beginText();
-            content.setFont(FONT_REGULAR, 9);
-            content.newLineAtOffset(margin, y);
-            content.showText("Fecha: " + fechaStr);
-            content.endText();
-            y -= 12;
+            texto(content, FONT_REGULAR, 9, MARGEN, paginas.y, "Fecha: " + venta.getFechaHora().format(FORMATO_FECHA));
+            paginas.y -= 12;
         }
 
-        content.beginText();
-        content.setFont(FONT_REGULAR, 9);
-        content.newLineAtOffset(margin, y);
-        content.showText("N° Venta: " + (venta.getId() != null ? venta.getId() : "-"));
-        content.endText();
-        y -= 12;
+        texto(content, FONT_REGULAR, 9, MARGEN, paginas.y, "N° Venta: " + (venta.getId() != null ? venta.getId() : "-"));
+        paginas.y -= 12;
 
         if (venta.getClaveAccesoSri() != null) {
-            content.beginText();
-            content.setFont(FONT_REGULAR, 8);
-            content.newLineAtOffset(margin, y);
-            content.showText("Clave Acceso SRI: " + venta.getClaveAccesoSri());
-            content.endText();
-            y -= 10;
+            texto(content, FONT_REGULAR, 8, MARGEN, paginas.y, "Clave Acceso SRI: " + venta.getClaveAccesoSri());
+            paginas.y -= 10;
         }
 
         if (venta.getNumeroAutorizacionSri() != null) {
-            content.beginText();
-            content.setFont(FONT_REGULAR, 8);
-            content.newLineAtOffset(margin, y);
-            content.showText("Autorización SRI: " + venta.getNumeroAutorizacionSri());
-            content.endText();
-            y -= 10;
+            texto(content, FONT_REGULAR, 8, MARGEN, paginas.y, "Autorización SRI: " + venta.getNumeroAutorizacionSri());
+            paginas.y -= 10;
         }
 
         if (venta.getUbicacion() != null) {
-            content.beginText();
-            content.setFont(FONT_REGULAR, 9);
-            content.newLineAtOffset(margin, y);
-            content.showText("Mesa/Pedido: " + venta.getUbicacion());
-            content.endText();
-            y -= 12;
+            texto(content, FONT_REGULAR, 9, MARGEN, paginas.y, "Mesa/Pedido: " + venta.getUbicacion());
+            paginas.y -= 12;
         }
 
         if (venta.getEstadoSri() != null) {
-            content.beginText();
-            content.setFont(FONT_REGULAR, 9);
-            content.newLineAtOffset(margin, y);
-            content.showText("Estado SRI: " + venta.getEstadoSri());
-            content.endText();
-            y -= 12;
+            texto(content, FONT_REGULAR, 9, MARGEN, paginas.y, "Estado SRI: " + venta.getEstadoSri());
+            paginas.y -= 12;
         }
 
         // ========= CLIENTE =========
         if (venta.getCliente() != null) {
-            y -= 5;
-            drawLine(content, margin, y, page.getMediaBox().getWidth() - margin, y);
-            y -= 14;
+            paginas.y -= 5;
+            linea(content, paginas.y);
+            paginas.y -= 14;
 
             var cliente = venta.getCliente();
-            content.beginText();
-            content.setFont(FONT_BOLD, 9);
-            content.newLineAtOffset(margin, y);
-            content.showText("Cliente:");
-            content.endText();
-            y -= 12;
+            texto(content, FONT_BOLD, 9, MARGEN, paginas.y, "Cliente:");
+            paginas.y -= 12;
 
             if (cliente.getNombre() != null) {
-                content.beginText();
-                content.setFont(FONT_REGULAR, 9);
-                content.newLineAtOffset(margin, y);
-                content.showText("Nombre/Razón social: " + cliente.getNombre());
-                content.endText();
-                y -= 12;
+                texto(content, FONT_REGULAR, 9, MARGEN, paginas.y, "Nombre/Razón social: " + cliente.getNombre());
+                paginas.y -= 12;
             }
 
             if (cliente.getNumeroIdentificacion() != null) {
-                content.beginText();
-                content.setFont(FONT_REGULAR, 9);
-                content.newLineAtOffset(margin, y);
-                content.showText("Documento: " + cliente.getNumeroIdentificacion());
-                content.endText();
-                y -= 12;
+                texto(content, FONT_REGULAR, 9, MARGEN, paginas.y, "Documento: " + cliente.getNumeroIdentificacion());
+                paginas.y -= 12;
             }
 
             if (cliente.getCorreo() != null) {
-                content.beginText();
-                content.setFont(FONT_REGULAR, 9);
-                content.newLineAtOffset(margin, y);
-                content.showText("Correo: " + cliente.getCorreo());
-                content.endText();
-                y -= 12;
+                texto(content, FONT_REGULAR, 9, MARGEN, paginas.y, "Correo: " + cliente.getCorreo());
+                paginas.y -= 12;
             }
         }
 
-        y -= 5;
-        drawLine(content, margin, y, page.getMediaBox().getWidth() - margin, y);
-        y -= 14;
+        paginas.y -= 5;
+        linea(content, paginas.y);
+        paginas.y -= 14;
 
         // ========= CABECERA DETALLE =========
-        float xCodigo = margin;
-        float xDescripcion = margin + 60;
-        float xCant = margin + 260;
-        float xPrecio = margin + 310;
-        float xSubtotal = margin + 370;
-
-        content.beginText();
-        content.setFont(FONT_BOLD, 8);
-        content.newLineAtOffset(xCodigo, y);
-        content.showText("COD");
-        content.endText();
-
-        content.beginText();
-        content.setFont(FONT_BOLD, 8);
-        content.newLineAtOffset(xDescripcion, y);
-        content.showText("DESCRIPCIÓN");
-        content.endText();
-
-        content.beginText();
-        content.setFont(FONT_BOLD, 8);
-        content.newLineAtOffset(xCant, y);
-        content.showText("CANT");
-        content.endText();
-
-        content.beginText();
-        content.setFont(FONT_BOLD, 8);
-        content.newLineAtOffset(xPrecio, y);
-        content.showText("P.UNIT");
-        content.endText();
-
-        content.beginText();
-        content.setFont(FONT_BOLD, 8);
-        content.newLineAtOffset(xSubtotal, y);
-        content.showText("SUBTOTAL");
-        content.endText();
-
-        y -= 10;
-        drawLine(content, margin, y, page.getMediaBox().getWidth() - margin, y);
-        y -= 10;
+        paginas.cabeceraTabla();
 
         // ========= DETALLE LÍNEA A LÍNEA =========
         if (venta.getDetalles() != null && !venta.getDetalles().isEmpty()) {
@@ -289,135 +168,146 @@ public class PdfFacturaService {
                         ? d.getPrecioUnitario()
                         : BigDecimal.ZERO;
                 BigDecimal subtotalLinea = precioUnitario.multiply(BigDecimal.valueOf(cantidad));
-
-                content.beginText();
-                content.setFont(FONT_REGULAR, 8);
-                content.newLineAtOffset(xCodigo, y);
-                content.showText(recortar(codigo, 8));
-                content.endText();
-
-                content.beginText();
-                content.setFont(FONT_REGULAR, 8);
-                content.newLineAtOffset(xDescripcion, y);
-                content.showText(recortar(nombreProd, 30));
-                content.endText();
-
-                content.beginText();
-                content.setFont(FONT_REGULAR, 8);
-                content.newLineAtOffset(xCant, y);
-                content.showText(String.valueOf(cantidad));
-                content.endText();
-
-                content.beginText();
-                content.setFont(FONT_REGULAR, 8);
-                content.newLineAtOffset(xPrecio, y);
-                content.showText(precioUnitario
-                        .setScale(2, RoundingMode.HALF_UP)
-                        .toPlainString());
-                content.endText();
-
-                content.beginText();
-                content.setFont(FONT_REGULAR, 8);
-                content.newLineAtOffset(xSubtotal, y);
-                content.showText(subtotalLinea
-                        .setScale(2, RoundingMode.HALF_UP)
-                        .toPlainString());
-                content.endText();
-
-                y -= 12;
-
-                if (d.getNotaCocina() != null && !d.getNotaCocina().isBlank()) {
-                    content.beginText();
-                    content.setFont(FONT_ITALIC, 7);
-                    content.newLineAtOffset(xDescripcion, y);
-                    content.showText("Nota: " + recortar(d.getNotaCocina(), 45));
-                    content.endText();
-                    y -= 10;
-                }
-
-                if (y < 80) {
-                    // Si se acaba la página, aquí podrías crear otra página.
-                    break;
+                boolean conNota = d.getNotaCocina() != null && !d.getNotaCocina().isBlank();
+
+                // La línea y su nota no se separan entre páginas
+                paginas.reservar(conNota ? 22 : 12, true);
+                content = paginas.content();
+
+                texto(content, FONT_REGULAR, 8, X_CODIGO, paginas.y, recortar(codigo, 8));
+                texto(content, FONT_REGULAR, 8, X_DESCRIPCION, paginas.y, recortar(nombreProd, 30));
+                texto(content, FONT_REGULAR, 8, X_CANT, paginas.y, String.valueOf(cantidad));
+                texto(content, FONT_REGULAR, 8, X_PRECIO, paginas.y, importe(precioUnitario));
+                texto(content, FONT_REGULAR, 8, X_SUBTOTAL, paginas.y, importe(subtotalLinea));
+                paginas.y -= 12;
+
+                if (conNota) {
+                    texto(content, FONT_ITALIC, 7, X_DESCRIPCION, paginas.y, "Nota: " + recortar(d.getNotaCocina(), 45));
+                    paginas.y -= 10;
                 }
             }
         } else {
-            content.beginText();
-            content.setFont(FONT_REGULAR, 8);
-            content.newLineAtOffset(margin, y);
-            content.showText("(Sin detalles de productos)");
-            content.endText();
-            y -= 12;
+            texto(content, FONT_REGULAR, 8, MARGEN, paginas.y, "(Sin detalles de productos)");
+            paginas.y -= 12;
         }
 
-        y -= 5;
-        drawLine(content, margin, y, page.getMediaBox().getWidth() - margin, y);
-        y -= 14;
+        // Totales y mensaje final siempre juntos
+        paginas.reservar(ALTO_TOTALES, false);
+        content = paginas.content();
+
+        paginas.y -= 5;
+        linea(content, paginas.y);
+        paginas.y -= 14;
 
         // ========= TOTALES =========
-        BigDecimal subtotal = venta.getSubtotal();
-        BigDecimal iva = venta.getIva();
-        BigDecimal total = venta.getTotal();
-
-        float xLabel = margin + 260;
-        float xValue = margin + 370;
-
-        content.beginText();
-        content.setFont(FONT_REGULAR, 9);
-        content.newLineAtOffset(xLabel, y);
-        content.showText("Subtotal:");
-        content.endText();
-
-        content.beginText();
-        content.setFont(FONT_REGULAR, 9);
-        content.newLineAtOffset(xValue, y);
-        content.showText(subtotal
-                .setScale(2, RoundingMode.HALF_UP)
-                .toPlainString());
-        content.endText();
-        y -= 12;
-
-        content.beginText();
-        content.setFont(FONT_REGULAR, 9);
-        content.newLineAtOffset(xLabel, y);
-        content.showText("IVA:");
-        content.endText();
-
-        content.beginText();
-        content.setFont(FONT_REGULAR, 9);
-        content.newLineAtOffset(xValue, y);
-        content.showText(iva
-                .setScale(2, RoundingMode.HALF_UP)
-                .toPlainString());
-        content.endText();
-        y -= 12;
-
-        content.beginText();
-        content.setFont(FONT_BOLD, 10);
-        content.newLineAtOffset(xLabel, y);
-        content.showText("TOTAL:");
-        content.endText();
-
-        content.beginText();
-        content.setFont(FONT_BOLD, 10);
-        content.newLineAtOffset(xValue, y);
-        content.showText(total
-                .setScale(2, RoundingMode.HALF_UP)
-                .toPlainString());
-        content.endText();
-        y -= 18;
+        float xLabel = MARGEN + 260;
+        float xValue = MARGEN + 370;
+
+        texto(content, FONT_REGULAR, 9, xLabel, paginas.y, "Subtotal:");
+        texto(content, FONT_REGULAR, 9, xValue, paginas.y, importe(venta.getSubtotal()));
+        paginas.y -= 12;
+
+        texto(content, FONT_REGULAR, 9, xLabel, paginas.y, "IVA:");
+        texto(content, FONT_REGULAR, 9, xValue, paginas.y, importe(venta.getIva()));
+        paginas.y -= 12;
+
+        texto(content, FONT_BOLD, 10, xLabel, paginas.y, "TOTAL:");
+        texto(content, FONT_BOLD, 10, xValue, paginas.y, importe(venta.getTotal()));
+        paginas.y -= 18;
 
         // ========= MENSAJE FINAL =========
-        content.beginText();
-        content.setFont(FONT_ITALIC, 8);
-        content.newLineAtOffset(margin, y);
-        content.showText("¡Gracias por su compra!");
-        content.endText();
+        texto(content, FONT_ITALIC, 8, MARGEN, paginas.y, "¡Gracias por su compra!");
+    }
+
+    /** "Página i de n" al pie; solo si el RIDE ocupó más de una página. */
+    private void numerarPaginas(PDDocument doc) throws IOException {
+        int total = doc.getNumberOfPages();
+        if (total < 2) return;
+
+        int i = 1;
+        for (PDPage page : doc.getPages()) {
+            try (PDPageContentStream pie = new PDPageContentStream(
+                    doc, page, PDPageContentStream.AppendMode.APPEND, true, true)) {
+                texto(pie, FONT_REGULAR, 7, PAGINA.getWidth() - MARGEN - 60, MARGEN - 15,
+                        "Página " + i + " de " + total);
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Lleva la página actual y el cursor y. Al saltar de página cierra el
+     * content stream anterior, así solo hay uno abierto a la vez.
+     */
+    private static final class Paginador implements Closeable {
+
+        private final PDDocument doc;
+        private final PlantillaRide.Formularios plantilla;
+        private final Venta venta;
+
+        private PDPageContentStream content;
+        float y;
+
+        Paginador(PDDocument doc, PlantillaRide.Formularios plantilla, Venta venta) throws IOException {
+            this.doc = doc;
+            this.plantilla = plantilla;
+            this.venta = venta;
+            nuevaPagina();
+        }
+
+        PDPageContentStream content() {
+            return content;
+        }
+
+        /**
+         * Asegura {@code alto} puntos libres; si no caben, pasa a una página
+         * nueva (con la cabecera de tabla si seguimos dentro del detalle).
+         */
+        void reservar(float alto, boolean enDetalle) throws IOException {
+            if (y - alto >= Y_MINIMA) return;
+
+            nuevaPagina();
+            texto(content, FONT_REGULAR, 9, MARGEN, y,
+                    "N° Venta: " + (venta.getId() != null ? venta.getId() : "-") + " (continuación)");
+            y -= 12;
+            y -= 5;
+            linea(content, y);
+            y -= 14;
+            if (enDetalle) {
+                cabeceraTabla();
+            }
+        }
+
+        void cabeceraTabla() throws IOException {
+            content.saveGraphicsState();
+            content.transform(Matrix.getTranslateInstance(0, y));
+            content.drawForm(plantilla.cabeceraTabla());
+            content.restoreGraphicsState();
+            y -= ALTO_CABECERA_TABLA;
+        }
+
+        private void nuevaPagina() throws IOException {
+            close();
+            PDPage page = new PDPage(PAGINA);
+            doc.addPage(page);
+            content = new PDPageContentStream(doc, page);
+            content.drawForm(plantilla.encabezado());
+            y = plantilla.yTrasEncabezado();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (content != null) {
+                content.close();
+                content = null;
+            }
+        }
     }
 
-    private void drawLine(PDPageContentStream content, float x1, float y1, float x2, float y2) throws IOException {
-        content.moveTo(x1, y1);
-        content.lineTo(x2, y2);
-        content.stroke();
+    private String importe(BigDecimal valor) {
+        return (valor != null ? valor : BigDecimal.ZERO)
+                .setScale(2, RoundingMode.HALF_UP)
+                .toPlainString();
     }
 
     private String recortar(String texto, int max) {
@@ -0,0 +1,257 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/PlantillaRide.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Partes fijas del RIDE, dibujadas una sola vez como form XObject:
+ *
+ *   - encabezado: datos del negocio, línea y título (coordenadas de página A4)
+ *   - cabeceraTabla: títulos de columnas del detalle y su línea (origen en la
+ *     línea base de los títulos; se dibuja trasladada a la y que toque)
+ *
+ * Se guarda el content stream ya comprimido; por cada PDF solo se crea un
+ * COSStream con esos bytes, sin volver a generar los operadores. Se regenera
+ * cuando cambia {@link AppProperties.Negocio}.
+ */
+@Component
+public class PlantillaRide {
+
+    private static final Logger log = LoggerFactory.getLogger(PlantillaRide.class);
+
+    // Fuentes compatibles con PDFBox 3 (sin usar constantes obsoletas)
+    static final PDFont FONT_BOLD = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+    static final PDFont FONT_REGULAR = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+    static final PDFont FONT_ITALIC = new PDType1Font(Standard14Fonts.FontName.HELVETICA_OBLIQUE);
+
+    static final PDRectangle PAGINA = PDRectangle.A4;
+    static final float MARGEN = 40f;
+
+    // Columnas del detalle
+    static final float X_CODIGO = MARGEN;
+    static final float X_DESCRIPCION = MARGEN + 60;
+    static final float X_CANT = MARGEN + 260;
+    static final float X_PRECIO = MARGEN + 310;
+    static final float X_SUBTOTAL = MARGEN + 370;
+
+    /** Alto que ocupa la cabecera de tabla (títulos + línea + aire). */
+    static final float ALTO_CABECERA_TABLA = 20f;
+
+    private final AppProperties appProperties;
+
+    private volatile Plantilla plantilla;
+
+    public PlantillaRide(AppProperties appProperties) {
+        this.appProperties = appProperties;
+    }
+
+    /** Forms listos para un documento nuevo. */
+    public Formularios crearPara(PDDocument doc) throws IOException {
+        Plantilla p = obtener();
+        return new Formularios(
+                p.encabezado().crearEn(doc),
+                p.cabeceraTabla().crearEn(doc),
+                p.yTrasEncabezado()
+        );
+    }
+
+    /**
+     * Forms de la plantilla ya registrados en un documento.
+     * {@code yTrasEncabezado}: primera y libre debajo del encabezado.
+     */
+    public record Formularios(PDFormXObject encabezado, PDFormXObject cabeceraTabla, float yTrasEncabezado) {}
+
+    // =========================
+    // Caché
+    // =========================
+
+    private Plantilla obtener() {
+        DatosNegocio datos = DatosNegocio.desde(appProperties.getNegocio());
+        Plantilla actual = plantilla;
+        if (actual != null && actual.datos().equals(datos)) {
+            return actual;
+        }
+
+        synchronized (this) {
+            actual = plantilla;
+            if (actual != null && actual.datos().equals(datos)) {
+                return actual;
+            }
+            try {
+                Plantilla nueva = construir(datos);
+                plantilla = nueva;
+                log.info("Plantilla RIDE regenerada para {}", datos.nombre());
+                return nueva;
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo preparar la plantilla del RIDE", e);
+            }
+        }
+    }
+
+    private record DatosNegocio(String nombre, String ruc, String regimen, String direccion, String telefono) {
+        static DatosNegocio desde(AppProperties.Negocio n) {
+            return new DatosNegocio(n.getNombre(), n.getRuc(), n.getRegimen(), n.getDireccion(), n.getTelefono());
+        }
+    }
+
+    private record Plantilla(DatosNegocio datos, FormCacheado encabezado, FormCacheado cabeceraTabla,
+                             float yTrasEncabezado) {}
+
+    /** Content stream comprimido (FlateDecode) + recursos de un form. */
+    private record FormCacheado(byte[] contenido, PDRectangle bbox, Map<COSName, PDFont> fuentes) {
+
+        PDFormXObject crearEn(PDDocument doc) throws IOException {
+            PDFormXObject form = new PDFormXObject(doc);
+            COSStream stream = form.getCOSObject();
+            try (OutputStream out = stream.createRawOutputStream()) {
+                out.write(contenido);
+            }
+            stream.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+            form.setBBox(bbox);
+
+            PDResources res = new PDResources();
+            fuentes.forEach(res::put);
+            form.setResources(res);
+            return form;
+        }
+    }
+
+    // =========================
+    // Dibujo de la plantilla
+    // =========================
+
+    private Plantilla construir(DatosNegocio n) throws IOException {
+        float[] yFinal = new float[1];
+
+        FormCacheado encabezado = renderizar(new PDRectangle(PAGINA.getWidth(), PAGINA.getHeight()), cs -> {
+            float y = PAGINA.getHeight() - MARGEN;
+
+            texto(cs, FONT_BOLD, 14, MARGEN, y,
+                    n.nombre() != null ? n.nombre().toUpperCase(Locale.ROOT) : "MI NEGOCIO");
+            y -= 16;
+
+            texto(cs, FONT_REGULAR, 9, MARGEN, y, "RUC: " + (n.ruc() != null ? n.ruc() : "-"));
+            y -= 12;
+
+            if (n.regimen() != null && !n.regimen().isBlank()) {
+                texto(cs, FONT_REGULAR, 8, MARGEN, y, n.regimen());
+                y -= 10;
+            }
+            if (n.direccion() != null && !n.direccion().isBlank()) {
+                texto(cs, FONT_REGULAR, 8, MARGEN, y, n.direccion());
+                y -= 10;
+            }
+            if (n.telefono() != null && !n.telefono().isBlank()) {
+                texto(cs, FONT_REGULAR, 8, MARGEN, y, "Teléfono: " + n.telefono());
+                y -= 12;
+            }
+
+            y -= 5;
+            linea(cs, y);
+            y -= 15;
+
+            texto(cs, FONT_BOLD, 11, MARGEN, y, "FACTURA / COMPROBANTE DE VENTA");
+            y -= 16;
+
+            yFinal[0] = y;
+        });
+
+        FormCacheado cabeceraTabla = renderizar(
+                new PDRectangle(0, -ALTO_CABECERA_TABLA, PAGINA.getWidth(), ALTO_CABECERA_TABLA + 10), cs -> {
+                    texto(cs, FONT_BOLD, 8, X_CODIGO, 0, "COD");
+                    texto(cs, FONT_BOLD, 8, X_DESCRIPCION, 0, "DESCRIPCIÓN");
+                    texto(cs, FONT_BOLD, 8, X_CANT, 0, "CANT");
+                    texto(cs, FONT_BOLD, 8, X_PRECIO, 0, "P.UNIT");
+                    texto(cs, FONT_BOLD, 8, X_SUBTOTAL, 0, "SUBTOTAL");
+                    linea(cs, -10);
+                });
+
+        return new Plantilla(n, encabezado, cabeceraTabla, yFinal[0]);
+    }
+
+    private interface Dibujo {
+        void dibujar(PDPageContentStream cs) throws IOException;
+    }
+
+    /**
+     * Se dibuja en una página borrador con las mismas utilidades que el resto
+     * del RIDE; de ahí se toman los operadores y las fuentes para el form.
+     */
+    private static FormCacheado renderizar(PDRectangle bbox, Dibujo dibujo) throws IOException {
+        try (PDDocument borrador = new PDDocument()) {
+            PDPage pagina = new PDPage(PAGINA);
+            pagina.setResources(new PDResources());
+            borrador.addPage(pagina);
+
+            try (PDPageContentStream cs = new PDPageContentStream(borrador, pagina)) {
+                dibujo.dibujar(cs);
+            }
+
+            byte[] operadores;
+            try (InputStream in = pagina.getContents()) {
+                operadores = in.readAllBytes();
+            }
+
+            Map<COSName, PDFont> fuentes = new LinkedHashMap<>();
+            PDResources res = pagina.getResources();
+            for (COSName nombre : res.getFontNames()) {
+                fuentes.put(nombre, res.getFont(nombre));
+            }
+
+            return new FormCacheado(comprimir(operadores), bbox, fuentes);
+        }
+    }
+
+    private static byte[] comprimir(byte[] datos) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(datos.length / 2 + 64);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(baos)) {
+            out.write(datos);
+        }
+        return baos.toByteArray();
+    }
+
+    // =========================
+    // Utilidades de dibujo (también las usa PdfFacturaService)
+    // =========================
+
+    static void texto(PDPageContentStream cs, PDFont font, float size, float x, float y, String s)
+            throws IOException {
+        cs.beginText();
+        cs.setFont(font, size);
+        cs.newLineAtOffset(x, y);
+        cs.showText(s != null ? s : "");
+        cs.endText();
+    }
+
+    static void linea(PDPageContentStream cs, float y) throws IOException {
+        cs.moveTo(MARGEN, y);
+        cs.lineTo(PAGINA.getWidth() - MARGEN, y);
+        cs.stroke();
+    }
+}
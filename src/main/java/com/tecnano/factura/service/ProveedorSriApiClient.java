@@ -7,14 +7,23 @@ import com.tecnano.factura.config.AppProperties;
 import com.tecnano.factura.model.Venta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -22,12 +31,45 @@ public class ProveedorSriApiClient {
 
     private static final Logger log = LoggerFactory.getLogger(ProveedorSriApiClient.class);
 
+    /** Estados del proveedor que significan que el comprobante no pasará tal como está. */
+    private static final Set<String> ESTADOS_RECHAZO =
+            Set.of("DEVUELTA", "RECHAZADA", "NO AUTORIZADO", "NO_AUTORIZADO");
+
+    private static final String MSG_CIRCUITO_ABIERTO =
+            "Proveedor SRI no disponible (circuito abierto); se reintentará más tarde.";
+
     private final AppProperties appProperties;
+    private final CircuitoProveedorSri circuito;
     private final RestTemplate restTemplate;
 
-    public ProveedorSriApiClient(AppProperties appProperties) {
+    @Autowired
+    public ProveedorSriApiClient(AppProperties appProperties,
+                                 CircuitoProveedorSri circuito) {
+        this(appProperties, circuito, new RestTemplate(crearRequestFactory(appProperties.getSri())));
+    }
+
+    /** Para pruebas: permite enganchar un MockRestServiceServer al RestTemplate. */
+    ProveedorSriApiClient(AppProperties appProperties,
+                          CircuitoProveedorSri circuito,
+                          RestTemplate restTemplate) {
         this.appProperties = appProperties;
-        this.restTemplate = new RestTemplate();
+        this.circuito = circuito;
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Cliente HTTP del JDK: mantiene un pool de conexiones keep-alive por host,
+     * así los envíos seguidos no pagan un handshake TLS cada vez.
+     */
+    private static JdkClientHttpRequestFactory crearRequestFactory(AppProperties.Sri sri) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(Math.max(1, sri.getConnectTimeoutMs())))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(Math.max(1, sri.getReadTimeoutMs())));
+        return factory;
     }
 
     public ResultadoEnvio enviarFactura(Venta venta, byte[] xmlFirmado, byte[] pdfRide) {
@@ -52,6 +94,11 @@ public class ProveedorSriApiClient {
             return ResultadoEnvio.error(msg);
         }
 
+        if (!circuito.permitirLlamada()) {
+            log.info("Circuito SRI abierto; venta {} queda PENDIENTE sin llamar al proveedor.", venta.getId());
+            return ResultadoEnvio.pendiente(MSG_CIRCUITO_ABIERTO);
+        }
+
         try {
             String url = baseUrl.endsWith("/")
                     ? baseUrl + "facturas"
@@ -72,41 +119,204 @@ public class ProveedorSriApiClient {
             if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
                 String msg = "Respuesta no exitosa del proveedor SRI: " + response.getStatusCode();
                 log.error(msg);
+                circuito.registrarFalla(msg);
                 return ResultadoEnvio.error(msg);
             }
 
+            circuito.registrarExito();
             ProveedorResponse pr = response.getBody();
             log.info("Respuesta del proveedor SRI para venta {}: estado={} mensaje={}",
                     venta.getId(), pr.estado(), pr.mensaje());
 
-            String estadoSri = pr.estado();
-            String mensajeError = null;
-            if (!"AUTORIZADA".equalsIgnoreCase(estadoSri)) {
-                mensajeError = pr.mensaje();
-            }
+            return aResultado(pr.estado(), pr.mensaje(), pr.claveAcceso(),
+                    pr.numeroAutorizacion(), pr.ridePdfBase64());
 
-            byte[] rideBytes = null;
-            if (pr.ridePdfBase64() != null && !pr.ridePdfBase64().isBlank()) {
-                rideBytes = Base64.getDecoder().decode(pr.ridePdfBase64());
+        } catch (HttpClientErrorException ex) {
+            log.error("Proveedor SRI respondió {} para venta {}", ex.getStatusCode(), venta.getId());
+            if (esRechazoDefinitivo(ex)) {
+                // El proveedor respondió: está vivo aunque no le guste la factura.
+                circuito.registrarExito();
+                return ResultadoEnvio.rechazo("El proveedor SRI rechazó la factura (" + ex.getStatusCode() + "): "
+                        + ex.getResponseBodyAsString());
             }
-
-            return new ResultadoEnvio(
-                    estadoSri,
-                    mensajeError,
-                    pr.claveAcceso(),
-                    pr.numeroAutorizacion(),
-                    rideBytes
-            );
-
+            String msg = "El proveedor SRI respondió " + ex.getStatusCode() + ": " + ex.getResponseBodyAsString();
+            circuito.registrarFalla(msg);
+            return ResultadoEnvio.error(msg);
         } catch (Exception ex) {
             String msg = "Error llamando al proveedor SRI: " + ex.getMessage();
+            circuito.registrarFalla(msg);
             log.error("Error llamando al proveedor SRI para venta {}: {}", venta.getId(), ex.getMessage(), ex);
             return ResultadoEnvio.error(msg);
         }
     }
 
+    /**
+     * Envía varias facturas en un solo request a {@code /facturas/lote}.
+     * Devuelve el resultado de cada venta indexado por su id; si el request
+     * completo falla, todas las ventas del lote quedan con el mismo error.
+     */
+    public Map<Long, ResultadoEnvio> enviarLote(List<SolicitudEnvio> solicitudes) {
+        Map<Long, ResultadoEnvio> resultados = new HashMap<>();
+        if (solicitudes == null || solicitudes.isEmpty()) {
+            return resultados;
+        }
+
+        boolean simular = appProperties.getSri().isSimular();
+        if (simular) {
+            log.info("Simulando envío a SRI de un lote de {} venta(s) (tecnano.sri.simular = true)",
+                    solicitudes.size());
+            for (SolicitudEnvio s : solicitudes) {
+                resultados.put(s.venta().getId(), simularEnvio(s.venta(), s.xmlFirmado(), s.pdfRide()));
+            }
+            return resultados;
+        }
+
+        String baseUrl = appProperties.getSri().getProveedorBaseUrl();
+        String token = appProperties.getSri().getProveedorToken();
+
+        String errorConfig = null;
+        if (baseUrl == null || baseUrl.isBlank()) {
+            errorConfig = "No se ha configurado tecnano.sri.proveedor-base-url";
+        } else if (token == null || token.isBlank()) {
+            errorConfig = "No se ha configurado tecnano.sri.proveedor-token";
+        }
+        if (errorConfig != null) {
+            log.error(errorConfig);
+            return errorParaTodas(solicitudes, errorConfig);
+        }
+
+        if (!circuito.permitirLlamada()) {
+            log.info("Circuito SRI abierto; lote de {} venta(s) queda PENDIENTE.", solicitudes.size());
+            for (SolicitudEnvio s : solicitudes) {
+                resultados.put(s.venta().getId(), ResultadoEnvio.pendiente(MSG_CIRCUITO_ABIERTO));
+            }
+            return resultados;
+        }
+
+        try {
+            String url = baseUrl.endsWith("/")
+                    ? baseUrl + "facturas/lote"
+                    : baseUrl + "/facturas/lote";
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setBearerAuth(token);
+
+            List<Map<String, Object>> facturas = new ArrayList<>(solicitudes.size());
+            for (SolicitudEnvio s : solicitudes) {
+                facturas.add(construirBodyGenerico(s.venta(), s.xmlFirmado(), s.pdfRide()));
+            }
+            Map<String, Object> body = new HashMap<>();
+            body.put("facturas", facturas);
+
+            HttpEntity<Map<String, Object>> request = new HttpEntity<>(body, headers);
+            log.info("Enviando lote de {} factura(s) al proveedor SRI en {}", solicitudes.size(), url);
+
+            ResponseEntity<ProveedorLoteResponse> response =
+                    restTemplate.postForEntity(url, request, ProveedorLoteResponse.class);
+
+            if (!response.getStatusCode().is2xxSuccessful()
+                    || response.getBody() == null
+                    || response.getBody().resultados() == null) {
+                String msg = "Respuesta no exitosa del proveedor SRI (lote): " + response.getStatusCode();
+                log.error(msg);
+                circuito.registrarFalla(msg);
+                return errorParaTodas(solicitudes, msg);
+            }
+
+            circuito.registrarExito();
+
+            for (ProveedorLoteItem item : response.getBody().resultados()) {
+                if (item == null || item.numeroInterno() == null) continue;
+                resultados.put(item.numeroInterno(), aResultado(item.estado(), item.mensaje(),
+                        item.claveAcceso(), item.numeroAutorizacion(), item.ridePdfBase64()));
+            }
+
+            log.info("Lote SRI procesado: {} de {} venta(s) con resultado del proveedor.",
+                    resultados.size(), solicitudes.size());
+            return resultados;
+
+        } catch (HttpClientErrorException ex) {
+            String msg = "El proveedor SRI rechazó el lote (" + ex.getStatusCode() + "): "
+                    + ex.getResponseBodyAsString();
+            log.error(msg);
+            if (esRechazoDefinitivo(ex)) {
+                circuito.registrarExito();
+            } else {
+                circuito.registrarFalla(msg);
+            }
+            // Un 4xx sobre el lote entero no dice qué factura está mal: se reintentan todas.
+            return errorParaTodas(solicitudes, msg);
+        } catch (Exception ex) {
+            String msg = "Error llamando al proveedor SRI (lote): " + ex.getMessage();
+            circuito.registrarFalla(msg);
+            log.error(msg, ex);
+            return errorParaTodas(solicitudes, msg);
+        }
+    }
+
+    /**
+     * Solo es rechazo definitivo lo que el proveedor dice que está mal en el
+     * comprobante: 400/422, o un cuerpo con estado DEVUELTA / NO AUTORIZADO.
+     * El resto de 4xx (URL mal escrita o ruta cambiada 404/405, 409, 415,
+     * credenciales, límite de tasa...) no dice nada de la factura y se reintenta.
+     */
+    private boolean esRechazoDefinitivo(HttpClientErrorException ex) {
+        int status = ex.getStatusCode().value();
+        if (status == 400 || status == 422) {
+            return true;
+        }
+        try {
+            ProveedorResponse pr = ex.getResponseBodyAs(ProveedorResponse.class);
+            return pr != null && pr.estado() != null
+                    && ESTADOS_RECHAZO.contains(pr.estado().trim().toUpperCase(Locale.ROOT));
+        } catch (Exception noEsJson) {
+            return false;
+        }
+    }
+
+    private Map<Long, ResultadoEnvio> errorParaTodas(List<SolicitudEnvio> solicitudes, String mensaje) {
+        Map<Long, ResultadoEnvio> resultados = new HashMap<>();
+        for (SolicitudEnvio s : solicitudes) {
+            resultados.put(s.venta().getId(), ResultadoEnvio.error(mensaje));
+        }
+        return resultados;
+    }
+
+    private ResultadoEnvio aResultado(String estadoSri,
+                                      String mensaje,
+                                      String claveAcceso,
+                                      String numeroAutorizacion,
+                                      String ridePdfBase64) {
+        String mensajeError = null;
+        if (!"AUTORIZADA".equalsIgnoreCase(estadoSri)) {
+            mensajeError = mensaje;
+        }
+
+        if (estadoSri != null && ESTADOS_RECHAZO.contains(estadoSri.trim().toUpperCase(Locale.ROOT))) {
+            return ResultadoEnvio.rechazo(
+                    "Rechazada por el SRI (" + estadoSri + "): " + (mensaje != null ? mensaje : "sin detalle"));
+        }
+
+        byte[] rideBytes = null;
+        if (ridePdfBase64 != null && !ridePdfBase64.isBlank()) {
+            rideBytes = Base64.getDecoder().decode(ridePdfBase64);
+        }
+
+        return new ResultadoEnvio(
+                estadoSri,
+                mensajeError,
+                claveAcceso,
+                numeroAutorizacion,
+                rideBytes
+        );
+    }
+
     private ResultadoEnvio simularEnvio(Venta venta, byte[] xmlFirmado, byte[] pdfRide) {
-        String claveAccesoFake = "SIM-" + (venta.getId() != null ? venta.getId() : "0");
+        // La clave ya se calculó en local (ver GeneradorXmlFacturaSri)
+        String claveAccesoFake = venta.getClaveAccesoSri() != null
+                ? venta.getClaveAccesoSri()
+                : "SIM-" + (venta.getId() != null ? venta.getId() : "0");
         String numeroAutoFake = "AUTO-" + UUID.randomUUID();
 
         return new ResultadoEnvio(
@@ -131,6 +341,7 @@ public class ProveedorSriApiClient {
         }
 
         body.put("numeroInterno", venta.getId());
+        body.put("claveAcceso", venta.getClaveAccesoSri());
         body.put("formaPago", venta.getFormaPago());
         body.put("tipoCliente", venta.getTipoCliente());
         body.put("ubicacion", venta.getUbicacion());
@@ -168,10 +379,25 @@ public class ProveedorSriApiClient {
             this.ridePdf = ridePdf;
         }
 
+        /** Falla transitoria (red, proveedor caído, config): se puede reintentar. */
         public static ResultadoEnvio error(String mensaje) {
             return new ResultadoEnvio("ERROR", mensaje, null, null, null);
         }
 
+        /** No se llamó al proveedor (p. ej. circuito abierto): queda en cola. */
+        public static ResultadoEnvio pendiente(String mensaje) {
+            return new ResultadoEnvio("PENDIENTE", mensaje, null, null, null);
+        }
+
+        /** Rechazo definitivo del comprobante: reintentar no lo arregla. */
+        public static ResultadoEnvio rechazo(String mensaje) {
+            return new ResultadoEnvio("RECHAZADA", mensaje, null, null, null);
+        }
+
+        public boolean isRechazoDefinitivo() {
+            return "RECHAZADA".equals(estadoSri);
+        }
+
         public String getEstadoSri() { return estadoSri; }
         public String getMensajeError() { return mensajeError; }
         public String getClaveAccesoSri() { return claveAccesoSri; }
@@ -179,6 +405,26 @@ public class ProveedorSriApiClient {
         public byte[] getRidePdf() { return ridePdf; }
     }
 
+    /** Una factura dentro de un envío por lote. */
+    public record SolicitudEnvio(
+            Venta venta,
+            byte[] xmlFirmado,
+            byte[] pdfRide
+    ) {}
+
+    public record ProveedorLoteResponse(
+            List<ProveedorLoteItem> resultados
+    ) {}
+
+    public record ProveedorLoteItem(
+            Long numeroInterno,
+            String estado,
+            String mensaje,
+            String claveAcceso,
+            String numeroAutorizacion,
+            String ridePdfBase64
+    ) {}
+
     public record ProveedorResponse(
             String estado,
             String mensaje,
@@ -0,0 +1,210 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/RideService.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import com.tecnano.factura.model.Venta;
+import com.tecnano.factura.repository.VentaRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RIDE (PDF) bajo demanda.
+ *
+ * El cobro y el envío al SRI ya no generan el PDF: se dibuja la primera vez
+ * que alguien lo pide (GET /api/ventas/{id}/ride). Si la venta está
+ * AUTORIZADA se guarda en el {@link AlmacenRide} y la venta queda con su
+ * hash; antes de eso el RIDE aún cambia (clave, autorización), así que solo
+ * vive en un caché LRU en memoria acotado por bytes.
+ *
+ * Con {@code tecnano.sri.ridePrecalentar = true} el PDF de cada venta
+ * autorizada se prepara en segundo plano, con un hilo de baja prioridad.
+ */
+@Service
+public class RideService {
+
+    private static final Logger log = LoggerFactory.getLogger(RideService.class);
+
+    private final VentaRepository ventaRepository;
+    private final PdfFacturaService pdfFacturaService;
+    private final AlmacenRide almacenRide;
+    private final AppProperties.Sri sriConfig;
+
+    /** LRU por orden de acceso; el tope es en bytes, no en cantidad. */
+    private final LinkedHashMap<Long, byte[]> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytesEnCache = 0;
+
+    private final ExecutorService precalentador;
+
+    public RideService(VentaRepository ventaRepository,
+                       PdfFacturaService pdfFacturaService,
+                       AlmacenRide almacenRide,
+                       AppProperties appProperties) {
+        this.ventaRepository = ventaRepository;
+        this.pdfFacturaService = pdfFacturaService;
+        this.almacenRide = almacenRide;
+        this.sriConfig = appProperties.getSri();
+
+        this.precalentador = new ThreadPoolExecutor(
+                1, 1,
+                0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(1000),
+                r -> {
+                    Thread t = new Thread(r, "ride-precalentar");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                },
+                new ThreadPoolExecutor.DiscardPolicy()
+        );
+    }
+
+    /**
+     * RIDE ya guardado en disco ({@code archivo}) o recién dibujado y aún no
+     * definitivo ({@code contenido}). Exactamente uno de los dos no es null.
+     */
+    public record Ride(Path archivo, byte[] contenido) {}
+
+    /**
+     * RIDE de la venta: caché, luego almacén, y si no existe se dibuja.
+     * Vacío si la venta no existe.
+     */
+    public Optional<Ride> obtenerRide(Long ventaId) {
+        if (ventaId == null) return Optional.empty();
+
+        byte[] enCache = desdeCache(ventaId);
+        if (enCache != null) {
+            return Optional.of(new Ride(null, enCache));
+        }
+
+        List<Venta> encontradas = ventaRepository.findByIdIn(List.of(ventaId));
+        if (encontradas.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(resolver(encontradas.get(0), true));
+    }
+
+    /**
+     * RIDE de una venta ya cargada (con detalles), sin pasar por el caché en
+     * memoria: para exportaciones masivas que no deben desplazar lo reciente.
+     */
+    public Ride obtenerRideSinCache(Venta venta) {
+        return resolver(venta, false);
+    }
+
+    /** Escribe el RIDE al stream; si está en disco va directo con transferTo. */
+    public void escribir(Ride ride, OutputStream out) throws IOException {
+        if (ride.archivo() != null) {
+            almacenRide.copiarA(ride.archivo(), out);
+        } else {
+            out.write(ride.contenido());
+        }
+    }
+
+    public long tamano(Ride ride) throws IOException {
+        return ride.archivo() != null ? Files.size(ride.archivo()) : ride.contenido().length;
+    }
+
+    /** Descarta el RIDE en caché (la venta cambió de estado SRI). */
+    public void invalidar(Long ventaId) {
+        if (ventaId == null) return;
+        synchronized (cache) {
+            byte[] previo = cache.remove(ventaId);
+            if (previo != null) bytesEnCache -= previo.length;
+        }
+    }
+
+    /** Tras autorizar: invalida y, si está activado, genera el RIDE en segundo plano. */
+    public void ventaAutorizada(Long ventaId) {
+        invalidar(ventaId);
+        if (!sriConfig.isRidePrecalentar() || ventaId == null) return;
+
+        precalentador.execute(() -> {
+            try {
+                obtenerRide(ventaId);
+            } catch (Exception ex) {
+                log.warn("No se pudo precalentar el RIDE de la venta {}: {}", ventaId, ex.getMessage());
+            }
+        });
+    }
+
+    public long getBytesEnCache() {
+        synchronized (cache) {
+            return bytesEnCache;
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        precalentador.shutdownNow();
+    }
+
+    // =========================
+    // Internos
+    // =========================
+
+    private Ride resolver(Venta venta, boolean cachear) {
+        Optional<Path> guardado = almacenRide.buscar(venta.getRideHash());
+        if (guardado.isPresent()) {
+            return new Ride(guardado.get(), null);
+        }
+
+        byte[] pdf = pdfFacturaService.generarRide(venta);
+        if (pdf.length == 0) {
+            return new Ride(null, pdf); // falló el dibujo: ya quedó en el log, no se cachea
+        }
+
+        if ("AUTORIZADA".equalsIgnoreCase(venta.getEstadoSri())) {
+            String hash = almacenRide.guardar(pdf);
+            ventaRepository.actualizarRideHash(venta.getId(), hash);
+            Optional<Path> archivo = almacenRide.buscar(hash);
+            if (archivo.isPresent()) {
+                return new Ride(archivo.get(), null);
+            }
+        }
+        if (cachear) {
+            guardarEnCache(venta.getId(), pdf);
+        }
+        return new Ride(null, pdf);
+    }
+
+    private byte[] desdeCache(Long ventaId) {
+        synchronized (cache) {
+            return cache.get(ventaId);
+        }
+    }
+
+    private void guardarEnCache(Long ventaId, byte[] pdf) {
+        long maximo = Math.max(0, sriConfig.getRideCacheMaxBytes());
+        if (pdf.length > maximo) return;
+
+        synchronized (cache) {
+            byte[] previo = cache.put(ventaId, pdf);
+            bytesEnCache += pdf.length - (previo != null ? previo.length : 0);
+
+            Iterator<Map.Entry<Long, byte[]>> it = cache.entrySet().iterator();
+            while (bytesEnCache > maximo && it.hasNext()) {
+                Map.Entry<Long, byte[]> masViejo = it.next();
+                bytesEnCache -= masViejo.getValue().length;
+                it.remove();
+            }
+        }
+    }
+}
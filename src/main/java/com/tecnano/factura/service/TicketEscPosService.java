@@ -0,0 +1,192 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/service/TicketEscPosService.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import com.tecnano.factura.model.DetalleVenta;
+import com.tecnano.factura.model.Venta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+import static com.tecnano.factura.service.FormatoTicket.*;
+
+/**
+ * Ticket del cliente en ESC/POS para térmicas de 58/80 mm.
+ *
+ * Sigue el mismo contenido y orden que TicketView (negocio, datos de la
+ * venta, cliente, detalle, totales), más el QR de la clave de acceso. Se
+ * encola para {@code tecnano.impresion.impresoraTicket} (ver
+ * ColaImpresionService), sin pasar por el diálogo de impresión del navegador.
+ */
+@Service
+public class TicketEscPosService {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketEscPosService.class);
+
+    /** Ancho de las columnas Cant y Sub, como en TicketView. */
+    private static final int ANCHO_CANT = 5;
+    private static final int ANCHO_SUB = 10;
+
+    private final AppProperties appProperties;
+    private final ColaImpresionService colaImpresion;
+
+    public TicketEscPosService(AppProperties appProperties,
+                               ColaImpresionService colaImpresion) {
+        this.appProperties = appProperties;
+        this.colaImpresion = colaImpresion;
+    }
+
+    /** ¿Hay térmica de caja configurada? */
+    public boolean impresoraConfigurada() {
+        String nombre = appProperties.getImpresion().getImpresoraTicket();
+        return nombre != null && !nombre.isBlank();
+    }
+
+    /**
+     * Deja el ticket en la cola de la térmica de caja.
+     *
+     * @throws IllegalStateException si no hay impresora configurada o su cola está llena
+     */
+    public void imprimirTicket(Venta venta) {
+        if (!impresoraConfigurada()) {
+            throw new IllegalStateException("No hay impresora de tickets configurada.");
+        }
+
+        String nombre = appProperties.getImpresion().getImpresoraTicket();
+        byte[] bytes = generarTicket(venta, appProperties.getImpresion().getAnchoTicketMm());
+        if (!colaImpresion.encolar(nombre, "Ticket venta " + venta.getId(), bytes)) {
+            throw new IllegalStateException("La impresora de tickets '" + nombre + "' tiene la cola llena.");
+        }
+        log.info("Ticket de venta {} en cola de '{}' ({} bytes)", venta.getId(), nombre, bytes.length);
+    }
+
+    /** Bytes ESC/POS del ticket; {@code anchoMm} 58 → 32 columnas, 80 → 48. */
+    public byte[] generarTicket(Venta venta, int anchoMm) {
+        int columnas = anchoMm >= 80 ? 48 : 32;
+        String separador = "-".repeat(columnas);
+
+        EscPos p = new EscPos(EscPos.Tabla.desde(appProperties.getImpresion().getTablaCaracteres())).inicializar();
+
+        // ========= NEGOCIO =========
+        AppProperties.Negocio neg = appProperties.getNegocio();
+        p.alinear(EscPos.Alineacion.CENTRO)
+                .negrita(true).tamano(true, false)
+                .linea(safe(neg.getNombre()))
+                .tamano(false, false).negrita(false)
+                .linea("RUC: " + safe(neg.getRuc()));
+        if (neg.getRegimen() != null && !neg.getRegimen().isBlank()) {
+            p.linea(neg.getRegimen());
+        }
+        p.linea("Dir: " + safe(neg.getDireccion()))
+                .linea("Tel: " + safe(neg.getTelefono()))
+                .alinear(EscPos.Alineacion.IZQUIERDA)
+                .linea(separador);
+
+        // ========= VENTA =========
+        p.linea("Venta N°: " + venta.getId())
+                .linea("Fecha: " + fechaHora(venta))
+                .linea("Mesa/Pedido: " + ubicacion(venta))
+                .linea("Pago: " + safe(venta.getFormaPago()))
+                .linea(separador);
+
+        // ========= CLIENTE =========
+        if (venta.getCliente() != null) {
+            var c = venta.getCliente();
+            p.negrita(true).linea("Cliente").negrita(false);
+            envolver(p, "Nombre: " + safe(c.getNombre()), columnas, "");
+            p.linea("Doc: " + safe(c.getNumeroIdentificacion()));
+            envolver(p, "Correo: " + safe(c.getCorreo()), columnas, "");
+            p.linea(separador);
+        }
+
+        // ========= DETALLE =========
+        int anchoDesc = columnas - ANCHO_CANT - ANCHO_SUB;
+        p.negrita(true)
+                .linea("Detalle")
+                .linea(izq("Cant", ANCHO_CANT) + izq("Descripción", anchoDesc) + der("Sub", ANCHO_SUB))
+                .negrita(false)
+                .linea(separador);
+
+        if (venta.getDetalles() != null && !venta.getDetalles().isEmpty()) {
+            for (DetalleVenta d : venta.getDetalles()) {
+                if (d == null || d.getProducto() == null) continue;
+
+                int cant = d.getCantidad();
+                String nombre = Objects.toString(d.getProducto().getNombre(), "(sin nombre)");
+                BigDecimal precioUnit = d.getPrecioUnitario() != null ? d.getPrecioUnitario() : BigDecimal.ZERO;
+                BigDecimal subtotal = precioUnit.multiply(BigDecimal.valueOf(cant));
+
+                // Primera línea con cantidad y subtotal; el resto del nombre debajo
+                String primera = nombre.length() > anchoDesc - 1 ? nombre.substring(0, anchoDesc - 1) : nombre;
+                p.linea(izq(String.valueOf(cant), ANCHO_CANT) + izq(primera, anchoDesc) + der(importe(subtotal), ANCHO_SUB));
+                if (nombre.length() > primera.length()) {
+                    envolver(p, nombre.substring(primera.length()).strip(), columnas - ANCHO_SUB, " ".repeat(ANCHO_CANT));
+                }
+
+                if (d.getNotaCocina() != null && !d.getNotaCocina().isBlank()) {
+                    envolver(p, "Nota: " + d.getNotaCocina(), columnas, " ".repeat(ANCHO_CANT));
+                }
+            }
+        } else {
+            p.linea("(Sin detalle de productos)");
+        }
+
+        // ========= TOTALES =========
+        p.linea(separador)
+                .linea(total("Subtotal:", venta.getSubtotal(), columnas))
+                .linea(total("IVA:", venta.getIva(), columnas))
+                .negrita(true).tamano(true, false)
+                .linea(total("TOTAL:", venta.getTotal(), columnas))
+                .tamano(false, false).negrita(false)
+                .linea(separador);
+
+        // ========= CLAVE DE ACCESO =========
+        String clave = venta.getClaveAccesoSri();
+        if (clave != null && !clave.isBlank()) {
+            p.alinear(EscPos.Alineacion.CENTRO)
+                    .qr(clave, columnas >= 48 ? 5 : 4)
+                    .linea("Clave de acceso:");
+            envolver(p, clave, columnas, "");
+            p.alinear(EscPos.Alineacion.IZQUIERDA).linea(separador);
+        }
+
+        p.alinear(EscPos.Alineacion.CENTRO)
+                .linea("¡Gracias por su compra!")
+                .avanzar(3)
+                .cortar();
+
+        return p.toBytes();
+    }
+
+    // =========================
+    // Utilidades de columnas
+    // =========================
+
+    private static String total(String label, BigDecimal valor, int columnas) {
+        String v = importe(valor);
+        return izq(label, columnas - v.length()) + v;
+    }
+
+    /** Parte {@code texto} en líneas de {@code columnas}, con sangría en cada una. */
+    private static void envolver(EscPos p, String texto, int columnas, String sangria) {
+        int ancho = Math.max(1, columnas - sangria.length());
+        for (int i = 0; i < texto.length(); i += ancho) {
+            p.linea(sangria + texto.substring(i, Math.min(texto.length(), i + ancho)));
+        }
+    }
+
+    private static String izq(String s, int ancho) {
+        if (s.length() >= ancho) return s.substring(0, ancho);
+        return s + " ".repeat(ancho - s.length());
+    }
+
+    private static String der(String s, int ancho) {
+        if (s.length() >= ancho) return s.substring(s.length() - ancho);
+        return " ".repeat(ancho - s.length()) + s;
+    }
+}
@@ -3,36 +3,56 @@
 // =====================================================
 package com.tecnano.factura.service;
 
+import com.tecnano.factura.dto.LineaCocinaDTO;
+import com.tecnano.factura.dto.OrdenCocinaDTO;
 import com.tecnano.factura.model.Cliente;
 import com.tecnano.factura.model.DetalleVenta;
 import com.tecnano.factura.model.Producto;
 import com.tecnano.factura.model.Venta;
 import com.tecnano.factura.repository.ProductoRepository;
 import com.tecnano.factura.repository.VentaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class VentaService {
 
+    private static final Logger log = LoggerFactory.getLogger(VentaService.class);
+
+    /** Estados que se ven en la pantalla de cocina (ENTREGADA ya no). */
+    private static final List<String> ESTADOS_COCINA_ACTIVOS = List.of("NUEVO", "EN_PREPARACION", "LISTA");
+
     private final VentaRepository ventaRepository;
     private final ProductoRepository productoRepository;
-    private final SriService sriService;
+    private final EnvioSriService envioSriService;
+    private final EventosVentaService eventosVenta;
+    private final GeneradorXmlFacturaSri generadorXml;
 
     public VentaService(VentaRepository ventaRepository,
                         ProductoRepository productoRepository,
-                        SriService sriService) {
+                        EnvioSriService envioSriService,
+                        EventosVentaService eventosVenta,
+                        GeneradorXmlFacturaSri generadorXml) {
         this.ventaRepository = ventaRepository;
         this.productoRepository = productoRepository;
-        this.sriService = sriService;
+        this.envioSriService = envioSriService;
+        this.eventosVenta = eventosVenta;
+        this.generadorXml = generadorXml;
     }
 
     @Transactional
@@ -51,6 +71,7 @@ public class VentaService {
         venta.setFormaPago(formaPago != null ? formaPago : "Efectivo");
         venta.setUbicacion(ubicacion);
         venta.setTipoCliente(tipoCliente != null ? tipoCliente : "FINAL");
+        venta.setEstadoCocina("NUEVO");
 
         if (cliente != null) {
             venta.setCliente(cliente);
@@ -111,9 +132,27 @@ public class VentaService {
         venta.setEstadoSri("PENDIENTE");
         venta.setDetalles(detalles);
 
-        sriService.procesarVentaConSri(venta);
+        Venta guardada = ventaRepository.save(venta);
 
-        return ventaRepository.save(venta);
+        // La clave de acceso sale ya con la venta (el secuencial es el id) y
+        // queda guardada en esta misma transacción: el ticket de caja lleva el
+        // QR y el envío al SRI usa esa misma clave, no genera otra.
+        generadorXml.asegurarClaveAcceso(guardada);
+
+        // El envío al SRI va en segundo plano, después del commit:
+        // la caja no espera al proveedor.
+        envioSriService.encolarTrasCommit(guardada.getId());
+        eventosVenta.publicarTrasCommit(new EventosVentaService.VentaCreada(guardada.getId()));
+
+        return guardada;
+    }
+
+    /** Cambia el estado en cocina y avisa a las pantallas abiertas. */
+    @Transactional
+    public void cambiarEstadoCocina(Long ventaId, String estadoCocina) {
+        if (ventaRepository.actualizarEstadoCocina(ventaId, estadoCocina) > 0) {
+            eventosVenta.publicarTrasCommit(new EventosVentaService.EstadoCocinaCambiado(ventaId, estadoCocina));
+        }
     }
 
     @Transactional
@@ -137,6 +176,43 @@ public class VentaService {
         return ventaRepository.findByEstadoCocinaInOrderByFechaHoraAsc(estados);
     }
 
+    /**
+     * Órdenes activas de cocina de {@code dia} en adelante, con sus líneas:
+     * dos consultas sobre columnas sueltas, sin cargar entidades.
+     */
+    @Transactional(readOnly = true)
+    public List<OrdenCocinaDTO> listarOrdenesCocina(LocalDate dia) {
+        List<OrdenCocinaDTO> ordenes = ventaRepository.findOrdenesCocina(ESTADOS_COCINA_ACTIVOS, dia.atStartOfDay());
+        if (ordenes.isEmpty()) return ordenes;
+
+        Map<Long, List<LineaCocinaDTO>> lineas = ventaRepository
+                .findLineasCocina(ordenes.stream().map(OrdenCocinaDTO::ventaId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(LineaCocinaDTO::ventaId));
+
+        return ordenes.stream()
+                .map(o -> o.conLineas(lineas.getOrDefault(o.ventaId(), List.of())))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<OrdenCocinaDTO> buscarOrdenCocina(Long ventaId) {
+        return ventaRepository.findOrdenCocina(ventaId)
+                .map(o -> o.conLineas(ventaRepository.findLineasCocina(List.of(ventaId))));
+    }
+
+    /**
+     * Ventas registradas antes de guardar el estado NUEVO al vender; así la
+     * consulta de cocina filtra solo por el índice, sin "or is null".
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void normalizarEstadoCocina() {
+        int n = ventaRepository.normalizarEstadoCocinaNulo();
+        if (n > 0) {
+            log.info("Estado de cocina NUEVO asignado a {} venta(s) antiguas", n);
+        }
+    }
+
     @Transactional(readOnly = true)
     public List<Venta> listarPendientesSri() {
         return ventaRepository.findByEstadoSri("PENDIENTE");
@@ -5,12 +5,15 @@ package com.tecnano.factura.views.admin;
 
 import com.tecnano.factura.config.AppProperties;
 import com.tecnano.factura.service.BackupService;
+import com.tecnano.factura.service.CircuitoProveedorSri;
 import com.tecnano.factura.ui.Notificaciones;
 import com.tecnano.factura.views.MainLayout;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.checkbox.Checkbox;
+import com.vaadin.flow.component.datepicker.DatePicker;
 import com.vaadin.flow.component.dependency.CssImport;
+import com.vaadin.flow.component.html.Anchor;
 import com.vaadin.flow.component.html.H1;
 import com.vaadin.flow.component.html.H3;
 import com.vaadin.flow.component.html.Span;
@@ -26,6 +29,9 @@ import jakarta.annotation.security.RolesAllowed;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeFormatter;
 
 @Route(value = "admin-tools", layout = MainLayout.class)
 @PageTitle("Admin tools")
@@ -36,6 +42,7 @@ public class AdminToolsView extends VerticalLayout {
 
     private final AppProperties appProperties;
     private final BackupService backupService;
+    private final CircuitoProveedorSri circuitoSri;
 
     private final TextField nombreNegocio = new TextField("Nombre del negocio");
     private final TextField rucNegocio = new TextField("RUC");
@@ -47,12 +54,21 @@ public class AdminToolsView extends VerticalLayout {
     private final TextField sriBaseUrl = new TextField("Proveedor base URL");
     private final PasswordField sriToken = new PasswordField("Proveedor token/API key");
 
+    private final Span estadoCircuito = new Span();
+    private final Span detalleCircuito = new Span();
+
     private final TextField usbPathField = new TextField("Ruta USB (opcional)");
 
+    private final DatePicker rideDesde = new DatePicker("Desde");
+    private final DatePicker rideHasta = new DatePicker("Hasta");
+    private final Anchor descargarRides = new Anchor();
+
     public AdminToolsView(AppProperties appProperties,
-                          BackupService backupService) {
+                          BackupService backupService,
+                          CircuitoProveedorSri circuitoSri) {
         this.appProperties = appProperties;
         this.backupService = backupService;
+        this.circuitoSri = circuitoSri;
 
         setSizeFull();
         setPadding(true);
@@ -76,6 +92,7 @@ public class AdminToolsView extends VerticalLayout {
         VerticalLayout cardNegocio = crearCardNegocio();
         VerticalLayout cardSri = crearCardSri();
         VerticalLayout cardBackup = crearCardBackup();
+        VerticalLayout cardRides = crearCardExportarRides();
 
         HorizontalLayout fila1 = new HorizontalLayout(cardNegocio, cardSri);
         fila1.setWidthFull();
@@ -83,7 +100,13 @@ public class AdminToolsView extends VerticalLayout {
         fila1.setAlignItems(Alignment.START);
         fila1.setFlexGrow(1, cardNegocio, cardSri);
 
-        add(header, fila1, cardBackup);
+        HorizontalLayout fila2 = new HorizontalLayout(cardBackup, cardRides);
+        fila2.setWidthFull();
+        fila2.setSpacing(true);
+        fila2.setAlignItems(Alignment.START);
+        fila2.setFlexGrow(1, cardBackup, cardRides);
+
+        add(header, fila1, fila2);
     }
 
     private VerticalLayout crearCardNegocio() {
@@ -168,11 +191,55 @@ public class AdminToolsView extends VerticalLayout {
         acciones.setJustifyContentMode(FlexComponent.JustifyContentMode.END);
         acciones.setWidthFull();
 
-        layout.add(titulo, sriSimular, sriBaseUrl, sriToken, ayuda, acciones);
+        // --- Estado del proveedor (circuit breaker) ---
+        estadoCircuito.getStyle().set("font-weight", "600");
+        detalleCircuito.getStyle()
+                .set("font-size", "0.8rem")
+                .set("color", "var(--lumo-secondary-text-color)");
+        actualizarEstadoCircuito();
+
+        Button refrescarCircuito = new Button("Refrescar", e -> actualizarEstadoCircuito());
+        refrescarCircuito.addThemeVariants(ButtonVariant.LUMO_TERTIARY);
+
+        Button reiniciarCircuito = new Button("Reiniciar circuito", e -> {
+            circuitoSri.reiniciar();
+            actualizarEstadoCircuito();
+            Notificaciones.info("Circuito del proveedor SRI reiniciado.");
+        });
+        reiniciarCircuito.addThemeVariants(ButtonVariant.LUMO_CONTRAST);
+
+        HorizontalLayout filaCircuito = new HorizontalLayout(estadoCircuito, refrescarCircuito, reiniciarCircuito);
+        filaCircuito.setAlignItems(Alignment.BASELINE);
+        filaCircuito.setSpacing(true);
+
+        layout.add(titulo, sriSimular, sriBaseUrl, sriToken, ayuda, acciones, filaCircuito, detalleCircuito);
 
         return layout;
     }
 
+    private void actualizarEstadoCircuito() {
+        CircuitoProveedorSri.Estado estado = circuitoSri.getEstado();
+        estadoCircuito.setText("Proveedor SRI: " + switch (estado) {
+            case CERRADO -> "disponible";
+            case ABIERTO -> "NO disponible (circuito abierto)";
+            case SEMI_ABIERTO -> "probando conexión";
+        });
+        estadoCircuito.getStyle().set("color", estado == CircuitoProveedorSri.Estado.CERRADO
+                ? "var(--lumo-success-text-color)"
+                : "var(--lumo-error-text-color)");
+
+        StringBuilder detalle = new StringBuilder("Fallas seguidas: " + circuitoSri.getFallasSeguidas());
+        if (estado == CircuitoProveedorSri.Estado.ABIERTO && circuitoSri.getAbiertoHasta() != null) {
+            detalle.append(" · Reintenta a las ").append(circuitoSri.getAbiertoHasta()
+                    .atZone(ZoneId.systemDefault())
+                    .format(DateTimeFormatter.ofPattern("HH:mm:ss")));
+        }
+        if (circuitoSri.getUltimaFalla() != null) {
+            detalle.append(" · Última falla: ").append(circuitoSri.getUltimaFalla());
+        }
+        detalleCircuito.setText(detalle.toString());
+    }
+
     private void cargarValoresSri() {
         AppProperties.Sri s = appProperties.getSri();
         sriSimular.setValue(s.isSimular());
@@ -192,7 +259,7 @@ public class AdminToolsView extends VerticalLayout {
     private VerticalLayout crearCardBackup() {
         VerticalLayout layout = new VerticalLayout();
         layout.addClassName("card-blanca");
-        layout.setWidthFull();
+        layout.setWidth("100%");
         layout.setPadding(true);
         layout.setSpacing(true);
 
@@ -221,6 +288,60 @@ public class AdminToolsView extends VerticalLayout {
         return layout;
     }
 
+    private VerticalLayout crearCardExportarRides() {
+        VerticalLayout layout = new VerticalLayout();
+        layout.addClassName("card-blanca");
+        layout.setWidthFull();
+        layout.setPadding(true);
+        layout.setSpacing(true);
+
+        H3 titulo = new H3("RIDE para contabilidad");
+        titulo.getStyle().set("margin-top", "0").set("margin-bottom", "0.5rem");
+
+        Span desc = new Span("Descarga en un ZIP los RIDE (PDF) de las ventas autorizadas del rango. "
+                + "Los que aún no existen se generan durante la descarga.");
+        desc.getStyle()
+                .set("font-size", "0.85rem")
+                .set("color", "var(--lumo-secondary-text-color)");
+
+        // Por defecto: el mes anterior completo
+        LocalDate inicioMes = LocalDate.now().withDayOfMonth(1);
+        rideDesde.setValue(inicioMes.minusMonths(1));
+        rideHasta.setValue(inicioMes.minusDays(1));
+        rideDesde.addValueChangeListener(e -> actualizarEnlaceRides());
+        rideHasta.addValueChangeListener(e -> actualizarEnlaceRides());
+
+        Button descargarBtn = new Button("Descargar ZIP");
+        descargarBtn.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
+        descargarRides.add(descargarBtn);
+        // Descarga directa del endpoint, sin pasar por el router de Vaadin
+        descargarRides.getElement().setAttribute("router-ignore", true);
+        descargarRides.getElement().setAttribute("download", true);
+        actualizarEnlaceRides();
+
+        HorizontalLayout fila = new HorizontalLayout(rideDesde, rideHasta, descargarRides);
+        fila.setAlignItems(Alignment.END);
+        fila.setSpacing(true);
+
+        layout.add(titulo, desc, fila);
+        return layout;
+    }
+
+    private void actualizarEnlaceRides() {
+        LocalDate desde = rideDesde.getValue();
+        LocalDate hasta = rideHasta.getValue();
+        boolean valido = desde != null && hasta != null
+                && !hasta.isBefore(desde)
+                && ChronoUnit.DAYS.between(desde, hasta) < 366;
+
+        if (valido) {
+            descargarRides.setHref("api/ventas/rides.zip?desde=" + desde + "&hasta=" + hasta);
+        } else {
+            descargarRides.removeHref();
+        }
+        descargarRides.setEnabled(valido);
+    }
+
     private void probarBackupLocal() {
         try {
             var destino = backupService.crearBackupLocal(LocalDate.now());
@@ -1,13 +1,17 @@
 package com.tecnano.factura.views.caja;
 
 import com.tecnano.factura.model.Cliente;
-import com.tecnano.factura.model.Producto;
 import com.tecnano.factura.model.Venta;
-import com.tecnano.factura.repository.ProductoRepository;
 import com.tecnano.factura.repository.VentaRepository;
+import com.tecnano.factura.service.CatalogoProductosService;
+import com.tecnano.factura.service.CatalogoProductosService.Item;
+import com.tecnano.factura.service.ColaImpresionService;
 import com.tecnano.factura.service.ImpresionCocinaService;
+import com.tecnano.factura.service.TicketEscPosService;
 import com.tecnano.factura.service.VentaService;
+import com.tecnano.factura.ui.Notificaciones;
 import com.tecnano.factura.views.MainLayout;
+import com.vaadin.flow.component.ClientCallable;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
@@ -25,8 +29,12 @@ import com.vaadin.flow.component.select.Select;
 import com.vaadin.flow.component.textfield.NumberField;
 import com.vaadin.flow.component.textfield.TextArea;
 import com.vaadin.flow.component.textfield.TextField;
+import com.vaadin.flow.component.virtuallist.VirtualList;
+import com.vaadin.flow.data.provider.DataProvider;
+import com.vaadin.flow.data.renderer.LitRenderer;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.shared.Registration;
 import jakarta.annotation.security.PermitAll;
 
 import java.math.BigDecimal;
@@ -42,18 +50,26 @@ import java.util.Optional;
 @PermitAll
 public class CajaView extends VerticalLayout {
 
+    /** Lector de barras: menos caracteres que esto no se toma como código. */
+    private static final int LARGO_MINIMO_CODIGO = 3;
+    /** Lector sin Enter al final: el código se cierra tras esta pausa. */
+    private static final int PAUSA_FIN_CODIGO_MS = 80;
+
     // === Dependencias ===
-    private final ProductoRepository productoRepository;
+    private final CatalogoProductosService catalogoProductos;
     private final VentaService ventaService;
     private final VentaRepository ventaRepository;
     private final ImpresionCocinaService impresionCocinaService;
+    private final TicketEscPosService ticketEscPosService;
+    private final ColaImpresionService colaImpresion;
 
     // === Estado UI / Datos en memoria ===
     private final List<LineaUI> lineas = new ArrayList<>();
 
     // === Componentes UI ===
     private final Grid<LineaUI> detalleGrid = new Grid<>(LineaUI.class, false);
-    private final VerticalLayout platosLayout = new VerticalLayout();
+    private final VirtualList<Item> platosLista = new VirtualList<>();
+    private final Span platosVacio = new Span("No se encontraron platos.");
     private final TextField filtroPlatos = new TextField();
 
     private final Select<String> formaPago = new Select<>();
@@ -73,16 +89,33 @@ public class CajaView extends VerticalLayout {
 
     private final Button cobrarBtn = new Button("Cobrar");
     private final Button limpiarBtn = new Button("Limpiar");
+    private final Button impresorasBtn = new Button("Impresoras", VaadinIcon.PRINT.create());
+    private final Button escanerBtn = new Button("Escáner", VaadinIcon.BARCODE.create());
+    private Registration pollRegistration;
+    /** Intervalo de poll que tenía la UI antes de abrir esta vista (es de toda la UI, no solo nuestro). */
+    private int pollAnterior = -1;
+
+    /** Versión del catálogo con la que se filtró la lista de platos. */
+    private long versionCatalogo = -1;
+
+    /** Resultado del último filtro; la lista pide de a páginas sobre esto. */
+    private List<Item> platosFiltrados = List.of();
+
+    private boolean modoEscaner;
 
     // === Constructor ===
-    public CajaView(ProductoRepository productoRepository,
+    public CajaView(CatalogoProductosService catalogoProductos,
                     VentaService ventaService,
                     VentaRepository ventaRepository,
-                    ImpresionCocinaService impresionCocinaService) {
-        this.productoRepository = productoRepository;
+                    ImpresionCocinaService impresionCocinaService,
+                    TicketEscPosService ticketEscPosService,
+                    ColaImpresionService colaImpresion) {
+        this.catalogoProductos = catalogoProductos;
         this.ventaService = ventaService;
         this.ventaRepository = ventaRepository;
         this.impresionCocinaService = impresionCocinaService;
+        this.ticketEscPosService = ticketEscPosService;
+        this.colaImpresion = colaImpresion;
 
         setSizeFull();
         setPadding(true);
@@ -92,6 +125,27 @@ public class CajaView extends VerticalLayout {
         configurarEventos();
         actualizarEstadoDelDia();
         actualizarEstadoBotonCobrar();
+
+        // Aviso de impresoras con falla sin que el cajero tenga que abrir nada
+        addAttachListener(e -> {
+            instalarLectorCodigos();
+            pollAnterior = e.getUI().getPollInterval();
+            e.getUI().setPollInterval(pollAnterior > 0 ? Math.min(pollAnterior, 5000) : 5000);
+            pollRegistration = e.getUI().addPollListener(p -> {
+                actualizarAvisoImpresoras();
+                // Si alguien editó productos, se ve sin salir de la caja
+                if (catalogoProductos.actual().version() != versionCatalogo) {
+                    filtrarPlatos();
+                }
+            });
+        });
+        addDetachListener(e -> {
+            if (pollRegistration != null) {
+                pollRegistration.remove();
+                pollRegistration = null;
+            }
+            e.getUI().setPollInterval(pollAnterior);
+        });
     }
 
     // =========================
@@ -144,7 +198,14 @@ public class CajaView extends VerticalLayout {
         HorizontalLayout totalDiaLayout = new HorizontalLayout(totalDiaLabel, totalDiaSpan);
         totalDiaLayout.setAlignItems(FlexComponent.Alignment.BASELINE);
 
-        HorizontalLayout top = new HorizontalLayout(ubicacionField, totalDiaLayout);
+        impresorasBtn.addThemeVariants(ButtonVariant.LUMO_TERTIARY);
+        impresorasBtn.addClickListener(e -> abrirPanelImpresoras());
+        actualizarAvisoImpresoras();
+
+        HorizontalLayout derecha = new HorizontalLayout(impresorasBtn, totalDiaLayout);
+        derecha.setAlignItems(FlexComponent.Alignment.BASELINE);
+
+        HorizontalLayout top = new HorizontalLayout(ubicacionField, derecha);
         top.setAlignItems(FlexComponent.Alignment.END);
         top.setWidthFull();
         top.setJustifyContentMode(FlexComponent.JustifyContentMode.BETWEEN);
@@ -164,15 +225,42 @@ public class CajaView extends VerticalLayout {
         filtroPlatos.setPrefixComponent(VaadinIcon.SEARCH.create());
         filtroPlatos.addValueChangeListener(e -> filtrarPlatos());
 
-        // Contenedor de botones de platos
-        platosLayout.setPadding(false);
-        platosLayout.setSpacing(true);
-        platosLayout.addClassName("platos-list");
+        escanerBtn.addThemeVariants(ButtonVariant.LUMO_CONTRAST);
+        escanerBtn.setTooltipText("Leer productos con el lector de códigos de barras");
+        escanerBtn.addClickListener(e -> cambiarModoEscaner(!modoEscaner));
+
+        HorizontalLayout buscador = new HorizontalLayout(filtroPlatos, escanerBtn);
+        buscador.setWidthFull();
+        buscador.setSpacing(true);
+        buscador.setFlexGrow(1, filtroPlatos);
+
+        // Lista de platos: solo existen en el navegador las filas visibles
+        platosLista.addClassName("platos-list");
+        platosLista.setWidthFull();
+        platosLista.setHeight("480px");
+        platosLista.setRenderer(LitRenderer.<Item>of(
+                        "<vaadin-button class=\"plato-boton\" @click=${agregar}>${item.texto}</vaadin-button>")
+                .withProperty("texto", this::textoPlato)
+                .withFunction("agregar", p -> {
+                    agregarOIncrementarLinea(p);
+                    refrescarDespuesDeCambioDeLineas();
+                }));
+        platosLista.setDataProvider(DataProvider.fromCallbacks(
+                q -> {
+                    List<Item> l = platosFiltrados;
+                    int desde = Math.min(q.getOffset(), l.size());
+                    return l.subList(desde, Math.min(l.size(), desde + q.getLimit())).stream();
+                },
+                q -> platosFiltrados.size()));
+
+        platosVacio.getStyle()
+                .set("font-size", "0.85rem")
+                .set("color", "var(--lumo-secondary-text-color)");
 
         // Carga inicial sin filtro
         cargarCatalogoPlatos(null);
 
-        VerticalLayout columnaIzquierda = new VerticalLayout(platosTitulo, filtroPlatos, platosLayout);
+        VerticalLayout columnaIzquierda = new VerticalLayout(platosTitulo, buscador, platosVacio, platosLista);
         columnaIzquierda.setPadding(false);
         columnaIzquierda.setSpacing(true);
         columnaIzquierda.setWidth("340px");
@@ -263,9 +351,9 @@ public class CajaView extends VerticalLayout {
     }
 
     private void configurarGridDetalle() {
-        detalleGrid.addColumn(l -> l.getProducto().getCodigo())
+        detalleGrid.addColumn(l -> l.getProducto().codigo())
                 .setHeader("Código").setAutoWidth(true);
-        detalleGrid.addColumn(l -> l.getProducto().getNombre())
+        detalleGrid.addColumn(l -> l.getProducto().nombre())
                 .setHeader("Producto").setFlexGrow(1);
         detalleGrid.addColumn(LineaUI::getCantidad)
                 .setHeader("Cant.").setAutoWidth(true);
@@ -306,45 +394,128 @@ public class CajaView extends VerticalLayout {
         }
     }
 
-    // Crea los botones de platos (catálogo)
+    // Filtra el catálogo; la lista vuelve a pedir solo lo que está a la vista
     private void cargarCatalogoPlatos(String filtro) {
-        platosLayout.removeAll();
-
-        List<Producto> productos = productoRepository.findAll();
-        if (filtro != null && !filtro.isBlank()) {
-            String t = filtro.toLowerCase();
-            productos = productos.stream()
-                    .filter(p ->
-                            (p.getNombre() != null && p.getNombre().toLowerCase().contains(t)) ||
-                                    (p.getCodigo() != null && p.getCodigo().toLowerCase().contains(t))
-                    )
-                    .toList();
-        }
+        // Foto compartida del catálogo: sin ir a BD
+        CatalogoProductosService.Catalogo catalogo = catalogoProductos.actual();
+        versionCatalogo = catalogo.version();
+
+        // Con filtro: índice sin tildes, los más vendidos primero
+        platosFiltrados = (filtro != null && !filtro.isBlank())
+                ? catalogo.buscar(filtro, Integer.MAX_VALUE)
+                : catalogo.items();
+
+        platosVacio.setVisible(platosFiltrados.isEmpty());
+        platosLista.setVisible(!platosFiltrados.isEmpty());
+        platosLista.getDataProvider().refreshAll();
+        platosLista.scrollToStart();
+    }
 
-        if (productos.isEmpty()) {
-            Span vacio = new Span("No se encontraron platos.");
-            vacio.getStyle()
-                    .set("font-size", "0.85rem")
-                    .set("color", "var(--lumo-secondary-text-color)");
-            platosLayout.add(vacio);
-            return;
-        }
+    private String textoPlato(Item p) {
+        return emojiParaProducto(p.nombre()) + " " + p.nombre()
+                + "  $" + p.precio().setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // =========================
+    // Lector de códigos de barras
+    // =========================
 
-        for (Producto p : productos) {
-            String emoji = emojiParaProducto(p.getNombre());
-            String texto = emoji + " " + p.getNombre()
-                    + "  $" + p.getPrecio().setScale(2, RoundingMode.HALF_UP);
+    private void cambiarModoEscaner(boolean activo) {
+        modoEscaner = activo;
+        getElement().setProperty("modoEscaner", activo);
+        if (activo) {
+            escanerBtn.removeThemeVariants(ButtonVariant.LUMO_CONTRAST);
+            escanerBtn.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
+        } else {
+            escanerBtn.removeThemeVariants(ButtonVariant.LUMO_PRIMARY);
+            escanerBtn.addThemeVariants(ButtonVariant.LUMO_CONTRAST);
+        }
+    }
 
-            Button botonPlato = new Button(texto);
-            botonPlato.addClassName("plato-boton");
-            botonPlato.setWidthFull();
+    /**
+     * El lector de barras "escribe" como un teclado. Con el modo escáner
+     * activo, las teclas que no van a un campo de texto se juntan en el
+     * navegador y cada código (cerrado con Enter o por la pausa final) va al
+     * servidor en una sola llamada; lo que se lee mientras una llamada está
+     * en curso sale junto en la siguiente.
+     */
+    private void instalarLectorCodigos() {
+        getElement().executeJs("""
+                const vista = this;
+                if (vista.__lectorCodigos) return;
+                vista.__lectorCodigos = true;
+
+                let codigo = '';
+                let pendientes = [];
+                let enviando = false;
+                let pausa = null;
+
+                const enviar = () => {
+                    if (enviando || pendientes.length === 0) return;
+                    enviando = true;
+                    const lote = pendientes.join('\\n');
+                    pendientes = [];
+                    vista.$server.codigosEscaneados(lote)
+                        .finally(() => { enviando = false; enviar(); });
+                };
+                const cerrar = () => {
+                    clearTimeout(pausa);
+                    if (codigo.length >= $0) {
+                        pendientes.push(codigo);
+                        enviar();
+                    }
+                    codigo = '';
+                };
+                const oyente = e => {
+                    if (!vista.isConnected) {
+                        document.removeEventListener('keydown', oyente, true);
+                        vista.__lectorCodigos = false;
+                        return;
+                    }
+                    if (!vista.modoEscaner || e.ctrlKey || e.altKey || e.metaKey) return;
+                    // Lo que se escribe en un campo (efectivo, cliente, nota) es del campo
+                    const destino = e.composedPath()[0];
+                    if (destino && (destino.isContentEditable || /^(INPUT|TEXTAREA|SELECT)$/.test(destino.tagName))) return;
+
+                    if (e.key === 'Enter') {
+                        if (codigo.length === 0) return;
+                        e.preventDefault();
+                        cerrar();
+                    } else if (e.key.length === 1) {
+                        e.preventDefault();
+                        codigo += e.key;
+                        clearTimeout(pausa);
+                        pausa = setTimeout(cerrar, $1);
+                    }
+                };
+                document.addEventListener('keydown', oyente, true);
+                """, LARGO_MINIMO_CODIGO, PAUSA_FIN_CODIGO_MS);
+    }
 
-            botonPlato.addClickListener(e -> {
+    /** Códigos leídos por el lector, uno por línea; se buscan en el catálogo en memoria. */
+    @ClientCallable
+    public void codigosEscaneados(String lote) {
+        if (lote == null || lote.isBlank()) return;
+
+        CatalogoProductosService.Catalogo catalogo = catalogoProductos.actual();
+        List<String> desconocidos = new ArrayList<>();
+        boolean agregados = false;
+        for (String codigo : lote.split("\n")) {
+            if (codigo.isBlank()) continue;
+            Item p = catalogo.porCodigo(codigo);
+            if (p != null) {
                 agregarOIncrementarLinea(p);
-                refrescarDespuesDeCambioDeLineas();
-            });
+                agregados = true;
+            } else {
+                desconocidos.add(codigo.strip());
+            }
+        }
 
-            platosLayout.add(botonPlato);
+        if (agregados) {
+            refrescarDespuesDeCambioDeLineas();
+        }
+        if (!desconocidos.isEmpty()) {
+            Notificaciones.advertencia("Código no encontrado: " + String.join(", ", desconocidos));
         }
     }
 
@@ -529,7 +700,7 @@ public class CajaView extends VerticalLayout {
             // Ítems desde la UI
             List<VentaService.Item> items = lineas.stream()
                     .map(l -> new VentaService.Item(
-                            l.getProducto().getId(),
+                            l.getProducto().id(),
                             l.getCantidad(),
                             l.getPrecioUnitario(),
                             l.getNotaCocina()
@@ -540,9 +711,13 @@ public class CajaView extends VerticalLayout {
             Venta venta = ventaService.registrarVentaDesdeLineas(
                     items, forma, ubic, cliente, tipoCli);
 
-            // Comanda cocina (ignora error)
+            // Comandas por estación: un solo aviso con lo que no se pudo encolar.
+            // Si una impresora falla después, lo avisa el botón de Impresoras.
             try {
-                impresionCocinaService.imprimirComanda(venta);
+                ImpresionCocinaService.ReporteComandas reporte = impresionCocinaService.imprimirComanda(venta);
+                if (reporte.hayFallas()) {
+                    Notificaciones.advertencia("Comandas sin enviar a impresora: " + reporte.resumenFallas());
+                }
             } catch (Exception ignored) {}
 
             // Cambio (solo efectivo)
@@ -609,10 +784,7 @@ public class CajaView extends VerticalLayout {
         contenido.setSpacing(false);
         contenido.setAlignItems(FlexComponent.Alignment.START);
 
-        Button ticketBtn = new Button("Imprimir ticket (orden)", e ->
-                UI.getCurrent().getPage()
-                        .open("ticket/" + venta.getId(), "_blank")
-        );
+        Button ticketBtn = new Button("Imprimir ticket (orden)", e -> imprimirTicket(venta));
         Button pdfBtn = new Button("Ver RIDE (PDF)", e ->
                 UI.getCurrent().getPage()
                         .open("/api/ventas/" + venta.getId() + "/ride", "_blank")
@@ -631,21 +803,62 @@ public class CajaView extends VerticalLayout {
         dialog.open();
     }
 
+    /** Con térmica configurada el ticket sale directo; si no, por el navegador. */
+    private void imprimirTicket(Venta venta) {
+        if (!ticketEscPosService.impresoraConfigurada()) {
+            UI.getCurrent().getPage().open("ticket/" + venta.getId(), "_blank");
+            return;
+        }
+        try {
+            ticketEscPosService.imprimirTicket(venta);
+            Notification.show("Ticket en cola de impresión.");
+        } catch (Exception ex) {
+            Notification.show("No se pudo imprimir el ticket: " + ex.getMessage());
+        }
+    }
+
+    private void abrirPanelImpresoras() {
+        Dialog dialog = new Dialog();
+        dialog.setHeaderTitle("Impresoras");
+
+        PanelImpresoras panel = new PanelImpresoras(colaImpresion);
+        Button refrescar = new Button("Refrescar", e -> {
+            panel.refrescar();
+            actualizarAvisoImpresoras();
+        });
+        Button cerrar = new Button("Cerrar", e -> dialog.close());
+        cerrar.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
+
+        dialog.add(panel);
+        dialog.getFooter().add(refrescar, cerrar);
+        dialog.open();
+    }
+
+    private void actualizarAvisoImpresoras() {
+        if (colaImpresion.hayProblemas()) {
+            impresorasBtn.setText("Impresoras (falla)");
+            impresorasBtn.addThemeVariants(ButtonVariant.LUMO_ERROR);
+        } else {
+            impresorasBtn.setText("Impresoras");
+            impresorasBtn.removeThemeVariants(ButtonVariant.LUMO_ERROR);
+        }
+    }
+
     // =========================
     // Utilidades UI
     // =========================
-    private void agregarOIncrementarLinea(Producto p) {
+    private void agregarOIncrementarLinea(Item p) {
         if (p == null) return;
 
         LineaUI existente = lineas.stream()
-                .filter(l -> l.getProducto().getId().equals(p.getId()))
+                .filter(l -> l.getProducto().id().equals(p.id()))
                 .findFirst()
                 .orElse(null);
 
         if (existente != null) {
             existente.setCantidad(existente.getCantidad() + 1);
         } else {
-            BigDecimal precio = p.getPrecio() != null ? p.getPrecio() : BigDecimal.ZERO;
+            BigDecimal precio = p.precio() != null ? p.precio() : BigDecimal.ZERO;
             lineas.add(new LineaUI(p, 1, precio, ""));
         }
     }
@@ -709,12 +922,12 @@ public class CajaView extends VerticalLayout {
     // Clase auxiliar para el Grid
     // =========================
     public static class LineaUI {
-        private Producto producto;
+        private Item producto;
         private int cantidad;
         private BigDecimal precioUnitario;
         private String notaCocina;
 
-        public LineaUI(Producto producto,
+        public LineaUI(Item producto,
                        int cantidad,
                        BigDecimal precioUnitario,
                        String notaCocina) {
@@ -724,8 +937,8 @@ public class CajaView extends VerticalLayout {
             this.notaCocina = notaCocina;
         }
 
-        public Producto getProducto() { return producto; }
-        public void setProducto(Producto producto) { this.producto = producto; }
+        public Item getProducto() { return producto; }
+        public void setProducto(Item producto) { this.producto = producto; }
 
         public int getCantidad() { return cantidad; }
         public void setCantidad(int cantidad) {
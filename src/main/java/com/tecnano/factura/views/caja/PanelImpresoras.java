@@ -0,0 +1,77 @@
+// =====================================================
+// src/main/java/com/tecnano/factura/views/caja/PanelImpresoras.java
+// =====================================================
+package com.tecnano.factura.views.caja;
+
+import com.tecnano.factura.service.ColaImpresionService;
+import com.tecnano.factura.service.ColaImpresionService.EstadoImpresora;
+import com.tecnano.factura.ui.Notificaciones;
+import com.vaadin.flow.component.button.Button;
+import com.vaadin.flow.component.button.ButtonVariant;
+import com.vaadin.flow.component.grid.Grid;
+import com.vaadin.flow.component.html.Span;
+import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Estado de las colas de impresión (ver ColaImpresionService): cuánto hay
+ * en cola, si la impresora está fallando y botón para reimprimir lo que no
+ * salió. Se muestra en un diálogo desde la caja.
+ */
+public class PanelImpresoras extends VerticalLayout {
+
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final ColaImpresionService colaImpresion;
+    private final Grid<EstadoImpresora> grid = new Grid<>(EstadoImpresora.class, false);
+    private final Span vacio = new Span("Aún no se ha enviado nada a imprimir.");
+
+    public PanelImpresoras(ColaImpresionService colaImpresion) {
+        this.colaImpresion = colaImpresion;
+
+        setPadding(false);
+        setSpacing(true);
+        setWidth("760px");
+
+        grid.addColumn(EstadoImpresora::impresora).setHeader("Impresora").setAutoWidth(true);
+        grid.addColumn(e -> switch (e.estado()) {
+            case LISTA -> "Lista";
+            case IMPRIMIENDO -> "Imprimiendo";
+            case REINTENTANDO -> "Reintentando";
+            case ERROR -> "Con falla";
+        }).setHeader("Estado").setAutoWidth(true);
+        grid.addColumn(EstadoImpresora::enCola).setHeader("En cola").setAutoWidth(true);
+        grid.addColumn(EstadoImpresora::impresos).setHeader("Impresos").setAutoWidth(true);
+        grid.addColumn(EstadoImpresora::fallidosPendientes).setHeader("Sin imprimir").setAutoWidth(true);
+        grid.addColumn(e -> e.ultimaImpresion() != null ? HORA.format(e.ultimaImpresion()) : "-")
+                .setHeader("Última").setAutoWidth(true);
+        grid.addColumn(e -> e.ultimoError() != null ? e.ultimoError() : "")
+                .setHeader("Último error").setFlexGrow(1);
+        grid.addComponentColumn(e -> {
+            Button reintentar = new Button("Reimprimir", ev -> {
+                int n = colaImpresion.reintentarFallidos(e.impresora());
+                Notificaciones.info(n + " trabajo(s) de nuevo en cola de " + e.impresora());
+                refrescar();
+            });
+            reintentar.addThemeVariants(ButtonVariant.LUMO_SMALL);
+            reintentar.setEnabled(e.fallidosPendientes() > 0);
+            return reintentar;
+        }).setAutoWidth(true);
+        grid.setAllRowsVisible(true);
+
+        vacio.getStyle()
+                .set("font-size", "0.85rem")
+                .set("color", "var(--lumo-secondary-text-color)");
+
+        add(vacio, grid);
+        refrescar();
+    }
+
+    public void refrescar() {
+        var estados = colaImpresion.getEstados();
+        grid.setItems(estados);
+        vacio.setVisible(estados.isEmpty());
+        grid.setVisible(!estados.isEmpty());
+    }
+}
@@ -1,9 +1,14 @@
 package com.tecnano.factura.views.cocina;
 
-import com.tecnano.factura.model.DetalleVenta;
-import com.tecnano.factura.model.Venta;
-import com.tecnano.factura.repository.VentaRepository;
+import com.tecnano.factura.dto.LineaCocinaDTO;
+import com.tecnano.factura.dto.OrdenCocinaDTO;
+import com.tecnano.factura.service.EventosVentaService;
+import com.tecnano.factura.service.EventosVentaService.EstadoCocinaCambiado;
+import com.tecnano.factura.service.EventosVentaService.VentaCreada;
+import com.tecnano.factura.service.VentaService;
 import com.tecnano.factura.views.MainLayout;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.component.UIDetachedException;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.dialog.Dialog;
@@ -20,40 +25,75 @@ import jakarta.annotation.security.PermitAll;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Route(value = "cocina", layout = MainLayout.class)
 @PageTitle("Cocina")
 @PermitAll
 public class CocinaView extends VerticalLayout {
 
-    private final VentaRepository ventaRepository;
+    /** Cards a la vista por columna; las demás se crean al pedir "Ver más". */
+    private static final int VISIBLES_POR_COLUMNA = 30;
 
-    // Contenedores por estado
-    private final VerticalLayout nuevosLayout = new VerticalLayout();
-    private final VerticalLayout enPrepLayout = new VerticalLayout();
-    private final VerticalLayout listosLayout = new VerticalLayout();
+    private static final Comparator<Orden> POR_HORA = Comparator
+            .comparing((Orden o) -> o.datos.fechaHora(), Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(o -> o.id);
 
-    private final Span nuevosCount = new Span("0");
-    private final Span enPrepCount = new Span("0");
-    private final Span listosCount = new Span("0");
+    private final VentaService ventaService;
+    private final EventosVentaService eventosVenta;
+
+    // Columnas por estado
+    private final Columna nuevos = new Columna();
+    private final Columna enPreparacion = new Columna();
+    private final Columna listos = new Columna();
 
     private final DateTimeFormatter horaFormatter =
             DateTimeFormatter.ofPattern("HH:mm");
 
-    public CocinaView(VentaRepository ventaRepository) {
-        this.ventaRepository = ventaRepository;
+    /** Órdenes del día por id de venta; cada una guarda su card. */
+    private final Map<Long, Orden> ordenes = new HashMap<>();
+
+    private Runnable bajaEventos;
+
+    public CocinaView(VentaService ventaService,
+                      EventosVentaService eventosVenta) {
+        this.ventaService = ventaService;
+        this.eventosVenta = eventosVenta;
 
         setSizeFull();
         setPadding(true);
         setSpacing(true);
 
         construirUI();
-        cargarOrdenesHoy();
+
+        // Órdenes nuevas y cambios hechos en otras pantallas llegan por push.
+        // Al (re)conectar se sincroniza con BD: solo cambia lo que difiere.
+        addAttachListener(e -> {
+            UI ui = e.getUI();
+            bajaEventos = eventosVenta.suscribir(ev -> {
+                try {
+                    ui.access(() -> aplicarEvento(ev));
+                } catch (UIDetachedException ignored) {
+                    // la pantalla se cerró mientras llegaba el aviso
+                }
+            });
+            cargarOrdenesHoy();
+        });
+        addDetachListener(e -> {
+            if (bajaEventos != null) {
+                bajaEventos.run();
+                bajaEventos = null;
+            }
+        });
     }
 
     // =========================
@@ -75,22 +115,19 @@ public class CocinaView extends VerticalLayout {
         VerticalLayout columnaNuevos = crearColumnaEstado(
                 "Nuevos",
                 "Órdenes que acaban de entrar y aún no se han tomado.",
-                nuevosLayout,
-                nuevosCount
+                nuevos
         );
 
         VerticalLayout columnaEnPrep = crearColumnaEstado(
                 "En preparación",
                 "Órdenes que ya están siendo preparadas.",
-                enPrepLayout,
-                enPrepCount
+                enPreparacion
         );
 
         VerticalLayout columnaListos = crearColumnaEstado(
                 "Listos para entregar",
                 "Órdenes listas que esperan ser llevadas a mesa / mostrador.",
-                listosLayout,
-                listosCount
+                listos
         );
 
         HorizontalLayout columnas = new HorizontalLayout(columnaNuevos, columnaEnPrep, columnaListos);
@@ -104,8 +141,7 @@ public class CocinaView extends VerticalLayout {
 
     private VerticalLayout crearColumnaEstado(String titulo,
                                               String descripcion,
-                                              VerticalLayout contenedor,
-                                              Span contador) {
+                                              Columna columna) {
 
         VerticalLayout card = new VerticalLayout();
         card.addClassName("card-blanca");
@@ -116,7 +152,7 @@ public class CocinaView extends VerticalLayout {
         H3 title = new H3(titulo);
         title.getStyle().set("margin-top", "0").set("margin-bottom", "0.15rem");
 
-        contador.getStyle()
+        columna.contador.getStyle()
                 .set("font-size", "0.85rem")
                 .set("color", "var(--lumo-secondary-text-color)");
 
@@ -125,16 +161,19 @@ public class CocinaView extends VerticalLayout {
                 .set("font-size", "0.8rem")
                 .set("color", "var(--lumo-secondary-text-color)");
 
-        HorizontalLayout header = new HorizontalLayout(title, contador);
+        HorizontalLayout header = new HorizontalLayout(title, columna.contador);
         header.setWidthFull();
         header.setJustifyContentMode(FlexComponent.JustifyContentMode.BETWEEN);
         header.setAlignItems(FlexComponent.Alignment.BASELINE);
 
-        contenedor.setPadding(false);
-        contenedor.setSpacing(true);
-        contenedor.getStyle().set("margin-top", "0.5rem");
+        columna.contenedor.setPadding(false);
+        columna.contenedor.setSpacing(true);
+        columna.contenedor.getStyle().set("margin-top", "0.5rem");
+
+        columna.verMas.addThemeVariants(ButtonVariant.LUMO_TERTIARY, ButtonVariant.LUMO_SMALL);
+        columna.verMas.setVisible(false);
 
-        card.add(header, desc, contenedor);
+        card.add(header, desc, columna.contenedor, columna.verMas);
 
         return card;
     }
@@ -142,58 +181,138 @@ public class CocinaView extends VerticalLayout {
     // =========================
     // Carga de órdenes
     // =========================
+
+    /**
+     * Sincroniza la pantalla con las órdenes del día en BD. Las cards que no
+     * cambiaron se quedan tal cual; solo se crean, mueven o quitan las que
+     * difieren.
+     */
     private void cargarOrdenesHoy() {
-        LocalDate hoy = LocalDate.now();
-        LocalDateTime desde = hoy.atStartOfDay();
-        LocalDateTime hasta = hoy.plusDays(1).atStartOfDay().minusNanos(1);
-
-        List<Venta> ventasDia = ventaRepository.findByFechaHoraBetween(desde, hasta);
-
-        // Limpiar columnas
-        nuevosLayout.removeAll();
-        enPrepLayout.removeAll();
-        listosLayout.removeAll();
-
-        int countNuevos = 0;
-        int countEnPrep = 0;
-        int countListos = 0;
-
-        ventasDia.stream()
-                .filter(v -> v.getTotal() != null) // solo ventas reales
-                .sorted(Comparator.comparing(Venta::getFechaHora, Comparator.nullsLast(Comparator.naturalOrder())))
-                .forEach(venta -> {
-                    String estado = normalizarEstado(venta.getEstadoCocina());
-                    // No mostramos los ENTREGADA en la pantalla de cocina
-                    if ("ENTREGADA".equals(estado)) {
-                        return;
-                    }
+        // Solo las activas (sin ENTREGADA) y solo las columnas de la card
+        List<OrdenCocinaDTO> activas = ventaService.listarOrdenesCocina(LocalDate.now());
 
-                    VerticalLayout cardOrden = crearCardOrden(venta, estado);
-
-                    switch (estado) {
-                        case "EN_PREPARACION" -> {
-                            enPrepLayout.add(cardOrden);
-                            enPrepLayout.setSpacing(true);
-                        }
-                        case "LISTA" -> {
-                            listosLayout.add(cardOrden);
-                            listosLayout.setSpacing(true);
-                        }
-                        default -> { // NULO o "NUEVO"
-                            nuevosLayout.add(cardOrden);
-                            nuevosLayout.setSpacing(true);
-                        }
-                    }
-                });
+        Set<Long> vigentes = new HashSet<>();
+        for (OrdenCocinaDTO datos : activas) {
+            vigentes.add(datos.ventaId());
+            aplicarOrden(datos);
+        }
+        new ArrayList<>(ordenes.keySet()).stream()
+                .filter(id -> !vigentes.contains(id))
+                .forEach(this::quitar);
+
+        refrescarColumnas();
+    }
+
+    /**
+     * Alta o cambio de una orden. Si solo cambió el estado, la misma card
+     * pasa a la otra columna con sus botones nuevos; se redibuja entera
+     * únicamente si cambió su contenido.
+     */
+    private void aplicarOrden(OrdenCocinaDTO datos) {
+        String estado = normalizarEstado(datos.estadoCocina());
+        // No mostramos los ENTREGADA en la pantalla de cocina
+        if ("ENTREGADA".equals(estado)) {
+            quitar(datos.ventaId());
+            return;
+        }
+
+        Orden o = ordenes.get(datos.ventaId());
+        if (o == null) {
+            o = new Orden(datos, estado);
+            ordenes.put(o.id, o);
+            columnaDe(estado).agregar(o);
+            return;
+        }
+
+        int firma = firma(datos);
+        if (o.estado.equals(estado) && o.firma == firma) {
+            return; // igual a lo que ya está en pantalla
+        }
+
+        columnaDe(o.estado).quitar(o);
+
+        o.datos = datos;
+        if (o.firma != firma) {
+            o.firma = firma;
+            o.descartarCard();
+        }
+        if (!o.estado.equals(estado)) {
+            o.estado = estado;
+            if (o.acciones != null) llenarAcciones(o);
+        }
+
+        columnaDe(estado).agregar(o);
+    }
+
+    private void quitar(Long ventaId) {
+        Orden o = ordenes.remove(ventaId);
+        if (o != null) {
+            columnaDe(o.estado).quitar(o);
+            o.descartarCard();
+        }
+    }
+
+    private Columna columnaDe(String estado) {
+        return switch (estado) {
+            case "EN_PREPARACION" -> enPreparacion;
+            case "LISTA" -> listos;
+            default -> nuevos; // NULO o "NUEVO"
+        };
+    }
+
+    private void refrescarColumnas() {
+        nuevos.refrescarSiCambio();
+        enPreparacion.refrescarSiCambio();
+        listos.refrescarSiCambio();
+    }
+
+    /** Lo que se ve en la card (sin el estado): si cambia, se redibuja. */
+    private static int firma(OrdenCocinaDTO datos) {
+        return Objects.hash(
+                datos.ubicacion(),
+                datos.mesa(),
+                datos.fechaHora(),
+                datos.total(),
+                datos.lineas()
+        );
+    }
+
+    // =========================
+    // Avisos de otras pantallas
+    // =========================
+    private void aplicarEvento(EventosVentaService.Evento evento) {
+        if (evento instanceof VentaCreada creada) {
+            if (ordenes.containsKey(creada.ventaId())) return;
+            ventaService.buscarOrdenCocina(creada.ventaId())
+                    .filter(this::esDeHoy)
+                    .ifPresent(this::aplicarOrden);
+            refrescarColumnas();
+        } else if (evento instanceof EstadoCocinaCambiado cambio) {
+            aplicarEstado(cambio.ventaId(), cambio.estado());
+        }
+    }
 
-        // Recontar
-        countNuevos = nuevosLayout.getComponentCount();
-        countEnPrep = enPrepLayout.getComponentCount();
-        countListos = listosLayout.getComponentCount();
+    /** Mueve la orden a la columna del nuevo estado; no hace nada si ya está ahí. */
+    private void aplicarEstado(Long ventaId, String nuevoEstado) {
+        String estado = normalizarEstado(nuevoEstado);
+        Orden o = ordenes.get(ventaId);
 
-        nuevosCount.setText(countNuevos + " orden(es)");
-        enPrepCount.setText(countEnPrep + " orden(es)");
-        listosCount.setText(countListos + " orden(es)");
+        if (o != null) {
+            if (o.estado.equals(estado)) return;
+            aplicarOrden(o.datos.conEstado(estado));
+        } else {
+            if ("ENTREGADA".equals(estado)) return;
+            ventaService.buscarOrdenCocina(ventaId)
+                    .filter(this::esDeHoy)
+                    .ifPresent(this::aplicarOrden);
+        }
+        refrescarColumnas();
+    }
+
+    private boolean esDeHoy(OrdenCocinaDTO datos) {
+        return datos.total() != null
+                && datos.fechaHora() != null
+                && datos.fechaHora().toLocalDate().equals(LocalDate.now());
     }
 
     private String normalizarEstado(String estado) {
@@ -201,10 +320,107 @@ public class CocinaView extends VerticalLayout {
         return estado.toUpperCase();
     }
 
+    // =========================
+    // Columnas
+    // =========================
+
+    /** Orden en pantalla; la card se guarda para moverla sin redibujarla. */
+    private static final class Orden {
+        final Long id;
+        OrdenCocinaDTO datos;
+        String estado;
+        int firma;
+        VerticalLayout card;        // null mientras no esté a la vista
+        HorizontalLayout acciones;
+
+        Orden(OrdenCocinaDTO datos, String estado) {
+            this.id = datos.ventaId();
+            this.datos = datos;
+            this.estado = estado;
+            this.firma = firma(datos);
+        }
+
+        void descartarCard() {
+            if (card != null) {
+                card.getElement().removeFromParent();
+                card = null;
+                acciones = null;
+            }
+        }
+    }
+
+    /**
+     * Columna de un estado, ordenada por hora. Solo las primeras
+     * {@code limite} órdenes tienen card en el árbol de componentes; una
+     * noche con cientos de órdenes no pesa en la tablet.
+     */
+    private final class Columna {
+
+        final VerticalLayout contenedor = new VerticalLayout();
+        final Span contador = new Span("0 orden(es)");
+        final Button verMas = new Button();
+        final TreeSet<Orden> lista = new TreeSet<>(POR_HORA);
+
+        int limite = VISIBLES_POR_COLUMNA;
+        boolean cambio = false;
+
+        Columna() {
+            verMas.addClickListener(e -> {
+                limite += VISIBLES_POR_COLUMNA;
+                refrescar();
+            });
+        }
+
+        void agregar(Orden o) {
+            lista.add(o);
+            cambio = true;
+        }
+
+        void quitar(Orden o) {
+            lista.remove(o);
+            if (o.card != null) {
+                o.card.getElement().removeFromParent();
+            }
+            cambio = true;
+        }
+
+        void refrescarSiCambio() {
+            if (cambio) refrescar();
+        }
+
+        /** Deja en pantalla, en orden, las cards de la ventana visible. */
+        void refrescar() {
+            cambio = false;
+            int i = 0;
+            for (Orden o : lista) {
+                if (i < limite) {
+                    if (o.card == null) {
+                        crearCardOrden(o);
+                    }
+                    if (i >= contenedor.getComponentCount() || contenedor.getComponentAt(i) != o.card) {
+                        contenedor.addComponentAtIndex(i, o.card);
+                    }
+                } else {
+                    o.descartarCard();
+                }
+                i++;
+            }
+
+            int ocultas = lista.size() - limite;
+            verMas.setVisible(ocultas > 0);
+            if (ocultas > 0) {
+                verMas.setText("Ver " + Math.min(ocultas, VISIBLES_POR_COLUMNA) + " más (" + ocultas + " sin mostrar)");
+            }
+            contador.setText(lista.size() + " orden(es)");
+        }
+    }
+
     // =========================
     // Card de cada orden
     // =========================
-    private VerticalLayout crearCardOrden(Venta venta, String estado) {
+    private void crearCardOrden(Orden o) {
+        OrdenCocinaDTO orden = o.datos;
+
         VerticalLayout card = new VerticalLayout();
         card.addClassName("orden-cocina-card"); // puedes estilizar en pos.css
         card.setPadding(true);
@@ -216,9 +432,9 @@ public class CocinaView extends VerticalLayout {
                 .set("box-shadow", "0 1px 3px rgba(0,0,0,0.06)");
 
         // Encabezado: mesa + hora + total
-        String ubic = venta.getUbicacion() != null ? venta.getUbicacion() : venta.getMesa();
-        String hora = venta.getFechaHora() != null
-                ? venta.getFechaHora().format(horaFormatter)
+        String ubic = orden.ubicacion() != null ? orden.ubicacion() : orden.mesa();
+        String hora = orden.fechaHora() != null
+                ? orden.fechaHora().format(horaFormatter)
                 : "--:--";
 
         Span linea1 = new Span("Mesa/pedido: " + (ubic != null ? ubic : "-"));
@@ -229,7 +445,7 @@ public class CocinaView extends VerticalLayout {
         Span linea2 = new Span("Hora: " + hora);
         linea2.getStyle().set("font-size", "0.8rem");
 
-        BigDecimal total = venta.getTotal() != null ? venta.getTotal() : BigDecimal.ZERO;
+        BigDecimal total = orden.total() != null ? orden.total() : BigDecimal.ZERO;
         Span totalSpan = new Span("Total: $" + total.setScale(2, RoundingMode.HALF_UP));
         totalSpan.getStyle()
                 .set("font-size", "0.85rem")
@@ -246,14 +462,13 @@ public class CocinaView extends VerticalLayout {
         detalleLayout.setSpacing(false);
         detalleLayout.getStyle().set("margin-top", "0.35rem");
 
-        if (venta.getDetalles() != null && !venta.getDetalles().isEmpty()) {
+        if (!orden.lineas().isEmpty()) {
             int maxLineas = 5; // para no desbordar mucho la tarjeta
             int idx = 0;
-            for (DetalleVenta d : venta.getDetalles()) {
-                if (d == null || d.getProducto() == null) continue;
+            for (LineaCocinaDTO d : orden.lineas()) {
                 idx++;
                 if (idx > maxLineas) {
-                    Span mas = new Span("... (" + (venta.getDetalles().size() - maxLineas) + " ítem(s) más)");
+                    Span mas = new Span("... (" + (orden.lineas().size() - maxLineas) + " ítem(s) más)");
                     mas.getStyle()
                             .set("font-size", "0.75rem")
                             .set("color", "var(--lumo-secondary-text-color)");
@@ -261,18 +476,18 @@ public class CocinaView extends VerticalLayout {
                     break;
                 }
 
-                String nombre = d.getProducto().getNombre() != null
-                        ? d.getProducto().getNombre()
+                String nombre = d.producto() != null
+                        ? d.producto()
                         : "(sin nombre)";
-                int cantidad = d.getCantidad();
+                int cantidad = d.cantidad();
                 String lineaProd = cantidad + " x " + nombre;
 
                 Span sProd = new Span(lineaProd);
                 sProd.getStyle().set("font-size", "0.8rem");
                 detalleLayout.add(sProd);
 
-                if (d.getNotaCocina() != null && !d.getNotaCocina().isBlank()) {
-                    Span sNota = new Span("Nota: " + d.getNotaCocina());
+                if (d.notaCocina() != null && !d.notaCocina().isBlank()) {
+                    Span sNota = new Span("Nota: " + d.notaCocina());
                     sNota.getStyle()
                             .set("font-size", "0.75rem")
                             .set("font-style", "italic")
@@ -295,45 +510,53 @@ public class CocinaView extends VerticalLayout {
         acciones.setSpacing(true);
         acciones.getStyle().set("margin-top", "0.5rem");
 
-        Button verDetalle = new Button("Ver detalle", e -> mostrarDialogoDetalle(venta));
+        card.add(header, linea2, detalleLayout, acciones);
+
+        o.card = card;
+        o.acciones = acciones;
+        llenarAcciones(o);
+    }
+
+    /** Botones según el estado; es lo único de la card que cambia al moverla. */
+    private void llenarAcciones(Orden o) {
+        o.acciones.removeAll();
+
+        Button verDetalle = new Button("Ver detalle", e -> mostrarDialogoDetalle(o.datos));
         verDetalle.addThemeVariants(ButtonVariant.LUMO_TERTIARY);
 
-        if ("EN_PREPARACION".equals(estado)) {
-            Button listoBtn = new Button("Marcar LISTO", e -> cambiarEstado(venta, "LISTA"));
+        if ("EN_PREPARACION".equals(o.estado)) {
+            Button listoBtn = new Button("Marcar LISTO", e -> cambiarEstado(o, "LISTA"));
             listoBtn.addThemeVariants(ButtonVariant.LUMO_SUCCESS, ButtonVariant.LUMO_PRIMARY);
-            acciones.add(verDetalle, listoBtn);
-        } else if ("LISTA".equals(estado)) {
-            Button entregarBtn = new Button("Marcar ENTREGADA", e -> cambiarEstado(venta, "ENTREGADA"));
+            o.acciones.add(verDetalle, listoBtn);
+        } else if ("LISTA".equals(o.estado)) {
+            Button entregarBtn = new Button("Marcar ENTREGADA", e -> cambiarEstado(o, "ENTREGADA"));
             entregarBtn.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
-            acciones.add(verDetalle, entregarBtn);
+            o.acciones.add(verDetalle, entregarBtn);
         } else {
             // NUEVO (o null)
-            Button tomarBtn = new Button("Tomar orden", e -> cambiarEstado(venta, "EN_PREPARACION"));
+            Button tomarBtn = new Button("Tomar orden", e -> cambiarEstado(o, "EN_PREPARACION"));
             tomarBtn.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
-            acciones.add(verDetalle, tomarBtn);
+            o.acciones.add(verDetalle, tomarBtn);
         }
-
-        card.add(header, linea2, detalleLayout, acciones);
-        return card;
     }
 
-    private void mostrarDialogoDetalle(Venta venta) {
+    private void mostrarDialogoDetalle(OrdenCocinaDTO orden) {
         Dialog dialog = new Dialog();
-        dialog.setHeaderTitle("Detalle de orden #" + venta.getId());
+        dialog.setHeaderTitle("Detalle de orden #" + orden.ventaId());
 
         VerticalLayout contenido = new VerticalLayout();
         contenido.setPadding(false);
         contenido.setSpacing(false);
         contenido.setWidthFull();
 
-        String ubic = venta.getUbicacion() != null ? venta.getUbicacion() : venta.getMesa();
-        String hora = venta.getFechaHora() != null
-                ? venta.getFechaHora().format(horaFormatter)
+        String ubic = orden.ubicacion() != null ? orden.ubicacion() : orden.mesa();
+        String hora = orden.fechaHora() != null
+                ? orden.fechaHora().format(horaFormatter)
                 : "--:--";
 
         Span lineaMesa = new Span("Mesa/pedido: " + (ubic != null ? ubic : "-"));
         Span lineaHora = new Span("Hora: " + hora);
-        BigDecimal total = venta.getTotal() != null ? venta.getTotal() : BigDecimal.ZERO;
+        BigDecimal total = orden.total() != null ? orden.total() : BigDecimal.ZERO;
         Span lineaTotal = new Span("Total: $" + total.setScale(2, RoundingMode.HALF_UP));
 
         lineaMesa.getStyle().set("font-weight", "600");
@@ -343,14 +566,13 @@ public class CocinaView extends VerticalLayout {
 
         contenido.add(new Span("-----------------------------"));
 
-        if (venta.getDetalles() != null && !venta.getDetalles().isEmpty()) {
-            for (DetalleVenta d : venta.getDetalles()) {
-                if (d == null || d.getProducto() == null) continue;
+        if (!orden.lineas().isEmpty()) {
+            for (LineaCocinaDTO d : orden.lineas()) {
 
-                String nombre = Objects.toString(d.getProducto().getNombre(), "(sin nombre)");
-                int cantidad = d.getCantidad();
-                BigDecimal precioUnit = d.getPrecioUnitario() != null
-                        ? d.getPrecioUnitario()
+                String nombre = Objects.toString(d.producto(), "(sin nombre)");
+                int cantidad = d.cantidad();
+                BigDecimal precioUnit = d.precioUnitario() != null
+                        ? d.precioUnitario()
                         : BigDecimal.ZERO;
                 BigDecimal subtotal = precioUnit.multiply(BigDecimal.valueOf(cantidad));
 
@@ -362,8 +584,8 @@ public class CocinaView extends VerticalLayout {
                 linea.getStyle().set("font-size", "0.9rem");
                 contenido.add(linea);
 
-                if (d.getNotaCocina() != null && !d.getNotaCocina().isBlank()) {
-                    Span nota = new Span("Nota: " + d.getNotaCocina());
+                if (d.notaCocina() != null && !d.notaCocina().isBlank()) {
+                    Span nota = new Span("Nota: " + d.notaCocina());
                     nota.getStyle()
                             .set("font-size", "0.8rem")
                             .set("font-style", "italic")
@@ -390,9 +612,9 @@ public class CocinaView extends VerticalLayout {
     // =========================
     // Cambio de estado
     // =========================
-    private void cambiarEstado(Venta venta, String nuevoEstado) {
-        venta.setEstadoCocina(nuevoEstado);
-        ventaRepository.save(venta);
-        cargarOrdenesHoy();
+    private void cambiarEstado(Orden o, String nuevoEstado) {
+        ventaService.cambiarEstadoCocina(o.id, nuevoEstado);
+        // Aquí se aplica ya; el aviso que vuelve por push llega sin cambios
+        aplicarEstado(o.id, nuevoEstado);
     }
 }
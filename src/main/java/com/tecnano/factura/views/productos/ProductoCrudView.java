@@ -1,12 +1,16 @@
 package com.tecnano.factura.views.productos;
 
+import com.tecnano.factura.config.AppProperties;
 import com.tecnano.factura.model.Producto;
 import com.tecnano.factura.repository.ProductoRepository;
+import com.tecnano.factura.service.CatalogoProductosService;
+import com.tecnano.factura.service.ImpresionCocinaService;
 import com.tecnano.factura.ui.Notificaciones;
 import com.tecnano.factura.views.MainLayout;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
 import com.vaadin.flow.component.checkbox.Checkbox;
+import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.dependency.CssImport;
 import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.component.html.Div;
@@ -23,8 +27,12 @@ import jakarta.annotation.security.RolesAllowed;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 
 @Route(value = "productos", layout = MainLayout.class)
 @PageTitle("Productos")
@@ -34,6 +42,8 @@ import java.util.Optional;
 public class ProductoCrudView extends VerticalLayout {
 
     private final ProductoRepository productoRepository;
+    private final CatalogoProductosService catalogoProductos;
+    private final AppProperties appProperties;
 
     private final Grid<Producto> grid = new Grid<>(Producto.class, false);
 
@@ -43,6 +53,7 @@ public class ProductoCrudView extends VerticalLayout {
     private final NumberField precioField = new NumberField("Precio (USD)");
     private final NumberField stockField = new NumberField("Stock (opcional)");
     private final Checkbox conIvaField = new Checkbox("Aplica IVA (12%)");
+    private final ComboBox<String> estacionField = new ComboBox<>("Estación (impresora de comanda)");
 
     private final Button nuevoBtn = new Button("Nuevo");
     private final Button guardarBtn = new Button("Guardar");
@@ -51,8 +62,12 @@ public class ProductoCrudView extends VerticalLayout {
 
     private Producto productoActual;
 
-    public ProductoCrudView(ProductoRepository productoRepository) {
+    public ProductoCrudView(ProductoRepository productoRepository,
+                            CatalogoProductosService catalogoProductos,
+                            AppProperties appProperties) {
         this.productoRepository = productoRepository;
+        this.catalogoProductos = catalogoProductos;
+        this.appProperties = appProperties;
 
         setSizeFull();
         setPadding(true);
@@ -142,6 +157,13 @@ public class ProductoCrudView extends VerticalLayout {
                 .setHeader("IVA")
                 .setAutoWidth(true);
 
+        grid.addColumn(p -> p.getEstacion() != null && !p.getEstacion().isBlank()
+                        ? p.getEstacion()
+                        : ImpresionCocinaService.ESTACION_COCINA)
+                .setHeader("Estación")
+                .setAutoWidth(true)
+                .setSortable(true);
+
         grid.setHeight("500px");
         grid.setWidthFull();
 
@@ -181,6 +203,18 @@ public class ProductoCrudView extends VerticalLayout {
 
         conIvaField.getStyle().set("margin-top", "0.5rem");
 
+        // Estaciones configuradas + COCINA; se puede escribir una nueva
+        List<String> estaciones = new ArrayList<>();
+        estaciones.add(ImpresionCocinaService.ESTACION_COCINA);
+        appProperties.getImpresion().getEstaciones().keySet().stream()
+                .map(e -> e.toUpperCase(Locale.ROOT))
+                .filter(e -> !estaciones.contains(e))
+                .forEach(estaciones::add);
+        estacionField.setItems(estaciones);
+        estacionField.setAllowCustomValue(true);
+        estacionField.addCustomValueSetListener(e -> estacionField.setValue(e.getDetail()));
+        estacionField.setWidthFull();
+
         nuevoBtn.addThemeVariants(ButtonVariant.LUMO_TERTIARY);
         guardarBtn.addThemeVariants(ButtonVariant.LUMO_PRIMARY);
         eliminarBtn.addThemeVariants(ButtonVariant.LUMO_ERROR, ButtonVariant.LUMO_TERTIARY);
@@ -196,6 +230,7 @@ public class ProductoCrudView extends VerticalLayout {
                 nombreField,
                 precioField,
                 stockField,
+                estacionField,
                 conIvaField,
                 botones
         );
@@ -229,12 +264,11 @@ public class ProductoCrudView extends VerticalLayout {
 
         String term = filtro.getValue();
         if (term != null && !term.isBlank()) {
-            String t = term.toLowerCase();
+            // Mismo criterio que la caja (sin tildes, por palabras); la grilla sigue en orden de id
+            Set<Long> ids = new HashSet<>();
+            catalogoProductos.actual().buscar(term, Integer.MAX_VALUE).forEach(i -> ids.add(i.id()));
             productos = productos.stream()
-                    .filter(p ->
-                            (p.getNombre() != null && p.getNombre().toLowerCase().contains(t)) ||
-                                    (p.getCodigo() != null && p.getCodigo().toLowerCase().contains(t))
-                    )
+                    .filter(p -> ids.contains(p.getId()))
                     .toList();
         }
 
@@ -257,6 +291,9 @@ public class ProductoCrudView extends VerticalLayout {
         }
 
         conIvaField.setValue(producto.isConIva());
+        estacionField.setValue(producto.getEstacion() != null && !producto.getEstacion().isBlank()
+                ? producto.getEstacion()
+                : ImpresionCocinaService.ESTACION_COCINA);
     }
 
     private void limpiarFormulario() {
@@ -268,6 +305,7 @@ public class ProductoCrudView extends VerticalLayout {
         precioField.clear();
         stockField.clear();
         conIvaField.setValue(false);
+        estacionField.setValue(ImpresionCocinaService.ESTACION_COCINA);
     }
 
     private void guardarProducto() {
@@ -309,8 +347,16 @@ public class ProductoCrudView extends VerticalLayout {
 
         productoActual.setConIva(Boolean.TRUE.equals(conIvaField.getValue()));
 
+        // COCINA es la estación por defecto: se guarda como null
+        String estacion = estacionField.getValue();
+        productoActual.setEstacion(estacion == null || estacion.isBlank()
+                || ImpresionCocinaService.ESTACION_COCINA.equalsIgnoreCase(estacion.trim())
+                ? null
+                : estacion.trim().toUpperCase(Locale.ROOT));
+
         try {
-            productoRepository.save(productoActual);
+            // Por el catálogo: así la caja ve el cambio sin recargar productos
+            catalogoProductos.guardar(productoActual);
             Notificaciones.exito("Producto guardado correctamente.");
             refrescarGrid();
             limpiarFormulario();
@@ -327,7 +373,7 @@ public class ProductoCrudView extends VerticalLayout {
         }
 
         try {
-            productoRepository.delete(productoActual);
+            catalogoProductos.eliminar(productoActual);
             Notificaciones.exito("Producto eliminado.");
             refrescarGrid();
             limpiarFormulario();
@@ -4,6 +4,8 @@ import com.tecnano.factura.config.AppProperties;
 import com.tecnano.factura.model.DetalleVenta;
 import com.tecnano.factura.model.Venta;
 import com.tecnano.factura.repository.VentaRepository;
+import com.tecnano.factura.service.TicketEscPosService;
+import com.tecnano.factura.ui.Notificaciones;
 import com.vaadin.flow.component.UI;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.button.ButtonVariant;
@@ -25,11 +27,11 @@ import com.vaadin.flow.theme.lumo.Lumo;
 import jakarta.annotation.security.PermitAll;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.format.DateTimeFormatter;
 import java.util.Objects;
 import java.util.Optional;
 
+import static com.tecnano.factura.service.FormatoTicket.*;
+
 @Route("ticket")
 @PageTitle("Ticket")
 @PermitAll
@@ -39,14 +41,14 @@ public class TicketView extends VerticalLayout implements HasUrlParameter<Long>
 
     private final VentaRepository ventaRepository;
     private final AppProperties appProperties;
-
-    private final DateTimeFormatter fechaHoraFormatter =
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private final TicketEscPosService ticketEscPosService;
 
     public TicketView(VentaRepository ventaRepository,
-                      AppProperties appProperties) {
+                      AppProperties appProperties,
+                      TicketEscPosService ticketEscPosService) {
         this.ventaRepository = ventaRepository;
         this.appProperties = appProperties;
+        this.ticketEscPosService = ticketEscPosService;
 
         setSizeFull();
         setPadding(true);
@@ -160,12 +162,9 @@ public class TicketView extends VerticalLayout implements HasUrlParameter<Long>
 
         papel.add(headerNegocio, new Hr());
 
-        String fechaHora = venta.getFechaHora() != null ? fechaHoraFormatter.format(venta.getFechaHora()) : "--";
-        String ubic = venta.getUbicacion() != null ? venta.getUbicacion() : venta.getMesa();
-
         Span sNum = new Span("Venta N°: " + venta.getId());
-        Span sFecha = new Span("Fecha: " + fechaHora);
-        Span sMesa = new Span("Mesa/Pedido: " + (ubic != null ? ubic : "-"));
+        Span sFecha = new Span("Fecha: " + fechaHora(venta));
+        Span sMesa = new Span("Mesa/Pedido: " + ubicacion(venta));
         Span sPago = new Span("Pago: " + safe(venta.getFormaPago()));
 
         sNum.getStyle().set("font-size", "0.8rem");
@@ -245,7 +244,7 @@ public class TicketView extends VerticalLayout implements HasUrlParameter<Long>
                 Span sDesc = new Span(nombre);
                 sDesc.getStyle().set("flex-grow", "1").set("font-size", "0.75rem");
 
-                Span sSub = new Span("$" + subtotal.setScale(2, RoundingMode.HALF_UP));
+                Span sSub = new Span(importe(subtotal));
                 sSub.getStyle().set("width", "70px").set("text-align", "right").set("font-size", "0.75rem");
 
                 fila.add(sCant, sDesc, sSub);
@@ -269,13 +268,9 @@ public class TicketView extends VerticalLayout implements HasUrlParameter<Long>
 
         papel.add(new Hr());
 
-        BigDecimal subtotal = venta.getSubtotal() != null ? venta.getSubtotal() : BigDecimal.ZERO;
-        BigDecimal iva = venta.getIva() != null ? venta.getIva() : BigDecimal.ZERO;
-        BigDecimal total = venta.getTotal() != null ? venta.getTotal() : BigDecimal.ZERO;
-
-        papel.add(crearLineaTotal("Subtotal:", subtotal));
-        papel.add(crearLineaTotal("IVA:", iva));
-        papel.add(crearLineaTotal("TOTAL:", total, true));
+        papel.add(crearLineaTotal("Subtotal:", venta.getSubtotal()));
+        papel.add(crearLineaTotal("IVA:", venta.getIva()));
+        papel.add(crearLineaTotal("TOTAL:", venta.getTotal(), true));
 
         papel.add(new Hr());
 
@@ -296,6 +291,20 @@ public class TicketView extends VerticalLayout implements HasUrlParameter<Long>
         imprimirBtn.getStyle().set("margin-top", "0.75rem");
 
         VerticalLayout wrapper = new VerticalLayout(papel, imprimirBtn);
+        if (ticketEscPosService.impresoraConfigurada()) {
+            // Directo a la térmica de caja, sin diálogo del navegador
+            Button termicaBtn = new Button("Imprimir en térmica", VaadinIcon.PRINT.create(), e -> {
+                try {
+                    ticketEscPosService.imprimirTicket(venta);
+                    Notificaciones.exito("Ticket en cola de impresión.");
+                } catch (Exception ex) {
+                    Notificaciones.error("No se pudo imprimir el ticket: " + ex.getMessage());
+                }
+            });
+            termicaBtn.addThemeVariants(ButtonVariant.LUMO_CONTRAST);
+            termicaBtn.addClassName("tn-no-print");
+            wrapper.add(termicaBtn);
+        }
         wrapper.setPadding(false);
         wrapper.setSpacing(true);
         wrapper.setAlignItems(Alignment.CENTER);
@@ -315,7 +324,7 @@ public class TicketView extends VerticalLayout implements HasUrlParameter<Long>
         hl.setSpacing(false);
 
         Span sLabel = new Span(label);
-        Span sVal = new Span("$" + valor.setScale(2, RoundingMode.HALF_UP));
+        Span sVal = new Span(importe(valor));
 
         sLabel.getStyle().set("font-size", "0.8rem");
         sVal.getStyle().set("font-size", "0.8rem");
@@ -328,8 +337,4 @@ public class TicketView extends VerticalLayout implements HasUrlParameter<Long>
         hl.add(sLabel, sVal);
         return hl;
     }
-
-    private String safe(String s) {
-        return s != null ? s : "";
-    }
 }
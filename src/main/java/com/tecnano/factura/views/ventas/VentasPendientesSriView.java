@@ -2,7 +2,7 @@ package com.tecnano.factura.views.ventas;
 
 import com.tecnano.factura.model.Venta;
 import com.tecnano.factura.repository.VentaRepository;
-import com.tecnano.factura.service.SriService;
+import com.tecnano.factura.service.EnvioSriService;
 import com.tecnano.factura.ui.Notificaciones;
 import com.tecnano.factura.views.MainLayout;
 import com.vaadin.flow.component.UI;
@@ -15,12 +15,17 @@ import com.vaadin.flow.component.html.Span;
 import com.vaadin.flow.component.orderedlayout.FlexComponent;
 import com.vaadin.flow.component.orderedlayout.HorizontalLayout;
 import com.vaadin.flow.component.orderedlayout.VerticalLayout;
+import com.vaadin.flow.component.progressbar.ProgressBar;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
+import com.vaadin.flow.shared.Registration;
 import jakarta.annotation.security.PermitAll;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Objects;
@@ -32,17 +37,26 @@ import java.util.stream.Collectors;
 public class VentasPendientesSriView extends VerticalLayout {
 
     private final VentaRepository ventaRepository;
-    private final SriService sriService;
+    private final EnvioSriService envioSriService;
 
     private final Grid<Venta> grid = new Grid<>(Venta.class, false);
 
+    // Panel de contingencia
+    private final Span estadoContingencia = new Span();
+    private final Span detalleContingencia = new Span();
+    private final ProgressBar progresoContingencia = new ProgressBar();
+    private final VerticalLayout cardContingencia = new VerticalLayout();
+    private Registration pollRegistration;
+    /** Intervalo de poll que tenía la UI antes de abrir esta vista (es de toda la UI, no solo nuestro). */
+    private int pollAnterior = -1;
+
     private final DateTimeFormatter fechaHoraFormatter =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
     public VentasPendientesSriView(VentaRepository ventaRepository,
-                                   SriService sriService) {
+                                   EnvioSriService envioSriService) {
         this.ventaRepository = ventaRepository;
-        this.sriService = sriService;
+        this.envioSriService = envioSriService;
 
         setSizeFull();
         setPadding(true);
@@ -50,6 +64,20 @@ public class VentasPendientesSriView extends VerticalLayout {
 
         construirUI();
         cargarVentas();
+
+        // Mientras la vista está abierta, el progreso del diario se refresca solo
+        addAttachListener(e -> {
+            pollAnterior = e.getUI().getPollInterval();
+            e.getUI().setPollInterval(pollAnterior > 0 ? Math.min(pollAnterior, 5000) : 5000);
+            pollRegistration = e.getUI().addPollListener(p -> actualizarContingencia());
+        });
+        addDetachListener(e -> {
+            if (pollRegistration != null) {
+                pollRegistration.remove();
+                pollRegistration = null;
+            }
+            e.getUI().setPollInterval(pollAnterior);
+        });
     }
 
     // =========================
@@ -60,7 +88,9 @@ public class VentasPendientesSriView extends VerticalLayout {
         titulo.getStyle().set("margin-bottom", "0.25rem");
 
         Span ayuda = new Span(
-                "Aquí ves las ventas con estado SRI = PENDIENTE o ERROR. " +
+                "Aquí ves las ventas con estado SRI = PENDIENTE, ERROR o RECHAZADA. " +
+                        "PENDIENTE y ERROR se reintentan solas; RECHAZADA requiere revisión. " +
+                        "Sin conexión con el proveedor, las ventas quedan en el diario de contingencia. " +
                         "Puedes reintentar el envío, revisar el mensaje de error o abrir el RIDE si existe."
         );
         ayuda.getStyle()
@@ -80,13 +110,24 @@ public class VentasPendientesSriView extends VerticalLayout {
         barraAcciones.setWidthFull();
         barraAcciones.setJustifyContentMode(FlexComponent.JustifyContentMode.END);
 
+        estadoContingencia.getStyle().set("font-weight", "600");
+        detalleContingencia.getStyle()
+                .set("font-size", "0.9rem")
+                .set("color", "var(--lumo-secondary-text-color)");
+        progresoContingencia.setWidthFull();
+        cardContingencia.add(estadoContingencia, detalleContingencia, progresoContingencia);
+        cardContingencia.addClassName("card-blanca");
+        cardContingencia.setPadding(true);
+        cardContingencia.setSpacing(false);
+        cardContingencia.setWidthFull();
+
         VerticalLayout card = new VerticalLayout(barraAcciones, grid);
         card.addClassName("card-blanca");
         card.setPadding(true);
         card.setSpacing(true);
         card.setWidthFull();
 
-        add(header, card);
+        add(header, cardContingencia, card);
     }
 
     private void configurarGrid() {
@@ -116,6 +157,19 @@ public class VentasPendientesSriView extends VerticalLayout {
                 .setHeader("Estado SRI")
                 .setAutoWidth(true);
 
+        grid.addColumn(Venta::getIntentosSri)
+                .setHeader("Intentos")
+                .setAutoWidth(true);
+
+        grid.addColumn(v -> {
+                    if (!"PENDIENTE".equals(normalizar(v.getEstadoSri()))
+                            && !"ERROR".equals(normalizar(v.getEstadoSri()))) return "-";
+                    if (envioSriService.estaEnContingencia(v.getId())) return "Diario contingencia";
+                    if (v.getProximoIntentoSri() == null) return "En cola";
+                    return v.getProximoIntentoSri().format(fechaHoraFormatter);
+                }).setHeader("Próximo intento")
+                .setAutoWidth(true);
+
         grid.addColumn(v -> {
                     String msg = v.getMensajeErrorSri();
                     if (msg == null || msg.isBlank()) return "";
@@ -160,26 +214,66 @@ public class VentasPendientesSriView extends VerticalLayout {
         List<Venta> filtradas = todas.stream()
                 .filter(v -> {
                     String est = normalizar(v.getEstadoSri());
-                    return "PENDIENTE".equals(est) || "ERROR".equals(est);
+                    return "PENDIENTE".equals(est) || "ERROR".equals(est) || "RECHAZADA".equals(est);
                 })
                 .collect(Collectors.toList());
 
         grid.setItems(filtradas);
+        actualizarContingencia();
 
         Notificaciones.info("Cargadas " + filtradas.size() + " ventas pendientes / con error.");
     }
 
+    private void actualizarContingencia() {
+        EnvioSriService.EstadoContingencia c = envioSriService.getEstadoContingencia();
+
+        if (!c.activa() && c.pendientes() == 0) {
+            cardContingencia.setVisible(false);
+            return;
+        }
+        cardContingencia.setVisible(true);
+
+        String desde = c.inicioCorteMs() > 0
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(c.inicioCorteMs()), ZoneId.systemDefault())
+                        .format(fechaHoraFormatter)
+                : "-";
+
+        long total = c.pendientes() + c.enviadasDesdeCorte();
+        if (c.activa()) {
+            estadoContingencia.setText("Modo contingencia: proveedor SRI sin conexión (circuito " + c.circuito() + ")");
+            estadoContingencia.getStyle().set("color", "var(--lumo-error-text-color)");
+            detalleContingencia.setText("Las ventas se emiten con clave de acceso local y se guardan en el diario. "
+                    + c.pendientes() + " en espera desde " + desde + ".");
+            progresoContingencia.setIndeterminate(true);
+        } else {
+            estadoContingencia.setText("Conexión recuperada: enviando ventas de contingencia en orden");
+            estadoContingencia.getStyle().set("color", "var(--lumo-success-text-color)");
+            detalleContingencia.setText(c.enviadasDesdeCorte() + " de " + total + " enviadas; faltan "
+                    + c.pendientes() + ".");
+            progresoContingencia.setIndeterminate(false);
+            progresoContingencia.setValue(total > 0 ? (double) c.enviadasDesdeCorte() / total : 0);
+        }
+    }
+
     // =========================
     // Acciones SRI
     // =========================
     private void reintentarSri(Venta venta) {
         try {
-            sriService.procesarVentaConSri(venta);
-            ventaRepository.save(venta);
+            var procesada = envioSriService.procesarAhora(venta.getId());
+            if (procesada.isEmpty()) {
+                Notificaciones.info("Venta " + venta.getId() + " ya se está enviando en segundo plano.");
+                return;
+            }
+            venta = procesada.get();
 
             String estadoFinal = normalizar(venta.getEstadoSri());
             if ("AUTORIZADA".equals(estadoFinal)) {
                 Notificaciones.exito("Venta " + venta.getId() + " AUTORIZADA por SRI.");
+            } else if ("RECHAZADA".equals(estadoFinal)) {
+                Notificaciones.error(
+                        "Venta " + venta.getId() + " RECHAZADA por el SRI. Revisa el mensaje."
+                );
             } else if ("ERROR".equals(estadoFinal)) {
                 Notificaciones.advertencia(
                         "Venta " + venta.getId() + " sigue en ERROR. Revisa el mensaje."
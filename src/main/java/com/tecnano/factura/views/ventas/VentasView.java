@@ -1,6 +1,7 @@
 package com.tecnano.factura.views.ventas;
 
-import com.tecnano.factura.model.Venta;
+import com.tecnano.factura.dto.TotalFormaPagoDTO;
+import com.tecnano.factura.dto.VentaListadoDTO;
 import com.tecnano.factura.repository.VentaRepository;
 import com.tecnano.factura.views.MainLayout;
 import com.vaadin.flow.component.button.Button;
@@ -17,6 +18,7 @@ import com.vaadin.flow.component.grid.Grid;
 import com.vaadin.flow.router.PageTitle;
 import com.vaadin.flow.router.Route;
 import jakarta.annotation.security.PermitAll;
+import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -34,7 +36,10 @@ public class VentasView extends VerticalLayout {
 
     private final DatePicker desdePicker = new DatePicker("Desde");
     private final DatePicker hastaPicker = new DatePicker("Hasta");
-    private final Grid<Venta> grid = new Grid<>(Venta.class, false);
+    private final Grid<VentaListadoDTO> grid = new Grid<>();
+
+    /** N° de ventas del rango buscado (del resumen), para el conteo de la grilla. */
+    private long totalVentasRango;
 
     // Resumen
     private final Span totalVentasSpan = new Span("0");
@@ -179,26 +184,26 @@ public class VentasView extends VerticalLayout {
     // Grid
     // =========================
     private void configurarGrid() {
-        grid.addColumn(Venta::getId)
+        grid.addColumn(VentaListadoDTO::id)
                 .setHeader("N°")
                 .setAutoWidth(true);
 
-        grid.addColumn(v -> v.getFechaHora() != null ? v.getFechaHora().toString() : "")
+        grid.addColumn(v -> v.fechaHora() != null ? v.fechaHora().toString() : "")
                 .setHeader("Fecha/Hora")
                 .setAutoWidth(true);
 
         grid.addColumn(v -> {
-                    String ubic = v.getUbicacion() != null ? v.getUbicacion() : v.getMesa();
+                    String ubic = v.ubicacion() != null ? v.ubicacion() : v.mesa();
                     return ubic != null ? ubic : "";
                 }).setHeader("Mesa/Pedido")
                 .setFlexGrow(1);
 
-        grid.addColumn(Venta::getFormaPago)
+        grid.addColumn(VentaListadoDTO::formaPago)
                 .setHeader("Forma de pago")
                 .setAutoWidth(true);
 
         grid.addColumn(v -> {
-                    BigDecimal t = v.getTotal() != null ? v.getTotal() : BigDecimal.ZERO;
+                    BigDecimal t = v.total() != null ? v.total() : BigDecimal.ZERO;
                     return t.setScale(2, RoundingMode.HALF_UP);
                 }).setHeader("Total")
                 .setAutoWidth(true);
@@ -254,29 +259,32 @@ public class VentasView extends VerticalLayout {
         }
 
         LocalDateTime inicio = desde.atStartOfDay();
-        LocalDateTime fin = hasta.plusDays(1).atStartOfDay().minusNanos(1);
-
-        List<Venta> ventas = ventaRepository.findByFechaHoraBetween(inicio, fin);
-
-        grid.setItems(ventas);
-        actualizarResumen(ventas);
+        LocalDateTime fin = hasta.plusDays(1).atStartOfDay();
+
+        // Totales sumados en la BD; la grilla pide de a una página
+        actualizarResumen(ventaRepository.totalesPorFormaPago(inicio, fin));
+        int cantidad = (int) totalVentasRango;
+        grid.setItems(
+                q -> ventaRepository.findListado(inicio, fin, PageRequest.of(q.getPage(), q.getPageSize())).stream(),
+                q -> cantidad);
     }
 
     // =========================
     // Resumen + “gráfico”
     // =========================
-    private void actualizarResumen(List<Venta> ventas) {
-        int num = ventas.size();
+    private void actualizarResumen(List<TotalFormaPagoDTO> totales) {
+        long num = 0;
         BigDecimal totalMonto = BigDecimal.ZERO;
         BigDecimal totalEfectivo = BigDecimal.ZERO;
         BigDecimal totalTarjeta = BigDecimal.ZERO;
         BigDecimal totalTransferencia = BigDecimal.ZERO;
 
-        for (Venta v : ventas) {
-            BigDecimal t = v.getTotal() != null ? v.getTotal() : BigDecimal.ZERO;
+        for (TotalFormaPagoDTO f : totales) {
+            num += f.ventas() != null ? f.ventas() : 0;
+            BigDecimal t = f.total() != null ? f.total() : BigDecimal.ZERO;
             totalMonto = totalMonto.add(t);
 
-            String forma = v.getFormaPago() != null ? v.getFormaPago().toLowerCase() : "efectivo";
+            String forma = f.formaPago() != null ? f.formaPago().toLowerCase() : "efectivo";
             switch (forma) {
                 case "tarjeta" -> totalTarjeta = totalTarjeta.add(t);
                 case "transferencia" -> totalTransferencia = totalTransferencia.add(t);
@@ -284,6 +292,7 @@ public class VentasView extends VerticalLayout {
             }
         }
 
+        totalVentasRango = num;
         totalVentasSpan.setText(String.valueOf(num));
         totalMontoSpan.setText("$ " + totalMonto.setScale(2, RoundingMode.HALF_UP));
         efectivoSpan.setText("$ " + totalEfectivo.setScale(2, RoundingMode.HALF_UP));
@@ -2,7 +2,7 @@ package com.tecnano.factura.web;
 
 import com.tecnano.factura.model.Venta;
 import com.tecnano.factura.repository.VentaRepository;
-import com.tecnano.factura.service.SriService;
+import com.tecnano.factura.service.EnvioSriService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,12 +22,12 @@ import java.util.List;
 public class FacturaController {
 
     private final VentaRepository ventaRepository;
-    private final SriService sriService;
+    private final EnvioSriService envioSriService;
 
     public FacturaController(VentaRepository ventaRepository,
-                             SriService sriService) {
+                             EnvioSriService envioSriService) {
         this.ventaRepository = ventaRepository;
-        this.sriService = sriService;
+        this.envioSriService = envioSriService;
     }
 
     /**
@@ -43,7 +43,7 @@ public class FacturaController {
     }
 
     /**
-     * Listar ventas con estado SRI = PENDIENTE o ERROR.
+     * Listar ventas con estado SRI = PENDIENTE, ERROR o RECHAZADA.
      *
      * GET /api/facturas/pendientes-sri
      */
@@ -52,7 +52,7 @@ public class FacturaController {
         return ventaRepository.findAll().stream()
                 .filter(v -> {
                     String est = normalizar(v.getEstadoSri());
-                    return "PENDIENTE".equals(est) || "ERROR".equals(est);
+                    return "PENDIENTE".equals(est) || "ERROR".equals(est) || "RECHAZADA".equals(est);
                 })
                 .toList();
     }
@@ -72,19 +72,23 @@ public class FacturaController {
                     .body("Venta no encontrada: " + id);
         }
 
-        Venta venta = opt.get();
         try {
-            // Procesamos con el servicio de SRI (genera XML, llama proveedor, etc.)
-            sriService.procesarVentaConSri(venta);
-            // Guardamos cualquier cambio de estado/claveAcceso/ridePdf, etc.
-            ventaRepository.save(venta);
+            // Procesa y guarda solo los campos SRI (genera XML, llama proveedor, etc.)
+            var procesada = envioSriService.procesarAhora(id);
+            if (procesada.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("Venta " + id + " ya se está enviando al SRI en segundo plano.");
+            }
+            Venta venta = procesada.get();
 
             String estado = normalizar(venta.getEstadoSri());
             String mensaje = switch (estado) {
                 case "AUTORIZADA" ->
                         "Venta " + id + " AUTORIZADA por SRI.";
                 case "ERROR" ->
-                        "Venta " + id + " quedó en ERROR. Revisa mensajeErrorSri.";
+                        "Venta " + id + " quedó en ERROR. Se reintentará automáticamente.";
+                case "RECHAZADA" ->
+                        "Venta " + id + " RECHAZADA por SRI. Revisa mensajeErrorSri.";
                 case "PENDIENTE" ->
                         "Venta " + id + " sigue en estado PENDIENTE.";
                 default ->
@@ -0,0 +1,95 @@
+// =====================================================
+// src/test/java/com/tecnano/factura/service/ClaveAccesoSriTest.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClaveAccesoSriTest {
+
+    /** Ejemplo de la ficha técnica de comprobantes electrónicos del SRI. */
+    private static final String CLAVE_FICHA_TECNICA = "2110201101179214673900110020010000000011234567813";
+
+    private static final LocalDate FECHA = LocalDate.of(2024, 5, 15);
+
+    @Test
+    void reproduceLaClaveDeLaFichaTecnica() {
+        String clave = ClaveAccesoSri.generar(LocalDate.of(2011, 10, 21), ClaveAccesoSri.TIPO_FACTURA,
+                "1792146739001", "1", "002", "001", 1, "12345678", ClaveAccesoSri.EMISION_NORMAL);
+
+        assertEquals(CLAVE_FICHA_TECNICA, clave);
+        assertTrue(ClaveAccesoSri.esValida(CLAVE_FICHA_TECNICA));
+    }
+
+    @Test
+    void camposEnSuPosicion() {
+        String clave = ClaveAccesoSri.generar(FECHA, ClaveAccesoSri.TIPO_FACTURA,
+                "1790012345001", "2", "3", "14", 4567, "00000042", ClaveAccesoSri.EMISION_NORMAL);
+
+        assertEquals(49, clave.length());
+        assertEquals("15052024", clave.substring(0, 8));
+        assertEquals("01", clave.substring(8, 10));
+        assertEquals("1790012345001", clave.substring(10, 23));
+        assertEquals("2", clave.substring(23, 24));
+        assertEquals("003014", clave.substring(24, 30));
+        assertEquals("000004567", clave.substring(30, 39));
+        assertEquals("00000042", clave.substring(39, 47));
+        assertEquals("1", clave.substring(47, 48));
+        assertEquals(ClaveAccesoSri.digitoVerificador(clave.substring(0, 48)), clave.charAt(48) - '0');
+    }
+
+    @Test
+    void codigoNumericoAleatorioSigueSiendoValido() {
+        for (int i = 0; i < 50; i++) {
+            String clave = ClaveAccesoSri.generar(FECHA, ClaveAccesoSri.TIPO_FACTURA,
+                    "1790012345001", "1", "001", "001", i + 1, ClaveAccesoSri.EMISION_NORMAL);
+            assertEquals(49, clave.length());
+            assertTrue(ClaveAccesoSri.esValida(clave), clave);
+        }
+    }
+
+    @Test
+    void digitoVerificadorCasoGeneral() {
+        assertEquals(3, ClaveAccesoSri.digitoVerificador(CLAVE_FICHA_TECNICA.substring(0, 48)));
+    }
+
+    @Test
+    void onceSeVuelveCero() {
+        // 11 - (suma % 11) == 11 para el secuencial 11
+        String clave48 = "150520240117900123450011001001" + "000000011" + "12345678" + "1";
+
+        assertEquals(0, ClaveAccesoSri.digitoVerificador(clave48));
+        assertTrue(ClaveAccesoSri.esValida(clave48 + "0"));
+    }
+
+    @Test
+    void diezSeVuelveUno() {
+        // 11 - (suma % 11) == 10 para el secuencial 9
+        String clave48 = "150520240117900123450011001001" + "000000009" + "12345678" + "1";
+
+        assertEquals(1, ClaveAccesoSri.digitoVerificador(clave48));
+        assertTrue(ClaveAccesoSri.esValida(clave48 + "1"));
+    }
+
+    @Test
+    void esValidaRechazaClavesMalFormadas() {
+        assertFalse(ClaveAccesoSri.esValida(null));
+        assertFalse(ClaveAccesoSri.esValida(CLAVE_FICHA_TECNICA.substring(0, 48)));
+        assertFalse(ClaveAccesoSri.esValida(CLAVE_FICHA_TECNICA.substring(0, 48) + "4"));
+        assertFalse(ClaveAccesoSri.esValida(CLAVE_FICHA_TECNICA.substring(0, 48).replace('9', 'X') + "3"));
+    }
+
+    @Test
+    void rechazaCamposFueraDeFormato() {
+        assertThrows(IllegalArgumentException.class, () -> ClaveAccesoSri.generar(FECHA, "01",
+                "17900123450011", "1", "001", "001", 1, "12345678", "1"));
+        assertThrows(IllegalArgumentException.class, () -> ClaveAccesoSri.generar(FECHA, "01",
+                "1790012345001", "1", "0A1", "001", 1, "12345678", "1"));
+        assertThrows(IllegalArgumentException.class, () -> ClaveAccesoSri.secuencial9(0));
+        assertThrows(IllegalArgumentException.class, () -> ClaveAccesoSri.secuencial9(1_000_000_000L));
+    }
+}
@@ -0,0 +1,232 @@
+// =====================================================
+// src/test/java/com/tecnano/factura/service/FirmadorXadesBesTest.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.crypto.dsig.Reference;
+import javax.xml.crypto.dsig.XMLSignature;
+import javax.xml.crypto.dsig.XMLSignatureFactory;
+import javax.xml.crypto.dsig.dom.DOMValidateContext;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FirmadorXadesBesTest {
+
+    private static final String NS_DS = XMLSignature.XMLNS;
+    private static final String NS_ETSI = "http://uri.etsi.org/01903/v1.3.2#";
+    private static final char[] CLAVE = "clave-prueba".toCharArray();
+
+    private static final String COMPROBANTE =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<factura id=\"comprobante\" version=\"1.1.0\">"
+            + "<infoTributaria><ambiente>1</ambiente><ruc>1790012345001</ruc>"
+            + "<claveAcceso>2110201101179214673900110020010000000011234567813</claveAcceso></infoTributaria>"
+            + "<detalles><detalle><descripcion>Seco de chivo &amp; maduro</descripcion>"
+            + "<precioTotalSinImpuesto>6.75</precioTotalSinImpuesto></detalle></detalles>"
+            + "</factura>";
+
+    private static X509Certificate certificado;
+    private static FirmadorXadesBes firmador;
+
+    @BeforeAll
+    static void crearCertificado() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        KeyPair par = kpg.generateKeyPair();
+        certificado = autofirmado(par, "CN=Tecnano Pruebas,O=Tecnano,C=EC");
+
+        // Mismo camino que en producción: un .p12 leído de un stream
+        KeyStore ks = KeyStore.getInstance("PKCS12");
+        ks.load(null, null);
+        ks.setKeyEntry("firma", par.getPrivate(), CLAVE, new Certificate[]{certificado});
+        ByteArrayOutputStream p12 = new ByteArrayOutputStream();
+        ks.store(p12, CLAVE);
+
+        firmador = FirmadorXadesBes.desdePkcs12(new ByteArrayInputStream(p12.toByteArray()), CLAVE);
+    }
+
+    @Test
+    void laFirmaDelComprobanteEsValida() throws Exception {
+        Document doc = parsear(firmador.firmar(COMPROBANTE.getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(desempaquetar(doc).validate(contextoValidacion(doc)), "la firma XML no valida");
+    }
+
+    @Test
+    void laReferenciaASignedPropertiesCuadraConSuDigest() throws Exception {
+        Document doc = parsear(firmador.firmar(COMPROBANTE.getBytes(StandardCharsets.UTF_8)));
+        DOMValidateContext ctx = contextoValidacion(doc);
+        XMLSignature firma = desempaquetar(doc);
+
+        Element signedProperties = (Element) doc.getElementsByTagNameNS(NS_ETSI, "SignedProperties").item(0);
+        assertNotNull(signedProperties, "falta etsi:SignedProperties");
+
+        Reference ref = firma.getSignedInfo().getReferences().stream()
+                .filter(r -> "http://uri.etsi.org/01903#SignedProperties".equals(r.getType()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no hay referencia a SignedProperties"));
+        assertEquals("#" + signedProperties.getAttribute("Id"), ref.getURI());
+
+        assertTrue(ref.validate(ctx), "el digest de SignedProperties no coincide");
+        assertArrayEquals(ref.getDigestValue(), ref.getCalculatedDigestValue());
+
+        // SigningCertificate apunta al certificado con el que se firmó
+        String certDigest = texto(signedProperties, NS_DS, "DigestValue");
+        String esperado = Base64.getEncoder().encodeToString(
+                MessageDigest.getInstance("SHA-1").digest(certificado.getEncoded()));
+        assertEquals(esperado, certDigest);
+        assertEquals(certificado.getSerialNumber().toString(),
+                texto(signedProperties, NS_DS, "X509SerialNumber"));
+    }
+
+    @Test
+    void alterarElComprobanteRompeLaFirma() throws Exception {
+        Document doc = parsear(firmador.firmar(COMPROBANTE.getBytes(StandardCharsets.UTF_8)));
+        doc.getElementsByTagName("precioTotalSinImpuesto").item(0).setTextContent("0.01");
+
+        assertFalse(desempaquetar(doc).validate(contextoValidacion(doc)));
+    }
+
+    @Test
+    void unMismoFirmadorFirmaVariasVeces() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Document doc = parsear(firmador.firmar(COMPROBANTE.getBytes(StandardCharsets.UTF_8)));
+            assertTrue(desempaquetar(doc).validate(contextoValidacion(doc)), "firma " + i);
+        }
+    }
+
+    // =========================
+    // Apoyo
+    // =========================
+
+    private static Document parsear(byte[] xml) throws Exception {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        return dbf.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    }
+
+    private static DOMValidateContext contextoValidacion(Document doc) {
+        Element signature = (Element) doc.getElementsByTagNameNS(NS_DS, "Signature").item(0);
+        assertNotNull(signature, "falta ds:Signature");
+
+        DOMValidateContext ctx = new DOMValidateContext(certificado.getPublicKey(), signature);
+        ctx.setIdAttributeNS(doc.getDocumentElement(), null, "id");
+        ctx.setIdAttributeNS((Element) doc.getElementsByTagNameNS(NS_ETSI, "SignedProperties").item(0), null, "Id");
+        NodeList keyInfo = doc.getElementsByTagNameNS(NS_DS, "KeyInfo");
+        ctx.setIdAttributeNS((Element) keyInfo.item(0), null, "Id");
+        // El SRI exige RSA-SHA1, que la validación segura del JDK 17 rechaza
+        ctx.setProperty("org.jcp.xml.dsig.secureValidation", Boolean.FALSE);
+        return ctx;
+    }
+
+    private static XMLSignature desempaquetar(Document doc) throws Exception {
+        return XMLSignatureFactory.getInstance("DOM").unmarshalXMLSignature(contextoValidacion(doc));
+    }
+
+    private static String texto(Element padre, String ns, String nombre) {
+        return padre.getElementsByTagNameNS(ns, nombre).item(0).getTextContent();
+    }
+
+    /**
+     * Certificado X.509 v3 autofirmado armado a mano en DER: el JDK no trae
+     * API pública para emitir certificados y no queremos BouncyCastle solo
+     * para las pruebas.
+     */
+    private static X509Certificate autofirmado(KeyPair par, String dn) throws Exception {
+        byte[] sha256ConRsa = der(0x30, concat(
+                der(0x06, new byte[]{0x2A, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xF7, 0x0D, 0x01, 0x01, 0x0B}),
+                new byte[]{0x05, 0x00}));
+        byte[] nombre = nombre(dn);
+        ZonedDateTime ahora = ZonedDateTime.now(ZoneOffset.UTC);
+        DateTimeFormatter utc = DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'");
+
+        byte[] tbs = der(0x30, concat(
+                der(0xA0, der(0x02, new byte[]{0x02})),
+                der(0x02, BigInteger.valueOf(System.currentTimeMillis()).toByteArray()),
+                sha256ConRsa,
+                nombre,
+                der(0x30, concat(
+                        der(0x17, ahora.minusDays(1).format(utc).getBytes(StandardCharsets.US_ASCII)),
+                        der(0x17, ahora.plusYears(1).format(utc).getBytes(StandardCharsets.US_ASCII)))),
+                nombre,
+                par.getPublic().getEncoded()));
+
+        Signature s = Signature.getInstance("SHA256withRSA");
+        s.initSign(par.getPrivate());
+        s.update(tbs);
+        byte[] firma = concat(new byte[]{0x00}, s.sign());
+
+        byte[] cert = der(0x30, concat(tbs, sha256ConRsa, der(0x03, firma)));
+        return (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(cert));
+    }
+
+    /** Name con un RDN por componente (CN, O, C), en el orden dado. */
+    private static byte[] nombre(String dn) {
+        String[] partes = dn.split(",");
+        byte[][] rdns = new byte[partes.length][];
+        for (int i = 0; i < partes.length; i++) {
+            String[] kv = partes[i].split("=", 2);
+            byte oid = switch (kv[0].trim()) {
+                case "CN" -> 3;
+                case "C" -> 6;
+                case "O" -> 10;
+                default -> throw new IllegalArgumentException(kv[0]);
+            };
+            // C va como PrintableString, el resto como UTF8String
+            int tipo = oid == 6 ? 0x13 : 0x0C;
+            rdns[i] = der(0x31, der(0x30, concat(
+                    der(0x06, new byte[]{0x55, 0x04, oid}),
+                    der(tipo, kv[1].trim().getBytes(StandardCharsets.UTF_8)))));
+        }
+        return der(0x30, concat(rdns));
+    }
+
+    private static byte[] der(int tag, byte[] contenido) {
+        int n = contenido.length;
+        byte[] largo;
+        if (n < 0x80) {
+            largo = new byte[]{(byte) n};
+        } else if (n < 0x100) {
+            largo = new byte[]{(byte) 0x81, (byte) n};
+        } else {
+            largo = new byte[]{(byte) 0x82, (byte) (n >> 8), (byte) n};
+        }
+        return concat(new byte[]{(byte) tag}, largo, contenido);
+    }
+
+    private static byte[] concat(byte[]... partes) {
+        int total = Arrays.stream(partes).mapToInt(p -> p.length).sum();
+        byte[] r = new byte[total];
+        int pos = 0;
+        for (byte[] p : partes) {
+            System.arraycopy(p, 0, r, pos, p.length);
+            pos += p.length;
+        }
+        return r;
+    }
+}
@@ -0,0 +1,121 @@
+// =====================================================
+// src/test/java/com/tecnano/factura/service/ImpresorasServiceTest.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImpresorasServiceTest {
+
+    private ImpresorasService impresoras;
+    private ServerSocket servidor;
+    private final List<Socket> abiertos = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() throws IOException {
+        AppProperties props = new AppProperties();
+        props.getImpresion().setTcpTimeoutMs(500);
+        impresoras = new ImpresorasService(props);
+        servidor = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    }
+
+    @AfterEach
+    void cerrar() throws IOException {
+        for (Socket s : abiertos) s.close();
+        servidor.close();
+    }
+
+    @Test
+    void comandaLlegaPorTcpTalCual() throws Exception {
+        byte[] comanda = new EscPos(EscPos.Tabla.PC850).inicializar()
+                .alinear(EscPos.Alineacion.CENTRO)
+                .negrita(true).linea("COMANDA COCINA").negrita(false)
+                .linea("1    Encebollado")
+                .avanzar(4)
+                .cortarTotal()
+                .toBytes();
+
+        CompletableFuture<byte[]> recibido = CompletableFuture.supplyAsync(this::leerUnaConexion);
+        impresoras.imprimir("tcp://127.0.0.1:" + servidor.getLocalPort(), comanda, "comanda");
+        byte[] bytes = recibido.get(5, TimeUnit.SECONDS);
+
+        assertArrayEquals(comanda, bytes);
+        // ESC @ y ESC t 2 (PC850) al inicio, GS V 65 0 al final
+        assertArrayEquals(new byte[]{0x1B, 0x40, 0x1B, 0x74, 2}, Arrays.copyOfRange(bytes, 0, 5));
+        assertArrayEquals(new byte[]{0x1D, 0x56, 65, 0}, Arrays.copyOfRange(bytes, bytes.length - 4, bytes.length));
+    }
+
+    @Test
+    void reconoceDireccionesTcp() {
+        assertTrue(ImpresorasService.esTcp("TCP://10.0.0.5"));
+        assertFalse(ImpresorasService.esTcp("EPSON TM-T20"));
+        assertFalse(ImpresorasService.esTcp(null));
+    }
+
+    @Test
+    void impresoraQueNoContestaCortaPorTimeout() throws Exception {
+        // Cola de conexiones del servidor llena y nadie acepta: el SYN queda sin respuesta
+        int puerto = servidor.getLocalPort();
+        for (int i = 0; i < 50; i++) {
+            Socket s = new Socket();
+            try {
+                s.connect(new InetSocketAddress("127.0.0.1", puerto), 200);
+                abiertos.add(s);
+            } catch (SocketTimeoutException e) {
+                s.close();
+                break;
+            }
+        }
+
+        long inicio = System.nanoTime();
+        assertThrows(SocketTimeoutException.class,
+                () -> impresoras.imprimir("tcp://127.0.0.1:" + puerto, new byte[]{0x1B, 0x40}, "comanda"));
+        long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        assertTrue(ms >= 400 && ms < 3000, "tardó " + ms + " ms");
+    }
+
+    @Test
+    void impresoraApagadaFallaEnseguida() throws Exception {
+        int puerto = servidor.getLocalPort();
+        servidor.close();
+
+        assertThrows(ConnectException.class,
+                () -> impresoras.imprimir("tcp://127.0.0.1:" + puerto, new byte[]{0x1B, 0x40}, "comanda"));
+    }
+
+    @Test
+    void direccionSinHostEsError() {
+        assertThrows(IOException.class, () -> impresoras.imprimir("tcp://cocina_1:9100", new byte[0], "comanda"));
+    }
+
+    private byte[] leerUnaConexion() {
+        try (Socket s = servidor.accept(); InputStream in = s.getInputStream()) {
+            s.setSoTimeout(5000);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            in.transferTo(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+// =====================================================
+// src/test/java/com/tecnano/factura/service/IndiceProductosTest.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.service.CatalogoProductosService.Item;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndiceProductosTest {
+
+    private static final List<Item> CARTA = List.of(
+            item(1, "CH01", "Chaulafán de pollo"),
+            item(2, "SC01", "Seco de pollo"),
+            item(3, "SC02", "Seco de chivo"),
+            item(4, "EN01", "Ensalada mixta"),
+            item(5, "LS01", "Lasaña de carne"),
+            item(6, "SECO", "Menestra con carne"),
+            item(7, "BB01", "Jugo de piña"),
+            item(8, "BB02", "Limonada")
+    );
+
+    /** Ventas por id: Seco de pollo es lo que más sale. */
+    private static final Map<Long, Long> VENTAS = Map.of(
+            1L, 40L, 2L, 90L, 3L, 60L, 4L, 5L, 5L, 15L, 6L, 1L, 7L, 30L, 8L, 30L);
+
+    private final IndiceProductos indice = IndiceProductos.construir(CARTA, id -> VENTAS.getOrDefault(id, 0L));
+
+    @Test
+    void ignoraTildesYMayusculas() {
+        assertEquals(List.of("Chaulafán de pollo"), nombres(indice.buscar("chaulafan", 10)));
+        assertEquals(List.of("Chaulafán de pollo"), nombres(indice.buscar("CHAULAFÁN", 10)));
+        assertEquals(List.of("Jugo de piña"), nombres(indice.buscar("pina", 10)));
+        assertEquals("seco de pollo", IndiceProductos.plegar("  Seco   de PÓLLO "));
+    }
+
+    @Test
+    void todasLasPalabrasDebenEstar() {
+        assertEquals(List.of("Seco de pollo"), nombres(indice.buscar("seco pollo", 10)));
+        assertEquals(List.of("Seco de pollo"), nombres(indice.buscar("pollo seco", 10)));
+        assertEquals(List.of(), indice.buscar("seco lasaña", 10));
+    }
+
+    @Test
+    void unaODosLetrasBuscanInicioDePalabra() {
+        // "la" solo como inicio de palabra: "chaulafan" y "ensalada" lo tienen a media palabra
+        assertEquals(List.of("Lasaña de carne"), nombres(indice.buscar("la", 10)));
+        // Desde tres letras es subcadena
+        assertEquals(List.of("Ensalada mixta"), nombres(indice.buscar("ala", 10)));
+        assertEquals(List.of("Chaulafán de pollo"), nombres(indice.buscar("ula", 10)));
+    }
+
+    @Test
+    void codigoExactoVaPrimero() {
+        // "SECO" es el código de la menestra, la que menos se vende
+        List<String> r = nombres(indice.buscar("seco", 10));
+
+        assertEquals(List.of("Menestra con carne", "Seco de pollo", "Seco de chivo"), r);
+        assertEquals("Menestra con carne", indice.porCodigo("seco").nombre());
+        assertEquals("Seco de chivo", indice.porCodigo("SC02").nombre());
+        assertNull(indice.porCodigo("XX99"));
+    }
+
+    @Test
+    void ordenaPorVentasYLuegoPorNombre() {
+        assertEquals(List.of("Seco de pollo", "Seco de chivo", "Chaulafán de pollo", "Jugo de piña",
+                        "Lasaña de carne"),
+                nombres(indice.buscar("de", 10)));
+
+        // A igual venta, por nombre
+        IndiceProductos sinVentas = indice.conVentas(id -> 0);
+        assertEquals(List.of("Chaulafán de pollo", "Jugo de piña", "Lasaña de carne", "Seco de chivo",
+                        "Seco de pollo"),
+                nombres(sinVentas.buscar("de", 10)));
+
+        // Con otras ventas cambia el orden sin reindexar el texto
+        IndiceProductos otro = indice.conVentas(id -> id == 1L ? 500 : 0);
+        assertEquals(List.of("Chaulafán de pollo", "Seco de pollo"), nombres(otro.buscar("pollo", 10)));
+    }
+
+    @Test
+    void respetaElLimite() {
+        assertEquals(List.of("Seco de pollo"), nombres(indice.buscar("pollo", 1)));
+        assertEquals(3, indice.buscar("", 3).size());
+    }
+
+    @Test
+    void muchosCandidatosRecorrenElOrdenPorVentas() {
+        // Más productos con "pollo" que CANDIDATOS_PARA_ORDENAR: entra por la rama que
+        // recorre el orden por ventas en vez de armar y ordenar la lista
+        List<Item> grande = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            grande.add(item(i, "G" + i, (i % 2 == 0 ? "Pollo asado " : "Pollo frito ") + i));
+        }
+        ToLongFunction<Long> ventas = id -> (id * 7919) % 1000;
+        IndiceProductos idx = IndiceProductos.construir(grande, ventas);
+
+        assertEquals(esperado(grande, ventas, t -> t.contains("pollo"), 20), idx.buscar("pollo", 20));
+        assertEquals(esperado(grande, ventas, t -> t.contains("pollo") && t.contains("asado"), 20),
+                idx.buscar("pollo asado", 20));
+        assertEquals(esperado(grande, ventas, t -> t.startsWith("pollo"), 15), idx.buscar("po", 15));
+
+        // Y la rama normal sobre el mismo índice
+        assertEquals(esperado(grande, ventas, t -> t.endsWith(" 4321"), 20), idx.buscar("4321", 20));
+    }
+
+    // =========================
+    // Apoyo
+    // =========================
+
+    private static Item item(long id, String codigo, String nombre) {
+        return new Item(id, codigo, nombre, BigDecimal.ONE, true, null);
+    }
+
+    private static List<String> nombres(List<Item> items) {
+        return items.stream().map(Item::nombre).toList();
+    }
+
+    /** Lo mismo por fuerza bruta: filtra el texto plegado y ordena por ventas y nombre. */
+    private static List<Item> esperado(List<Item> items, ToLongFunction<Long> ventas,
+                                       Predicate<String> coincide, int limite) {
+        return items.stream()
+                .filter(it -> coincide.test(IndiceProductos.plegar(it.nombre())))
+                .sorted(Comparator.comparingLong((Item it) -> -ventas.applyAsLong(it.id()))
+                        .thenComparing(Item::nombre, String.CASE_INSENSITIVE_ORDER))
+                .limit(limite)
+                .toList();
+    }
+}
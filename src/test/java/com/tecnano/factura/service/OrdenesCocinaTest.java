@@ -0,0 +1,163 @@
+// =====================================================
+// src/test/java/com/tecnano/factura/service/OrdenesCocinaTest.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.dto.LineaCocinaDTO;
+import com.tecnano.factura.dto.OrdenCocinaDTO;
+import com.tecnano.factura.model.DetalleVenta;
+import com.tecnano.factura.model.Producto;
+import com.tecnano.factura.model.Venta;
+import com.tecnano.factura.repository.ProductoRepository;
+import com.tecnano.factura.repository.VentaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * La consulta de cocina por DTO ({@link VentaService#listarOrdenesCocina})
+ * contra lo que hacía CocinaView antes: traer todas las ventas del día con
+ * findByFechaHoraBetween y filtrar en memoria. Con un año de ventas en H2.
+ */
+@DataJpaTest
+class OrdenesCocinaTest {
+
+    private static final String[] ESTADOS = {"NUEVO", "EN_PREPARACION", "LISTA", "ENTREGADA"};
+
+    @Autowired
+    private VentaRepository ventaRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private VentaService ventaService;
+    private final LocalDate hoy = LocalDate.now();
+
+    @BeforeEach
+    void sembrarUnAnio() {
+        // Las dependencias de envío y eventos no se usan en las consultas de cocina
+        ventaService = new VentaService(ventaRepository, productoRepository, null, null, null);
+
+        List<Producto> productos = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Producto p = new Producto();
+            p.setCodigo("P" + i);
+            p.setNombre("Plato " + i);
+            p.setPrecio(new BigDecimal("4.50"));
+            productos.add(p);
+        }
+        productos = productoRepository.saveAll(productos);
+
+        Random rnd = new Random(365);
+        List<Venta> ventas = new ArrayList<>();
+        for (int dia = 364; dia >= 0; dia--) {
+            LocalDate fecha = hoy.minusDays(dia);
+            for (int n = 0; n < 12; n++) {
+                Venta v = new Venta();
+                v.setFechaHora(fecha.atTime(8 + n, rnd.nextInt(60)));
+                v.setUbicacion("Mesa " + (1 + rnd.nextInt(15)));
+                v.setTotal(new BigDecimal("9.00"));
+                // Lo de días pasados ya se entregó casi todo; hoy hay de todo, también sin estado
+                if (dia == 0) {
+                    v.setEstadoCocina(n % 5 == 4 ? null : ESTADOS[n % 4]);
+                } else {
+                    v.setEstadoCocina(rnd.nextInt(50) == 0 ? "LISTA" : "ENTREGADA");
+                }
+                for (int l = 0; l < 1 + rnd.nextInt(3); l++) {
+                    DetalleVenta d = new DetalleVenta();
+                    d.setProducto(productos.get(rnd.nextInt(productos.size())));
+                    d.setCantidad(1 + rnd.nextInt(3));
+                    d.setPrecioUnitario(new BigDecimal("4.50"));
+                    if (rnd.nextInt(4) == 0) d.setNotaCocina("sin cebolla");
+                    v.addDetalle(d);
+                }
+                ventas.add(v);
+            }
+        }
+        ventas = ventaRepository.saveAll(ventas);
+        ventaRepository.flush();
+
+        // Ventas a medio registrar (sin total) no van a cocina
+        Venta sinTotal = ventas.get(ventas.size() - 2);
+        jdbc.update("update ventas set total = null where id = ?", sinTotal.getId());
+
+        ventaService.normalizarEstadoCocina();
+    }
+
+    @Test
+    void mismasOrdenesQueFiltrandoEnMemoria() {
+        List<OrdenCocinaDTO> nuevas = ventaService.listarOrdenesCocina(hoy);
+        List<Venta> antes = comoAntes();
+
+        assertFalse(nuevas.isEmpty());
+        assertEquals(antes.size(), nuevas.size());
+        for (int i = 0; i < antes.size(); i++) {
+            Venta v = antes.get(i);
+            OrdenCocinaDTO o = nuevas.get(i);
+
+            assertEquals(v.getId(), o.ventaId());
+            assertEquals(v.getFechaHora(), o.fechaHora());
+            assertEquals(v.getUbicacion(), o.ubicacion());
+            assertEquals(0, v.getTotal().compareTo(o.total()));
+            assertEquals(v.getEstadoCocina() != null ? v.getEstadoCocina() : "NUEVO", o.estadoCocina());
+
+            List<DetalleVenta> detalles = v.getDetalles().stream()
+                    .sorted(Comparator.comparing(DetalleVenta::getId))
+                    .toList();
+            assertEquals(detalles.size(), o.lineas().size(), "líneas de la venta " + v.getId());
+            for (int j = 0; j < detalles.size(); j++) {
+                DetalleVenta d = detalles.get(j);
+                LineaCocinaDTO l = o.lineas().get(j);
+                assertEquals(d.getProducto().getNombre(), l.producto());
+                assertEquals(d.getCantidad(), l.cantidad());
+                assertEquals(d.getNotaCocina(), l.notaCocina());
+            }
+        }
+    }
+
+    @Test
+    void laConsultaVaPorIndice() {
+        jdbc.execute("analyze");
+
+        String plan = jdbc.queryForObject("""
+                explain select v.id, v.fecha_hora, v.ubicacion, v.mesa, v.total, v.estado_cocina
+                from ventas v
+                where v.estado_cocina in ('NUEVO', 'EN_PREPARACION', 'LISTA')
+                  and v.fecha_hora >= ?
+                  and v.total is not null
+                order by v.fecha_hora, v.id
+                """, String.class, hoy.atStartOfDay()).toUpperCase();
+
+        // H2 elige por costo entre idx_ventas_cocina e idx_ventas_fecha; lo que no
+        // puede pasar es que recorra la tabla entera
+        assertFalse(plan.contains("TABLESCAN"), plan);
+        assertTrue(plan.contains("IDX_VENTAS_COCINA") || plan.contains("IDX_VENTAS_FECHA"), plan);
+    }
+
+    /** Lo que hacía CocinaView.cargarOrdenesHoy con findByFechaHoraBetween. */
+    private List<Venta> comoAntes() {
+        LocalDateTime desde = hoy.atStartOfDay();
+        LocalDateTime hasta = hoy.plusDays(1).atStartOfDay().minusNanos(1);
+
+        return ventaRepository.findByFechaHoraBetween(desde, hasta).stream()
+                .filter(v -> v.getTotal() != null)
+                .filter(v -> !"ENTREGADA".equals(v.getEstadoCocina()))
+                .sorted(Comparator.comparing(Venta::getFechaHora).thenComparing(Venta::getId))
+                .toList();
+    }
+}
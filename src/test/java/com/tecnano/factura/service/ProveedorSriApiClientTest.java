@@ -0,0 +1,141 @@
+// =====================================================
+// src/test/java/com/tecnano/factura/service/ProveedorSriApiClientTest.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import com.tecnano.factura.model.Venta;
+import com.tecnano.factura.service.ProveedorSriApiClient.ResultadoEnvio;
+import com.tecnano.factura.service.ProveedorSriApiClient.SolicitudEnvio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+class ProveedorSriApiClientTest {
+
+    private static final byte[] XML = "<factura id=\"comprobante\"/>".getBytes(StandardCharsets.UTF_8);
+
+    private RestTemplate restTemplate;
+    private CircuitoProveedorSri circuito;
+    private ProveedorSriApiClient cliente;
+
+    @BeforeEach
+    void preparar() {
+        AppProperties props = new AppProperties();
+        props.getSri().setSimular(false);
+        props.getSri().setProveedorBaseUrl(ProveedorSriStub.BASE_URL);
+        props.getSri().setProveedorToken(ProveedorSriStub.TOKEN);
+
+        restTemplate = new RestTemplate();
+        circuito = new CircuitoProveedorSri(props);
+        cliente = new ProveedorSriApiClient(props, circuito, restTemplate);
+    }
+
+    @Test
+    void facturaConXmlQuedaAutorizada() {
+        ProveedorSriStub.instalar(restTemplate);
+
+        ResultadoEnvio r = cliente.enviarFactura(venta(7L, "2110201101179214673900110020010000000011234567813"), XML, null);
+
+        assertEquals("AUTORIZADA", r.getEstadoSri());
+        assertNull(r.getMensajeError());
+        assertEquals("2110201101179214673900110020010000000011234567813", r.getClaveAccesoSri());
+        assertTrue(r.getNumeroAutorizacionSri().startsWith("STUB-AUTO-"));
+    }
+
+    @Test
+    void devueltaEsRechazoDefinitivo() {
+        ProveedorSriStub.instalar(restTemplate);
+
+        ResultadoEnvio r = cliente.enviarFactura(venta(8L, null), null, null);
+
+        assertTrue(r.isRechazoDefinitivo());
+    }
+
+    @Test
+    void loteDevuelveUnResultadoPorVenta() {
+        ProveedorSriStub.instalar(restTemplate);
+
+        Map<Long, ResultadoEnvio> r = cliente.enviarLote(List.of(
+                new SolicitudEnvio(venta(1L, null), XML, null),
+                new SolicitudEnvio(venta(2L, null), null, null),
+                new SolicitudEnvio(venta(3L, null), XML, null)));
+
+        assertEquals(3, r.size());
+        assertEquals("AUTORIZADA", r.get(1L).getEstadoSri());
+        assertEquals("STUB-1", r.get(1L).getClaveAccesoSri());
+        assertTrue(r.get(2L).isRechazoDefinitivo());
+        assertEquals("AUTORIZADA", r.get(3L).getEstadoSri());
+    }
+
+    @Test
+    void errorDelServidorSeReintenta() {
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo(ProveedorSriStub.BASE_URL + "/facturas")).andRespond(withServerError());
+
+        ResultadoEnvio r = cliente.enviarFactura(venta(9L, null), XML, null);
+
+        assertEquals("ERROR", r.getEstadoSri());
+        assertFalse(r.isRechazoDefinitivo());
+        server.verify();
+    }
+
+    @Test
+    void cuatrocientosSonRechazoSalvoCredencialesYLimite() {
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo(ProveedorSriStub.BASE_URL + "/facturas")).andRespond(withStatus(HttpStatus.BAD_REQUEST));
+        server.expect(requestTo(ProveedorSriStub.BASE_URL + "/facturas")).andRespond(withStatus(HttpStatus.UNPROCESSABLE_ENTITY));
+        server.expect(requestTo(ProveedorSriStub.BASE_URL + "/facturas")).andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS));
+        server.expect(requestTo(ProveedorSriStub.BASE_URL + "/facturas")).andRespond(withStatus(HttpStatus.UNAUTHORIZED));
+
+        assertTrue(cliente.enviarFactura(venta(10L, null), XML, null).isRechazoDefinitivo());
+        assertTrue(cliente.enviarFactura(venta(11L, null), XML, null).isRechazoDefinitivo());
+        assertFalse(cliente.enviarFactura(venta(12L, null), XML, null).isRechazoDefinitivo());
+        assertFalse(cliente.enviarFactura(venta(13L, null), XML, null).isRechazoDefinitivo());
+        server.verify();
+    }
+
+    @Test
+    void rutaInexistenteSeReintentaYCuentaComoFalla() {
+        // proveedorBaseUrl mal escrita o ruta cambiada: no es culpa de la factura
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo(ProveedorSriStub.BASE_URL + "/facturas")).andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        ResultadoEnvio r = cliente.enviarFactura(venta(14L, null), XML, null);
+
+        assertEquals("ERROR", r.getEstadoSri());
+        assertFalse(r.isRechazoDefinitivo());
+        assertEquals(1, circuito.getFallasSeguidas());
+        server.verify();
+    }
+
+    @Test
+    void cuerpoDevueltaEsRechazoAunqueElCodigoNoSea400() {
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo(ProveedorSriStub.BASE_URL + "/facturas"))
+                .andRespond(withStatus(HttpStatus.CONFLICT).contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"estado\":\"DEVUELTA\",\"mensaje\":\"CLAVE ACCESO REGISTRADA\"}"));
+
+        assertTrue(cliente.enviarFactura(venta(41L, null), XML, null).isRechazoDefinitivo());
+        server.verify();
+    }
+
+    private static Venta venta(Long id, String claveAcceso) {
+        Venta v = new Venta();
+        v.setId(id);
+        v.setClaveAccesoSri(claveAcceso);
+        return v;
+    }
+}
@@ -0,0 +1,116 @@
+// =====================================================
+// src/test/java/com/tecnano/factura/service/ProveedorSriStub.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tecnano.factura.service.ProveedorSriApiClient.ProveedorLoteItem;
+import com.tecnano.factura.service.ProveedorSriApiClient.ProveedorLoteResponse;
+import com.tecnano.factura.service.ProveedorSriApiClient.ProveedorResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.springframework.test.web.client.ExpectedCount.manyTimes;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Proveedor SRI "de mentira" para las pruebas.
+ *
+ * Se engancha al RestTemplate del cliente con MockRestServiceServer, así que
+ * no levanta servidor ni necesita abrir rutas en la seguridad de la app.
+ * Autoriza todo lo que trae {@code xmlFirmadoBase64}; lo que no, vuelve DEVUELTA.
+ */
+final class ProveedorSriStub {
+
+    static final String BASE_URL = "http://proveedor-sri.test/api";
+    static final String TOKEN = "token-pruebas";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private ProveedorSriStub() {}
+
+    /** Responde a /facturas y /facturas/lote todas las veces que se llame. */
+    static MockRestServiceServer instalar(RestTemplate restTemplate) {
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate)
+                .ignoreExpectOrder(true)
+                .build();
+
+        server.expect(manyTimes(), requestTo(BASE_URL + "/facturas"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("Authorization", "Bearer " + TOKEN))
+                .andRespond(ProveedorSriStub::recibirFactura);
+
+        server.expect(manyTimes(), requestTo(BASE_URL + "/facturas/lote"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("Authorization", "Bearer " + TOKEN))
+                .andRespond(ProveedorSriStub::recibirLote);
+
+        return server;
+    }
+
+    private static ClientHttpResponse recibirFactura(ClientHttpRequest request) throws IOException {
+        Map<String, Object> factura = JSON.readValue(cuerpo(request), new TypeReference<>() {});
+        ProveedorLoteItem item = autorizar(factura);
+        ProveedorResponse respuesta = new ProveedorResponse(
+                item.estado(),
+                item.mensaje(),
+                item.claveAcceso(),
+                item.numeroAutorizacion(),
+                null
+        );
+        return withSuccess(JSON.writeValueAsString(respuesta), MediaType.APPLICATION_JSON)
+                .createResponse(request);
+    }
+
+    private static ClientHttpResponse recibirLote(ClientHttpRequest request) throws IOException {
+        Map<String, List<Map<String, Object>>> body = JSON.readValue(cuerpo(request), new TypeReference<>() {});
+
+        List<Map<String, Object>> facturas = body.getOrDefault("facturas", List.of());
+        List<ProveedorLoteItem> resultados = new ArrayList<>(facturas.size());
+        for (Map<String, Object> factura : facturas) {
+            resultados.add(autorizar(factura));
+        }
+        return withSuccess(JSON.writeValueAsString(new ProveedorLoteResponse(resultados)), MediaType.APPLICATION_JSON)
+                .createResponse(request);
+    }
+
+    private static ProveedorLoteItem autorizar(Map<String, Object> factura) {
+        Object numero = factura.get("numeroInterno");
+        Long numeroInterno = numero instanceof Number n ? n.longValue() : null;
+
+        if (factura.get("xmlFirmadoBase64") == null) {
+            return new ProveedorLoteItem(numeroInterno, "DEVUELTA",
+                    "STUB: falta xmlFirmadoBase64", null, null, null);
+        }
+
+        return new ProveedorLoteItem(
+                numeroInterno,
+                "AUTORIZADA",
+                null,
+                factura.get("claveAcceso") instanceof String clave
+                        ? clave
+                        : "STUB-" + (numeroInterno != null ? numeroInterno : "0"),
+                "STUB-AUTO-" + UUID.randomUUID(),
+                null
+        );
+    }
+
+    private static String cuerpo(ClientHttpRequest request) {
+        return ((MockClientHttpRequest) request).getBodyAsString();
+    }
+}
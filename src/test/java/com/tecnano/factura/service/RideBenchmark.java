@@ -0,0 +1,185 @@
+// =====================================================
+// src/test/java/com/tecnano/factura/service/RideBenchmark.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import com.tecnano.factura.model.DetalleVenta;
+import com.tecnano.factura.model.Producto;
+import com.tecnano.factura.model.Venta;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.tecnano.factura.service.FormatoTicket.importe;
+import static com.tecnano.factura.service.PlantillaRide.*;
+
+/**
+ * RIDE/s con la plantilla cacheada (PdfFacturaService) contra el dibujo
+ * anterior, que repetía encabezado y cabecera de tabla en cada venta.
+ *
+ * Correr: {@code java -cp target/test-classes:<classpath de test> com.tecnano.factura.service.RideBenchmark}
+ * (o el main desde el IDE).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RideBenchmark {
+
+    /** Hasta 40 entra en una página, como con el dibujo anterior. */
+    @Param({"10", "40"})
+    int lineas;
+
+    private AppProperties appProperties;
+    private PdfFacturaService pdfFacturaService;
+    private Venta venta;
+
+    @Setup
+    public void preparar() {
+        appProperties = new AppProperties();
+        AppProperties.Negocio n = appProperties.getNegocio();
+        n.setNombre("Picantería Doña Rosa");
+        n.setRuc("1790012345001");
+        n.setDireccion("Av. Amazonas N34-12 y Naciones Unidas");
+        n.setTelefono("02 245 6789");
+
+        pdfFacturaService = new PdfFacturaService(new PlantillaRide(appProperties));
+
+        venta = new Venta();
+        venta.setId(1234L);
+        venta.setFechaHora(LocalDateTime.of(2024, 5, 10, 13, 45));
+        venta.setUbicacion("Mesa 4");
+        venta.setEstadoSri("AUTORIZADA");
+        List<DetalleVenta> detalles = new ArrayList<>();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < lineas; i++) {
+            Producto p = new Producto();
+            p.setCodigo("P" + (100 + i));
+            p.setNombre("Hornado con mote y llapingachos " + i);
+            p.setPrecio(new BigDecimal("4.50"));
+
+            DetalleVenta d = new DetalleVenta();
+            d.setProducto(p);
+            d.setCantidad(1 + i % 3);
+            d.setPrecioUnitario(p.getPrecio());
+            detalles.add(d);
+            subtotal = subtotal.add(p.getPrecio().multiply(BigDecimal.valueOf(d.getCantidad())));
+        }
+        venta.setDetalles(detalles);
+        venta.setSubtotal(subtotal);
+        venta.setIva(subtotal.multiply(new BigDecimal("0.15")));
+        venta.setTotal(subtotal.add(venta.getIva()));
+
+        // La plantilla se arma fuera de la medición
+        pdfFacturaService.generarRide(venta);
+    }
+
+    @Benchmark
+    public byte[] conPlantilla() {
+        return pdfFacturaService.generarRide(venta);
+    }
+
+    @Benchmark
+    public byte[] sinPlantilla() throws IOException {
+        try (PDDocument doc = new PDDocument();
+             ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            PDPage page = new PDPage(PAGINA);
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                dibujarCompleto(cs);
+            }
+            doc.save(baos);
+            return baos.toByteArray();
+        }
+    }
+
+    /** Mismos operadores que el RIDE antes de la plantilla (una página). */
+    private void dibujarCompleto(PDPageContentStream cs) throws IOException {
+        AppProperties.Negocio n = appProperties.getNegocio();
+        float y = PAGINA.getHeight() - MARGEN;
+
+        texto(cs, FONT_BOLD, 14, MARGEN, y, n.getNombre().toUpperCase(Locale.ROOT));
+        y -= 16;
+        texto(cs, FONT_REGULAR, 9, MARGEN, y, "RUC: " + n.getRuc());
+        y -= 12;
+        texto(cs, FONT_REGULAR, 8, MARGEN, y, n.getDireccion());
+        y -= 10;
+        texto(cs, FONT_REGULAR, 8, MARGEN, y, "Teléfono: " + n.getTelefono());
+        y -= 17;
+        linea(cs, y);
+        y -= 15;
+        texto(cs, FONT_BOLD, 11, MARGEN, y, "FACTURA / COMPROBANTE DE VENTA");
+        y -= 16;
+
+        texto(cs, FONT_REGULAR, 9, MARGEN, y, "Fecha: 2024-05-10 13:45");
+        y -= 12;
+        texto(cs, FONT_REGULAR, 9, MARGEN, y, "N° Venta: " + venta.getId());
+        y -= 12;
+        texto(cs, FONT_REGULAR, 9, MARGEN, y, "Mesa/Pedido: " + venta.getUbicacion());
+        y -= 12;
+        texto(cs, FONT_REGULAR, 9, MARGEN, y, "Estado SRI: " + venta.getEstadoSri());
+        y -= 17;
+        linea(cs, y);
+        y -= 14;
+
+        texto(cs, FONT_BOLD, 8, X_CODIGO, y, "COD");
+        texto(cs, FONT_BOLD, 8, X_DESCRIPCION, y, "DESCRIPCIÓN");
+        texto(cs, FONT_BOLD, 8, X_CANT, y, "CANT");
+        texto(cs, FONT_BOLD, 8, X_PRECIO, y, "P.UNIT");
+        texto(cs, FONT_BOLD, 8, X_SUBTOTAL, y, "SUBTOTAL");
+        y -= 10;
+        linea(cs, y);
+        y -= 10;
+
+        for (DetalleVenta d : venta.getDetalles()) {
+            texto(cs, FONT_REGULAR, 8, X_CODIGO, y, d.getProducto().getCodigo());
+            texto(cs, FONT_REGULAR, 8, X_DESCRIPCION, y, d.getProducto().getNombre());
+            texto(cs, FONT_REGULAR, 8, X_CANT, y, String.valueOf(d.getCantidad()));
+            texto(cs, FONT_REGULAR, 8, X_PRECIO, y, importe(d.getPrecioUnitario()));
+            texto(cs, FONT_REGULAR, 8, X_SUBTOTAL, y,
+                    importe(d.getPrecioUnitario().multiply(BigDecimal.valueOf(d.getCantidad()))));
+            y -= 12;
+        }
+
+        y -= 5;
+        linea(cs, y);
+        y -= 14;
+        texto(cs, FONT_REGULAR, 9, X_CANT, y, "Subtotal:");
+        texto(cs, FONT_REGULAR, 9, X_SUBTOTAL, y, importe(venta.getSubtotal()));
+        y -= 12;
+        texto(cs, FONT_REGULAR, 9, X_CANT, y, "IVA:");
+        texto(cs, FONT_REGULAR, 9, X_SUBTOTAL, y, importe(venta.getIva()));
+        y -= 12;
+        texto(cs, FONT_BOLD, 10, X_CANT, y, "TOTAL:");
+        texto(cs, FONT_BOLD, 10, X_SUBTOTAL, y, importe(venta.getTotal()));
+        y -= 18;
+        texto(cs, FONT_ITALIC, 8, MARGEN, y, "¡Gracias por su compra!");
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{RideBenchmark.class.getSimpleName()});
+    }
+}
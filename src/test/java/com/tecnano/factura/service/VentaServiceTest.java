@@ -0,0 +1,119 @@
+// =====================================================
+// src/test/java/com/tecnano/factura/service/VentaServiceTest.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import com.tecnano.factura.model.Producto;
+import com.tecnano.factura.model.Venta;
+import com.tecnano.factura.repository.ProductoRepository;
+import com.tecnano.factura.repository.VentaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * La venta que devuelve {@link VentaService#registrarVentaDesdeLineas} es la
+ * que la caja manda a imprimir: tiene que salir ya con su clave de acceso.
+ */
+class VentaServiceTest {
+
+    private static final byte[] QR_GUARDAR = {0x1D, '(', 'k'};
+
+    private AppProperties props;
+    private VentaService ventaService;
+    private long siguienteId = 41;
+
+    @BeforeEach
+    void preparar() {
+        props = new AppProperties();
+        props.getNegocio().setRuc("1790012345001");
+        // En modo lote el envío solo deja el id en la cola; aquí no se arranca el recolector
+        props.getSri().setLoteHabilitado(true);
+
+        EnvioSriService envio = new EnvioSriService(null, null, null, null, null, props);
+        ventaService = new VentaService(ventaRepository(), productoRepository(), envio,
+                new EventosVentaService(), new GeneradorXmlFacturaSri(props));
+    }
+
+    @Test
+    void laVentaRegistradaSaleConClaveDeAcceso() {
+        Venta venta = registrar();
+
+        String clave = venta.getClaveAccesoSri();
+        assertTrue(ClaveAccesoSri.esValida(clave), clave);
+        assertEquals("1790012345001", clave.substring(10, 23));
+        assertEquals(ClaveAccesoSri.secuencial9(venta.getId()), clave.substring(30, 39));
+    }
+
+    @Test
+    void elTicketDeCajaLlevaElQrDeLaClave() {
+        Venta venta = registrar();
+        TicketEscPosService tickets = new TicketEscPosService(props, null);
+
+        byte[] ticket = tickets.generarTicket(venta, 80);
+
+        assertTrue(indice(ticket, QR_GUARDAR, 0) >= 0, "el ticket no trae GS ( k");
+        assertTrue(indice(ticket, venta.getClaveAccesoSri().getBytes(StandardCharsets.US_ASCII), 0) >= 0,
+                "el ticket no trae la clave de acceso");
+    }
+
+    @Test
+    void elEnvioAlSriReusaLaMismaClave() {
+        Venta venta = registrar();
+        String clave = venta.getClaveAccesoSri();
+
+        assertEquals(clave, new GeneradorXmlFacturaSri(props).asegurarClaveAcceso(venta));
+        assertEquals(clave, venta.getClaveAccesoSri());
+    }
+
+    // =========================
+    // Apoyo
+    // =========================
+
+    private Venta registrar() {
+        return ventaService.registrarVentaDesdeLineas(
+                List.of(new VentaService.Item(1L, 2, new BigDecimal("3.50"), null)),
+                "Efectivo", "Mesa 4", null, "FINAL");
+    }
+
+    private VentaRepository ventaRepository() {
+        return (VentaRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{VentaRepository.class}, (proxy, metodo, args) -> {
+                    if (!metodo.getName().equals("save")) throw new UnsupportedOperationException(metodo.getName());
+                    Venta v = (Venta) args[0];
+                    v.setId(siguienteId++);
+                    return v;
+                });
+    }
+
+    private ProductoRepository productoRepository() {
+        Producto encebollado = new Producto();
+        encebollado.setId(1L);
+        encebollado.setCodigo("EN01");
+        encebollado.setNombre("Encebollado");
+        encebollado.setPrecio(new BigDecimal("3.50"));
+
+        return (ProductoRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ProductoRepository.class}, (proxy, metodo, args) -> {
+                    if (!metodo.getName().equals("findById")) throw new UnsupportedOperationException(metodo.getName());
+                    return Optional.of(encebollado).filter(p -> p.getId().equals(args[0]));
+                });
+    }
+
+    private static int indice(byte[] datos, byte[] buscado, int desde) {
+        for (int i = desde; i <= datos.length - buscado.length; i++) {
+            int j = 0;
+            while (j < buscado.length && datos[i + j] == buscado[j]) j++;
+            if (j == buscado.length) return i;
+        }
+        return -1;
+    }
+}
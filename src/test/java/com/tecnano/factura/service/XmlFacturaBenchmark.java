@@ -0,0 +1,161 @@
+// =====================================================
+// src/test/java/com/tecnano/factura/service/XmlFacturaBenchmark.java
+// =====================================================
+package com.tecnano.factura.service;
+
+import com.tecnano.factura.config.AppProperties;
+import com.tecnano.factura.model.DetalleVenta;
+import com.tecnano.factura.model.Producto;
+import com.tecnano.factura.model.Venta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XML de una factura con muchas líneas:
+ * <ul>
+ *   <li>{@code stringBuilder}: como lo hacía SriService.generarXmlBasico
+ *       (StringBuilder, cinco String.replace por campo, getBytes al final);</li>
+ *   <li>{@code escritorXml}: los mismos elementos con EscritorXml;</li>
+ *   <li>{@code generadorSri}: el XML completo de GeneradorXmlFacturaSri.</li>
+ * </ul>
+ * Correr con {@code -prof gc} para ver también la basura por factura.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class XmlFacturaBenchmark {
+
+    /** Misma cabecera que stringBuilder(), ya codificada. */
+    private static final byte[] CABECERA = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<factura>\n"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    @Param({"50", "200"})
+    int lineas;
+
+    private Venta venta;
+    private GeneradorXmlFacturaSri generador;
+    private final EscritorXml escritor = new EscritorXml(8 * 1024);
+
+    @Setup
+    public void preparar() {
+        AppProperties props = new AppProperties();
+        AppProperties.Negocio n = props.getNegocio();
+        n.setNombre("Picantería \"Doña Rosa\" & Hijos");
+        n.setRuc("1790012345001");
+        n.setDireccion("Av. Amazonas N34-12 y Naciones Unidas");
+        generador = new GeneradorXmlFacturaSri(props);
+
+        venta = new Venta();
+        venta.setId(4321L);
+        venta.setFechaHora(LocalDateTime.of(2024, 5, 10, 13, 45));
+        venta.setFormaPago("Efectivo");
+        List<DetalleVenta> detalles = new ArrayList<>();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < lineas; i++) {
+            Producto p = new Producto();
+            p.setCodigo("P-" + i);
+            p.setNombre("Seco de chivo <especial> " + i + " con maduro & menestra");
+
+            DetalleVenta d = new DetalleVenta();
+            d.setProducto(p);
+            d.setCantidad(1 + i % 4);
+            d.setPrecioUnitario(new BigDecimal("6.75"));
+            d.setConIva(i % 2 == 0);
+            d.setSubtotal(d.getPrecioUnitario().multiply(BigDecimal.valueOf(d.getCantidad())));
+            if (i % 5 == 0) d.setNotaCocina("Sin cebolla, \"bien\" cocido");
+            detalles.add(d);
+            subtotal = subtotal.add(d.getSubtotal());
+        }
+        venta.setDetalles(detalles);
+        venta.setSubtotal(subtotal);
+        venta.setIva(subtotal.multiply(new BigDecimal("0.12")).setScale(2, RoundingMode.HALF_UP));
+        venta.setTotal(subtotal.add(venta.getIva()));
+    }
+
+    @Benchmark
+    public byte[] stringBuilder() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<factura>\n");
+        sb.append("  <detalles>\n");
+        for (DetalleVenta d : venta.getDetalles()) {
+            BigDecimal subtotalLinea = d.getPrecioUnitario().multiply(BigDecimal.valueOf(d.getCantidad()));
+            sb.append("    <detalle>\n");
+            sb.append("      <codigo>").append(escapeXml(d.getProducto().getCodigo())).append("</codigo>\n");
+            sb.append("      <descripcion>").append(escapeXml(d.getProducto().getNombre())).append("</descripcion>\n");
+            sb.append("      <cantidad>").append(d.getCantidad()).append("</cantidad>\n");
+            sb.append("      <precioUnitario>")
+                    .append(d.getPrecioUnitario().setScale(2, RoundingMode.HALF_UP))
+                    .append("</precioUnitario>\n");
+            sb.append("      <subtotal>").append(subtotalLinea.setScale(2, RoundingMode.HALF_UP)).append("</subtotal>\n");
+            if (d.getNotaCocina() != null && !d.getNotaCocina().isBlank()) {
+                sb.append("      <nota>").append(escapeXml(d.getNotaCocina())).append("</nota>\n");
+            }
+            sb.append("    </detalle>\n");
+        }
+        sb.append("  </detalles>\n");
+        sb.append("</factura>\n");
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] escritorXml() {
+        EscritorXml xml = escritor.reiniciar();
+        xml.crudo(CABECERA).nivel(1);
+        xml.abrir("detalles");
+        for (DetalleVenta d : venta.getDetalles()) {
+            BigDecimal subtotalLinea = d.getPrecioUnitario().multiply(BigDecimal.valueOf(d.getCantidad()));
+            xml.abrir("detalle")
+                    .elemento("codigo", d.getProducto().getCodigo())
+                    .elemento("descripcion", d.getProducto().getNombre())
+                    .elemento("cantidad", d.getCantidad())
+                    .elemento("precioUnitario", d.getPrecioUnitario())
+                    .elemento("subtotal", subtotalLinea);
+            if (d.getNotaCocina() != null && !d.getNotaCocina().isBlank()) {
+                xml.elemento("nota", d.getNotaCocina());
+            }
+            xml.cerrar("detalle");
+        }
+        xml.cerrar("detalles").cerrar("factura");
+        return xml.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] generadorSri() {
+        return generador.generarXml(venta);
+    }
+
+    private static String escapeXml(String s) {
+        if (s == null) return "";
+        return s
+                .replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;")
+                .replace("'", "&apos;");
+    }
+
+    public static void main(String[] args) throws Exception {
+        org.openjdk.jmh.Main.main(new String[]{XmlFacturaBenchmark.class.getSimpleName()});
+    }
+}